@@ -0,0 +1,52 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V16__CreateTransactionTextSearch extends BaseJavaMigration {
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("""
+          CREATE VIRTUAL TABLE transactions_fts USING fts5(
+            partner_name,
+            purpose_text,
+            booking_text,
+            reference_text,
+            content = 'transactions',
+            content_rowid = 'id',
+            tokenize = 'trigram'
+          )
+          """);
+
+      statement.execute("""
+          CREATE TRIGGER transactions_fts_after_insert AFTER INSERT ON transactions BEGIN
+            INSERT INTO transactions_fts (rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES (new.id, new.partner_name, new.purpose_text, new.booking_text, new.reference_text);
+          END
+          """);
+
+      statement.execute("""
+          CREATE TRIGGER transactions_fts_after_delete AFTER DELETE ON transactions BEGIN
+            INSERT INTO transactions_fts (transactions_fts, rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES ('delete', old.id, old.partner_name, old.purpose_text, old.booking_text, old.reference_text);
+          END
+          """);
+
+      statement.execute("""
+          CREATE TRIGGER transactions_fts_after_update
+          AFTER UPDATE OF partner_name, purpose_text, booking_text, reference_text ON transactions BEGIN
+            INSERT INTO transactions_fts (transactions_fts, rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES ('delete', old.id, old.partner_name, old.purpose_text, old.booking_text, old.reference_text);
+            INSERT INTO transactions_fts (rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES (new.id, new.partner_name, new.purpose_text, new.booking_text, new.reference_text);
+          END
+          """);
+
+      statement.execute("INSERT INTO transactions_fts (transactions_fts) VALUES ('rebuild')");
+    }
+  }
+}
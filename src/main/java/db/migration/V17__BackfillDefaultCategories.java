@@ -0,0 +1,158 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V17__BackfillDefaultCategories extends BaseJavaMigration {
+  private static final String FALLBACK_PARENT = "Sonstiges";
+  private static final String FALLBACK_SUB = "Unkategorisiert";
+
+  private static final List<ParentSeed> DEFAULT_SET = List.of(
+      new ParentSeed("Einnahmen", List.of("Gehalt", "Erstattung", "Sonstige Einnahmen")),
+      new ParentSeed("Wohnen", List.of("Miete/Hypothek", "Nebenkosten", "Internet/Telefon")),
+      new ParentSeed("Essen & Trinken", List.of("Groceries", "Restaurants", "FastFood", "Coffee/Snacks")),
+      new ParentSeed("Transport", List.of("OePNV", "Tanken", "Bahn/Flug", "Parkplatz/Maut")),
+      new ParentSeed("Rechnungen & Abos", List.of("Streaming", "Mobilfunk", "Strom/Gas/Wasser")),
+      new ParentSeed("Shopping", List.of("Kleidung", "Elektronik", "Haushalt", "Sport")),
+      new ParentSeed("Gesundheit", List.of("Apotheke", "Arzt", "Fitness")),
+      new ParentSeed("Freizeit", List.of("Entertainment", "Urlaub", "Hobbys")),
+      new ParentSeed("Versicherung", List.of("Haftpflicht", "KFZ", "Sonstige Versicherungen")),
+      new ParentSeed("Finanzen", List.of("Gebuehren", "Steuern", "Sparen/Investieren")),
+      new ParentSeed(FALLBACK_PARENT, List.of(FALLBACK_SUB))
+  );
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    Timestamp now = Timestamp.from(Instant.now());
+    for (UserState user : usersWithoutDefault(connection)) {
+      if (user.hasCategories()) {
+        ensureFallback(connection, user.id(), now);
+      } else {
+        seedDefaultSet(connection, user.id(), now);
+      }
+    }
+  }
+
+  private List<UserState> usersWithoutDefault(Connection connection) throws SQLException {
+    String sql = """
+        SELECT u.id,
+               EXISTS (SELECT 1 FROM categories c WHERE c.user_id = u.id AND c.deleted_at IS NULL) AS has_categories
+          FROM users u
+         WHERE NOT EXISTS (
+                 SELECT 1 FROM categories c
+                  WHERE c.user_id = u.id AND c.deleted_at IS NULL AND c.is_default = 1)
+        """;
+    List<UserState> users = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet rows = statement.executeQuery(sql)) {
+      while (rows.next()) {
+        users.add(new UserState(rows.getInt("id"), rows.getBoolean("has_categories")));
+      }
+    }
+    return users;
+  }
+
+  private void seedDefaultSet(Connection connection, int userId, Timestamp now) throws SQLException {
+    int parentSortOrder = 0;
+    for (ParentSeed seed : DEFAULT_SET) {
+      int parentId = insert(connection, userId, null, seed.parentName(), parentSortOrder++, false, now);
+      int subSortOrder = 0;
+      for (String subName : seed.subNames()) {
+        boolean isFallback = FALLBACK_PARENT.equals(seed.parentName()) && FALLBACK_SUB.equals(subName);
+        insert(connection, userId, parentId, subName, subSortOrder++, isFallback, now);
+      }
+    }
+  }
+
+  private void ensureFallback(Connection connection, int userId, Timestamp now) throws SQLException {
+    Integer parentId = findActive(connection, userId, null, FALLBACK_PARENT);
+    if (parentId == null) {
+      parentId = insert(connection, userId, null, FALLBACK_PARENT, countActiveParents(connection, userId), false, now);
+    }
+
+    Integer subId = findActive(connection, userId, parentId, FALLBACK_SUB);
+    if (subId == null) {
+      insert(connection, userId, parentId, FALLBACK_SUB, 0, true, now);
+      return;
+    }
+    try (PreparedStatement update = connection.prepareStatement(
+        "UPDATE categories SET is_default = 1, is_system = 1 WHERE id = ?")) {
+      update.setInt(1, subId);
+      update.executeUpdate();
+    }
+  }
+
+  private Integer findActive(Connection connection, int userId, Integer parentId, String name) throws SQLException {
+    String sql = """
+        SELECT id FROM categories
+         WHERE user_id = ? AND COALESCE(parent_id, 0) = ? AND lower(name) = lower(?) AND deleted_at IS NULL
+        """;
+    try (PreparedStatement select = connection.prepareStatement(sql)) {
+      select.setInt(1, userId);
+      select.setInt(2, parentId == null ? 0 : parentId);
+      select.setString(3, name);
+      try (ResultSet rows = select.executeQuery()) {
+        return rows.next() ? rows.getInt("id") : null;
+      }
+    }
+  }
+
+  private int countActiveParents(Connection connection, int userId) throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(
+        "SELECT count(*) FROM categories WHERE user_id = ? AND parent_id IS NULL AND deleted_at IS NULL")) {
+      select.setInt(1, userId);
+      try (ResultSet rows = select.executeQuery()) {
+        return rows.next() ? rows.getInt(1) : 0;
+      }
+    }
+  }
+
+  private int insert(
+      Connection connection,
+      int userId,
+      Integer parentId,
+      String name,
+      int sortOrder,
+      boolean fallback,
+      Timestamp now) throws SQLException {
+    String sql = """
+        INSERT INTO categories (user_id, parent_id, name, sort_order, is_default, is_system, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+    try (PreparedStatement insert = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      insert.setInt(1, userId);
+      if (parentId == null) {
+        insert.setNull(2, Types.INTEGER);
+      } else {
+        insert.setInt(2, parentId);
+      }
+      insert.setString(3, name);
+      insert.setInt(4, sortOrder);
+      insert.setBoolean(5, fallback);
+      insert.setBoolean(6, fallback);
+      insert.setTimestamp(7, now);
+      insert.executeUpdate();
+      try (ResultSet keys = insert.getGeneratedKeys()) {
+        if (!keys.next()) {
+          throw new SQLException("Missing generated id for category " + name);
+        }
+        return keys.getInt(1);
+      }
+    }
+  }
+
+  private record UserState(int id, boolean hasCategories) {}
+
+  private record ParentSeed(String parentName, List<String> subNames) {}
+}
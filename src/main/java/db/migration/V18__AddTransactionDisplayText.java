@@ -0,0 +1,81 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V18__AddTransactionDisplayText extends BaseJavaMigration {
+  private static final int BATCH_SIZE = 500;
+  private static final String BOOKING_TEXT_MARKER = "Buchungstext:";
+  private static final String CARD_MARKER = "Karte Nr.";
+  private static final String REFERENCE_MARKER = "Ref.";
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("ALTER TABLE transactions ADD COLUMN display_name TEXT");
+      statement.execute("ALTER TABLE transactions ADD COLUMN display_purpose TEXT");
+    }
+
+    try (PreparedStatement select = connection.prepareStatement(
+             "SELECT id, partner_name, purpose_text FROM transactions");
+         ResultSet rows = select.executeQuery();
+         PreparedStatement update = connection.prepareStatement(
+             "UPDATE transactions SET display_name = ?, display_purpose = ? WHERE id = ?")) {
+      int pending = 0;
+      while (rows.next()) {
+        update.setString(1, displayName(rows.getString("partner_name")));
+        update.setString(2, displayPurpose(rows.getString("purpose_text")));
+        update.setInt(3, rows.getInt("id"));
+        update.addBatch();
+        if (++pending == BATCH_SIZE) {
+          update.executeBatch();
+          pending = 0;
+        }
+      }
+      if (pending > 0) {
+        update.executeBatch();
+      }
+    }
+  }
+
+  private static String displayName(String partnerName) {
+    if (partnerName == null) {
+      return "";
+    }
+    String value = partnerName.trim();
+    value = cutAt(value, BOOKING_TEXT_MARKER);
+    value = cutAt(value, CARD_MARKER);
+    return cutAt(value, REFERENCE_MARKER);
+  }
+
+  private static String displayPurpose(String purposeText) {
+    if (purposeText == null) {
+      return "";
+    }
+    String value = purposeText.trim();
+    int bookingTextIndex = indexOfIgnoreCase(value, BOOKING_TEXT_MARKER);
+    if (bookingTextIndex >= 0) {
+      value = value.substring(bookingTextIndex + BOOKING_TEXT_MARKER.length()).trim();
+    }
+    return cutAt(value, CARD_MARKER);
+  }
+
+  private static String cutAt(String value, String marker) {
+    int index = indexOfIgnoreCase(value, marker);
+    return index < 0 ? value : value.substring(0, index).trim();
+  }
+
+  private static int indexOfIgnoreCase(String source, String marker) {
+    for (int i = 0; i <= source.length() - marker.length(); i++) {
+      if (source.regionMatches(true, i, marker, 0, marker.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,43 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V21__CreateTransactionRevisions extends BaseJavaMigration {
+  private static final String BUMP_REVISION = """
+      INSERT INTO transaction_revisions (user_id, revision) VALUES (%s.user_id, 1)
+      ON CONFLICT (user_id) DO UPDATE SET revision = revision + 1;
+      """;
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("""
+          CREATE TABLE transaction_revisions (
+            user_id INTEGER PRIMARY KEY,
+            revision BIGINT NOT NULL,
+            CONSTRAINT fk_transaction_revisions_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+          )
+          """);
+
+      statement.execute("CREATE TRIGGER transaction_revisions_after_insert AFTER INSERT ON transactions BEGIN\n"
+          + BUMP_REVISION.formatted("new")
+          + "END");
+
+      statement.execute("CREATE TRIGGER transaction_revisions_after_delete AFTER DELETE ON transactions BEGIN\n"
+          + BUMP_REVISION.formatted("old")
+          + "END");
+
+      statement.execute("""
+          CREATE TRIGGER transaction_revisions_after_update
+          AFTER UPDATE OF booking_datetime, partner_name, purpose_text, raw_booking_text, amount_cents,
+            category_locked, deleted_at ON transactions BEGIN
+          """
+          + BUMP_REVISION.formatted("new")
+          + "END");
+    }
+  }
+}
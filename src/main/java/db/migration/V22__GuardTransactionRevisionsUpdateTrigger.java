@@ -0,0 +1,34 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V22__GuardTransactionRevisionsUpdateTrigger extends BaseJavaMigration {
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TRIGGER IF EXISTS transaction_revisions_after_update");
+
+      // UPDATE OF only filters on the SET list; JPA writes every column, so compare the values as well.
+      statement.execute("""
+          CREATE TRIGGER transaction_revisions_after_update
+          AFTER UPDATE OF booking_datetime, partner_name, purpose_text, raw_booking_text, amount_cents,
+            category_locked, deleted_at ON transactions
+          WHEN OLD.booking_datetime IS NOT NEW.booking_datetime
+            OR OLD.partner_name IS NOT NEW.partner_name
+            OR OLD.purpose_text IS NOT NEW.purpose_text
+            OR OLD.raw_booking_text IS NOT NEW.raw_booking_text
+            OR OLD.amount_cents IS NOT NEW.amount_cents
+            OR OLD.category_locked IS NOT NEW.category_locked
+            OR OLD.deleted_at IS NOT NEW.deleted_at
+          BEGIN
+            INSERT INTO transaction_revisions (user_id, revision) VALUES (new.user_id, 1)
+            ON CONFLICT (user_id) DO UPDATE SET revision = revision + 1;
+          END
+          """);
+    }
+  }
+}
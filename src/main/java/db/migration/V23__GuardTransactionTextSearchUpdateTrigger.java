@@ -0,0 +1,31 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V23__GuardTransactionTextSearchUpdateTrigger extends BaseJavaMigration {
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TRIGGER IF EXISTS transactions_fts_after_update");
+
+      statement.execute("""
+          CREATE TRIGGER transactions_fts_after_update
+          AFTER UPDATE OF partner_name, purpose_text, booking_text, reference_text ON transactions
+          WHEN OLD.partner_name IS NOT NEW.partner_name
+            OR OLD.purpose_text IS NOT NEW.purpose_text
+            OR OLD.booking_text IS NOT NEW.booking_text
+            OR OLD.reference_text IS NOT NEW.reference_text
+          BEGIN
+            INSERT INTO transactions_fts (transactions_fts, rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES ('delete', old.id, old.partner_name, old.purpose_text, old.booking_text, old.reference_text);
+            INSERT INTO transactions_fts (rowid, partner_name, purpose_text, booking_text, reference_text)
+            VALUES (new.id, new.partner_name, new.purpose_text, new.booking_text, new.reference_text);
+          END
+          """);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package de.kruemelnerd.finanzapp.auth;
+
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+@Component
+public class CurrentUserResolver {
+  private static final String REQUEST_ATTRIBUTE_PREFIX = CurrentUserResolver.class.getName() + ".user:";
+
+  private final UserRepository userRepository;
+  private final long ttlNanos;
+  private final Map<String, CachedUser> usersByEmail = new ConcurrentHashMap<>();
+
+  public CurrentUserResolver(
+      UserRepository userRepository,
+      @Value("${app.users.cache.ttl:PT30S}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.ttlNanos = Math.max(0L, ttl.toNanos());
+  }
+
+  public Optional<User> resolve(UserDetails userDetails) {
+    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
+      return Optional.empty();
+    }
+    String email = userDetails.getUsername();
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null
+        && request.getAttribute(REQUEST_ATTRIBUTE_PREFIX + email, RequestAttributes.SCOPE_REQUEST) instanceof User user) {
+      return Optional.of(user);
+    }
+
+    Optional<User> user = lookup(email);
+    if (request != null) {
+      user.ifPresent(value -> request.setAttribute(REQUEST_ATTRIBUTE_PREFIX + email, value, RequestAttributes.SCOPE_REQUEST));
+    }
+    return user;
+  }
+
+  public void invalidate(User user) {
+    if (user == null || user.getEmail() == null) {
+      return;
+    }
+    usersByEmail.remove(user.getEmail());
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null) {
+      request.removeAttribute(REQUEST_ATTRIBUTE_PREFIX + user.getEmail(), RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  private Optional<User> lookup(String email) {
+    long now = System.nanoTime();
+    CachedUser cached = usersByEmail.get(email);
+    if (cached != null && now - cached.loadedAtNanos() < ttlNanos) {
+      return Optional.of(cached.user());
+    }
+
+    Optional<User> user = userRepository.findByEmail(email);
+    if (ttlNanos == 0L) {
+      return user;
+    }
+    usersByEmail.values().removeIf(entry -> now - entry.loadedAtNanos() >= ttlNanos);
+    user.ifPresent(value -> usersByEmail.put(email, new CachedUser(value, now)));
+    return user;
+  }
+
+  private record CachedUser(User user, long loadedAtNanos) {}
+}
@@ -5,6 +5,7 @@ import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.importcsv.CsvParser;
 import de.kruemelnerd.finanzapp.importcsv.CsvParsingResult;
+import de.kruemelnerd.finanzapp.repository.BookingSlotSum;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
 import java.time.LocalDate;
@@ -14,13 +15,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class AccountBalanceService {
   private final TransactionRepository transactionRepository;
   private final CsvArtifactRepository csvArtifactRepository;
   private final CsvParser csvParser = new CsvParser();
+  private final Map<Integer, AtomicLong> versionByUserId = new ConcurrentHashMap<>();
+  private final Map<Integer, BalanceState> stateByUserId = new ConcurrentHashMap<>();
 
   public AccountBalanceService(
       TransactionRepository transactionRepository,
@@ -33,14 +41,11 @@ public class AccountBalanceService {
     if (user == null) {
       return Optional.empty();
     }
-    List<Transaction> activeTransactions =
-        transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user);
-    Optional<BalanceAnchor> anchor = resolveAnchor(user);
-    if (anchor.isEmpty()) {
+    BalanceState state = state(user);
+    if (state.anchor().isEmpty()) {
       return Optional.empty();
     }
-    long current = balanceAt(LocalDate.now(), anchor.get(), sumByDate(activeTransactions));
-    return Optional.of(current);
+    return Optional.of(balanceAt(LocalDate.now(), state.anchor().get(), state.index()));
   }
 
   public List<BalancePoint> computeRange(User user, LocalDate start, LocalDate end) {
@@ -48,28 +53,142 @@ public class AccountBalanceService {
       return List.of();
     }
 
-    List<Transaction> activeTransactions =
-        transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user);
-    Optional<BalanceAnchor> anchor = resolveAnchor(user);
-    if (anchor.isEmpty()) {
+    BalanceState state = state(user);
+    if (state.anchor().isEmpty()) {
       return List.of();
     }
 
-    Map<LocalDate, Long> sumByDate = sumByDate(activeTransactions);
-    long running = balanceAt(start, anchor.get(), sumByDate);
-
+    DailyBalanceIndex index = state.index();
+    BalanceAnchor anchor = state.anchor().get();
+    long base = anchor.balanceCents() - index.sumThrough(anchor.date());
     List<BalancePoint> points = new ArrayList<>();
     LocalDate cursor = start;
     while (!cursor.isAfter(end)) {
-      if (!cursor.equals(start)) {
-        running += sumByDate.getOrDefault(cursor, 0L);
-      }
-      points.add(new BalancePoint(cursor, running));
+      points.add(new BalancePoint(cursor, base + index.sumThrough(cursor)));
       cursor = cursor.plusDays(1);
     }
     return points;
   }
 
+  public long dataVersion(User user) {
+    if (user == null || user.getId() == null) {
+      return -1L;
+    }
+    return versionFor(user.getId()).get();
+  }
+
+  public void recordImport(User user, List<Transaction> importedTransactions) {
+    update(user, sumByDate(importedTransactions), true);
+  }
+
+  public void recordRemoval(User user, Transaction removedTransaction) {
+    update(
+        user,
+        Map.of(removedTransaction.getBookingDateTime().toLocalDate(), -removedTransaction.getAmountCents()),
+        false);
+  }
+
+  public void invalidate(User user) {
+    update(user, null, true);
+  }
+
+  private BalanceState state(User user) {
+    if (user.getId() == null) {
+      return load(user, 0L);
+    }
+
+    Integer userId = user.getId();
+    AtomicLong version = versionFor(userId);
+    long expected = version.get();
+    BalanceState cached = stateByUserId.get(userId);
+    if (cached != null && cached.version() == expected && cached.anchor() != null) {
+      return cached;
+    }
+
+    BalanceState loaded = cached != null && cached.version() == expected
+        ? new BalanceState(expected, cached.index(), resolveAnchor(user))
+        : load(user, expected);
+    synchronized (version) {
+      if (version.get() == expected) {
+        stateByUserId.put(userId, loaded);
+      }
+    }
+    return loaded;
+  }
+
+  private BalanceState load(User user, long version) {
+    return new BalanceState(version, loadIndex(user), resolveAnchor(user));
+  }
+
+  private DailyBalanceIndex loadIndex(User user) {
+    if (user.getId() == null) {
+      return DailyBalanceIndex.EMPTY;
+    }
+    Map<Long, Long> centsByEpochDay = new TreeMap<>();
+    for (BookingSlotSum slot : transactionRepository.sumActiveAmountBySlot(user.getId())) {
+      centsByEpochDay.merge(slot.day().toEpochDay(), slot.getAmountCents(), Long::sum);
+    }
+    long[] epochDays = new long[centsByEpochDay.size()];
+    long[] centsByDay = new long[centsByEpochDay.size()];
+    int i = 0;
+    for (Map.Entry<Long, Long> day : centsByEpochDay.entrySet()) {
+      epochDays[i] = day.getKey();
+      centsByDay[i] = day.getValue();
+      i++;
+    }
+    return DailyBalanceIndex.ofSortedDays(epochDays, centsByDay);
+  }
+
+  private void update(User user, Map<LocalDate, Long> deltaByDate, boolean anchorChanged) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    Integer userId = user.getId();
+    AtomicLong version = versionFor(userId);
+    BalanceState before;
+    long expected;
+    synchronized (version) {
+      expected = version.incrementAndGet();
+      before = stateByUserId.remove(userId);
+    }
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      publish(userId, before, expected, deltaByDate, anchorChanged);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        publish(userId, status == STATUS_COMMITTED ? before : null, expected, deltaByDate, anchorChanged);
+      }
+    });
+  }
+
+  private void publish(
+      Integer userId,
+      BalanceState before,
+      long expected,
+      Map<LocalDate, Long> deltaByDate,
+      boolean anchorChanged) {
+    AtomicLong version = versionFor(userId);
+    synchronized (version) {
+      boolean untouched = version.get() == expected;
+      long next = version.incrementAndGet();
+      if (!untouched || before == null || deltaByDate == null) {
+        stateByUserId.remove(userId);
+        return;
+      }
+      stateByUserId.put(userId, new BalanceState(
+          next,
+          before.index().withDeltas(deltaByDate),
+          anchorChanged ? null : before.anchor()));
+    }
+  }
+
+  private AtomicLong versionFor(Integer userId) {
+    return versionByUserId.computeIfAbsent(userId, key -> new AtomicLong());
+  }
+
   private Optional<BalanceAnchor> resolveAnchor(User user) {
     List<CsvArtifact> artifacts = csvArtifactRepository.findByUserAndDeletedAtIsNull(user);
     List<BalanceAnchor> transactionAnchors = new ArrayList<>();
@@ -143,27 +262,11 @@ public class AccountBalanceService {
     return sumByDate;
   }
 
-  private long balanceAt(LocalDate targetDate, BalanceAnchor anchor, Map<LocalDate, Long> sumByDate) {
-    if (targetDate.equals(anchor.date())) {
-      return anchor.balanceCents();
-    }
-    long balance = anchor.balanceCents();
-    if (targetDate.isAfter(anchor.date())) {
-      LocalDate cursor = anchor.date().plusDays(1);
-      while (!cursor.isAfter(targetDate)) {
-        balance += sumByDate.getOrDefault(cursor, 0L);
-        cursor = cursor.plusDays(1);
-      }
-      return balance;
-    }
-
-    LocalDate cursor = targetDate.plusDays(1);
-    while (!cursor.isAfter(anchor.date())) {
-      balance -= sumByDate.getOrDefault(cursor, 0L);
-      cursor = cursor.plusDays(1);
-    }
-    return balance;
+  private long balanceAt(LocalDate targetDate, BalanceAnchor anchor, DailyBalanceIndex index) {
+    return anchor.balanceCents() + index.sumThrough(targetDate) - index.sumThrough(anchor.date());
   }
 
   private record BalanceAnchor(LocalDate date, long balanceCents, int priority) {}
+
+  private record BalanceState(long version, DailyBalanceIndex index, Optional<BalanceAnchor> anchor) {}
 }
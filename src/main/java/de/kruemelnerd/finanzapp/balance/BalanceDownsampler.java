@@ -0,0 +1,60 @@
+package de.kruemelnerd.finanzapp.balance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BalanceDownsampler {
+  private BalanceDownsampler() {}
+
+  public static List<BalancePoint> largestTriangleThreeBuckets(List<BalancePoint> points, int maxPoints) {
+    int size = points.size();
+    if (maxPoints < 3 || size <= maxPoints) {
+      return points;
+    }
+
+    int buckets = maxPoints - 2;
+    List<BalancePoint> sampled = new ArrayList<>(maxPoints);
+    sampled.add(points.get(0));
+    int selected = 0;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      int bucketStart = bucketBoundary(bucket, size, buckets);
+      int bucketEnd = bucketBoundary(bucket + 1, size, buckets);
+      int nextEnd = Math.min(size, bucketBoundary(bucket + 2, size, buckets));
+
+      double averageX = 0.0d;
+      double averageY = 0.0d;
+      for (int i = bucketEnd; i < nextEnd; i++) {
+        averageX += x(points.get(i));
+        averageY += points.get(i).balanceCents();
+      }
+      averageX /= nextEnd - bucketEnd;
+      averageY /= nextEnd - bucketEnd;
+
+      double anchorX = x(points.get(selected));
+      double anchorY = points.get(selected).balanceCents();
+      double maxArea = -1.0d;
+      int best = bucketStart;
+      for (int i = bucketStart; i < bucketEnd; i++) {
+        double area = Math.abs(
+            (anchorX - averageX) * (points.get(i).balanceCents() - anchorY)
+                - (anchorX - x(points.get(i))) * (averageY - anchorY));
+        if (area > maxArea) {
+          maxArea = area;
+          best = i;
+        }
+      }
+      sampled.add(points.get(best));
+      selected = best;
+    }
+    sampled.add(points.get(size - 1));
+    return sampled;
+  }
+
+  private static int bucketBoundary(int bucket, int size, int buckets) {
+    return 1 + (int) ((long) bucket * (size - 2) / buckets);
+  }
+
+  private static double x(BalancePoint point) {
+    return point.date().toEpochDay();
+  }
+}
@@ -0,0 +1,59 @@
+package de.kruemelnerd.finanzapp.balance;
+
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
+import de.kruemelnerd.finanzapp.domain.User;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+public class BalanceSeriesController {
+  private static final int MIN_POINTS = 3;
+  private static final int MAX_POINTS = 2000;
+
+  private final BalanceService balanceService;
+  private final CurrentUserResolver currentUserResolver;
+
+  public BalanceSeriesController(BalanceService balanceService, CurrentUserResolver currentUserResolver) {
+    this.balanceService = balanceService;
+    this.currentUserResolver = currentUserResolver;
+  }
+
+  @GetMapping("/api/balance/series")
+  public ResponseEntity<BalanceSeries> series(
+      @AuthenticationPrincipal UserDetails userDetails,
+      @RequestParam(name = "range", defaultValue = "30d") String range,
+      @RequestParam(name = "points", defaultValue = "400") int points) {
+    Optional<User> user = resolveUser(userDetails);
+    if (user.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    LocalDate end = LocalDate.now();
+    LocalDate start;
+    try {
+      start = balanceService.resolveRangeStart(user.get(), range, end);
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().build();
+    }
+    List<BalancePoint> dailyPoints = balanceService.loadSeries(user.get(), start, end);
+    int maxPoints = Math.max(MIN_POINTS, Math.min(MAX_POINTS, points));
+    return ResponseEntity.ok(new BalanceSeries(
+        start,
+        end,
+        dailyPoints.size(),
+        BalanceDownsampler.largestTriangleThreeBuckets(dailyPoints, maxPoints)));
+  }
+
+  private Optional<User> resolveUser(UserDetails userDetails) {
+    return currentUserResolver.resolve(userDetails);
+  }
+
+  public record BalanceSeries(LocalDate start, LocalDate end, int totalDays, List<BalancePoint> points) {}
+}
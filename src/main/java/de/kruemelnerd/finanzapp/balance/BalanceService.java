@@ -1,76 +1,197 @@
 package de.kruemelnerd.finanzapp.balance;
 
 import de.kruemelnerd.finanzapp.domain.BalanceDaily;
-import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.BalanceDailyRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BalanceService {
+  private static final int UPSERT_BATCH_SIZE = 500;
+  private static final String UPSERT_SQL = """
+      INSERT INTO balance_daily (user_id, date, balance_cents_end_of_day, currency, computed_at)
+      VALUES (?, ?, ?, 'EUR', ?)
+      ON CONFLICT (user_id, date) DO UPDATE
+         SET balance_cents_end_of_day = excluded.balance_cents_end_of_day,
+             computed_at = excluded.computed_at
+      """;
+
   private final BalanceDailyRepository balanceDailyRepository;
+  private final TransactionRepository transactionRepository;
+  private final AccountBalanceService accountBalanceService;
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<Integer, CachedSeries> seriesByUserId = new ConcurrentHashMap<>();
 
-  public BalanceService(BalanceDailyRepository balanceDailyRepository) {
+  public BalanceService(
+      BalanceDailyRepository balanceDailyRepository,
+      TransactionRepository transactionRepository,
+      AccountBalanceService accountBalanceService,
+      JdbcTemplate jdbcTemplate) {
     this.balanceDailyRepository = balanceDailyRepository;
+    this.transactionRepository = transactionRepository;
+    this.accountBalanceService = accountBalanceService;
+    this.jdbcTemplate = jdbcTemplate;
   }
 
-  public List<BalancePoint> computeLast30Days(long startBalanceCents, List<Transaction> transactions) {
-    LocalDate endDate = LocalDate.now();
-    LocalDate startDate = endDate.minusDays(29);
+  @Transactional
+  public void materializeFrom(User user, LocalDate affectedFrom) {
+    LocalDateTime firstBooking = transactionRepository.findFirstActiveBookingDateTime(user);
+    if (firstBooking == null) {
+      balanceDailyRepository.deleteByUser(user);
+      return;
+    }
+
+    LocalDate historyStart = firstBooking.toLocalDate().minusDays(1);
+    LocalDate from = affectedFrom == null || !affectedFrom.isAfter(historyStart) ? historyStart : affectedFrom;
+    if (from.isAfter(historyStart) && !unchangedBefore(user, from)) {
+      from = historyStart;
+    }
+    LocalDate today = LocalDate.now();
+    List<BalancePoint> points =
+        accountBalanceService.computeRange(user, from, from.isAfter(today) ? from : today);
+    if (points.isEmpty()) {
+      return;
+    }
 
-    List<Transaction> sorted = new ArrayList<>(transactions);
-    sorted.sort(Comparator.comparing(Transaction::getBookingDateTime));
+    upsert(user, points);
+    balanceDailyRepository.deleteByUserAndDateBefore(user, historyStart);
+  }
 
-    Map<LocalDate, Long> sumByDate = new HashMap<>();
-    for (Transaction tx : sorted) {
-      LocalDate date = tx.getBookingDateTime().toLocalDate();
-      sumByDate.put(date, sumByDate.getOrDefault(date, 0L) + tx.getAmountCents());
+  /** For imports without new transactions: only a shifted anchor or a new day can stale the series. */
+  @Transactional
+  public void materializeIfStale(User user) {
+    LocalDate today = LocalDate.now();
+    if (!unchangedBefore(user, today.plusDays(1))) {
+      materializeFrom(user, today);
     }
+  }
 
+  public List<BalancePoint> loadRange(User user, LocalDate start, LocalDate end) {
+    if (user == null || start == null || end == null || end.isBefore(start)) {
+      return List.of();
+    }
+    LocalDate coveredFrom = balanceDailyRepository.findFirstDateByUser(user);
+    LocalDateTime firstBooking = transactionRepository.findFirstActiveBookingDateTime(user);
+    if (coveredFrom == null
+        || (firstBooking != null && coveredFrom.isAfter(firstBooking.toLocalDate().minusDays(1)))) {
+      return List.of();
+    }
+
+    List<BalanceDaily> rows = balanceDailyRepository.findByUserAndDateBetweenOrderByDateAsc(user, start, end);
+    Optional<BalanceDaily> carried = rows.isEmpty() || rows.get(0).getDate().isAfter(start)
+        ? balanceDailyRepository.findFirstByUserAndDateLessThanOrderByDateDesc(user, start)
+        : Optional.empty();
+    if (rows.isEmpty() && carried.isEmpty()) {
+      return List.of();
+    }
+
+    long running = carried.map(BalanceDaily::getBalanceCentsEndOfDay)
+        .orElseGet(() -> rows.get(0).getBalanceCentsEndOfDay());
     List<BalancePoint> points = new ArrayList<>();
-    long cumulative = startBalanceCents;
-    LocalDate cursor = startDate;
-    while (!cursor.isAfter(endDate)) {
-      cumulative += sumByDate.getOrDefault(cursor, 0L);
-      points.add(new BalancePoint(cursor, cumulative));
+    int next = 0;
+    LocalDate cursor = start;
+    while (!cursor.isAfter(end)) {
+      if (next < rows.size() && rows.get(next).getDate().equals(cursor)) {
+        running = rows.get(next).getBalanceCentsEndOfDay();
+        next++;
+      }
+      points.add(new BalancePoint(cursor, running));
       cursor = cursor.plusDays(1);
     }
     return points;
   }
 
-  @Transactional
-  public void materializeLast30Days(User user, List<BalancePoint> points) {
-    if (points.isEmpty()) {
-      return;
+  public List<BalancePoint> loadSeries(User user, LocalDate start, LocalDate end) {
+    if (user == null || user.getId() == null) {
+      return loadSeriesUncached(user, start, end);
     }
-    LocalDate start = points.get(0).date();
-    LocalDate end = points.get(points.size() - 1).date();
-    balanceDailyRepository.deleteByUserAndDateBetween(user, start, end);
-    balanceDailyRepository.flush();
 
-    List<BalanceDaily> daily = new ArrayList<>();
-    for (BalancePoint point : points) {
-      BalanceDaily entry = new BalanceDaily();
-      entry.setUser(user);
-      entry.setDate(point.date());
-      entry.setBalanceCentsEndOfDay(point.balanceCents());
-      daily.add(entry);
+    Integer userId = user.getId();
+    long version = accountBalanceService.dataVersion(user);
+    CachedSeries cached = seriesByUserId.get(userId);
+    if (cached != null && cached.version() == version && cached.end().equals(end)) {
+      List<BalancePoint> points = cached.pointsByStart().get(start);
+      if (points != null) {
+        return points;
+      }
     }
-    balanceDailyRepository.saveAll(daily);
+
+    List<BalancePoint> points = List.copyOf(loadSeriesUncached(user, start, end));
+    seriesByUserId.compute(userId, (key, current) -> {
+      if (accountBalanceService.dataVersion(user) != version) {
+        return current;
+      }
+      CachedSeries next = current != null && current.version() == version && current.end().equals(end)
+          ? current
+          : new CachedSeries(version, end, new ConcurrentHashMap<>());
+      next.pointsByStart().put(start, points);
+      return next;
+    });
+    return points;
   }
 
-  public List<BalancePoint> loadRange(User user, LocalDate start, LocalDate end) {
-    return balanceDailyRepository.findByUserAndDateBetween(user, start, end).stream()
-        .sorted(Comparator.comparing(BalanceDaily::getDate))
-        .map(entry -> new BalancePoint(entry.getDate(), entry.getBalanceCentsEndOfDay()))
-        .collect(Collectors.toList());
+  public LocalDate resolveRangeStart(User user, String range, LocalDate end) {
+    String normalized = range == null ? "" : range.toLowerCase(Locale.ROOT);
+    if ("all".equals(normalized)) {
+      LocalDateTime firstBooking = transactionRepository.findFirstActiveBookingDateTime(user);
+      if (firstBooking == null) {
+        return end;
+      }
+      LocalDate historyStart = firstBooking.toLocalDate().minusDays(1);
+      return historyStart.isAfter(end) ? end : historyStart;
+    }
+    int days = switch (normalized) {
+      case "30d" -> 30;
+      case "90d" -> 90;
+      case "365d" -> 365;
+      default -> throw new IllegalArgumentException("Unsupported chart range: " + range);
+    };
+    return end.minusDays(days - 1L);
+  }
+
+  private List<BalancePoint> loadSeriesUncached(User user, LocalDate start, LocalDate end) {
+    List<BalancePoint> points = loadRange(user, start, end);
+    return points.isEmpty() ? accountBalanceService.computeRange(user, start, end) : points;
   }
+
+  private boolean unchangedBefore(User user, LocalDate from) {
+    LocalDate previousDay = from.minusDays(1);
+    Optional<BalanceDaily> stored = balanceDailyRepository.findByUserAndDate(user, previousDay);
+    if (stored.isEmpty()) {
+      return false;
+    }
+    List<BalancePoint> computed = accountBalanceService.computeRange(user, previousDay, previousDay);
+    return !computed.isEmpty() && computed.get(0).balanceCents() == stored.get().getBalanceCentsEndOfDay();
+  }
+
+  private void upsert(User user, List<BalancePoint> points) {
+    Timestamp computedAt = Timestamp.from(Instant.now());
+    List<Object[]> batch = new ArrayList<>(Math.min(points.size(), UPSERT_BATCH_SIZE));
+    for (BalancePoint point : points) {
+      batch.add(new Object[] {user.getId(), Date.valueOf(point.date()), point.balanceCents(), computedAt});
+      if (batch.size() == UPSERT_BATCH_SIZE) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+  }
+
+  private record CachedSeries(long version, LocalDate end, Map<LocalDate, List<BalancePoint>> pointsByStart) {}
 }
@@ -0,0 +1,86 @@
+package de.kruemelnerd.finanzapp.balance;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+final class DailyBalanceIndex {
+  static final DailyBalanceIndex EMPTY = new DailyBalanceIndex(0, new long[0]);
+
+  private final long firstEpochDay;
+  private final long[] cumulativeCents;
+
+  private DailyBalanceIndex(long firstEpochDay, long[] cumulativeCents) {
+    this.firstEpochDay = firstEpochDay;
+    this.cumulativeCents = cumulativeCents;
+  }
+
+  static DailyBalanceIndex of(Map<LocalDate, Long> sumByDate) {
+    return EMPTY.withDeltas(sumByDate);
+  }
+
+  static DailyBalanceIndex ofSortedDays(long[] epochDays, long[] centsByDay) {
+    if (epochDays.length == 0) {
+      return EMPTY;
+    }
+    long first = epochDays[0];
+    long[] cumulative = new long[Math.toIntExact(epochDays[epochDays.length - 1] - first + 1)];
+    int next = 0;
+    long running = 0L;
+    for (int i = 0; i < cumulative.length; i++) {
+      while (next < epochDays.length && epochDays[next] - first == i) {
+        running += centsByDay[next++];
+      }
+      cumulative[i] = running;
+    }
+    return new DailyBalanceIndex(first, cumulative);
+  }
+
+  boolean isEmpty() {
+    return cumulativeCents.length == 0;
+  }
+
+  long sumThrough(LocalDate date) {
+    if (isEmpty()) {
+      return 0L;
+    }
+    long offset = date.toEpochDay() - firstEpochDay;
+    if (offset < 0) {
+      return 0L;
+    }
+    if (offset >= cumulativeCents.length) {
+      return cumulativeCents[cumulativeCents.length - 1];
+    }
+    return cumulativeCents[(int) offset];
+  }
+
+  DailyBalanceIndex withDeltas(Map<LocalDate, Long> deltaByDate) {
+    if (deltaByDate == null || deltaByDate.isEmpty()) {
+      return this;
+    }
+
+    long minDay = Long.MAX_VALUE;
+    long maxDay = Long.MIN_VALUE;
+    for (LocalDate date : deltaByDate.keySet()) {
+      minDay = Math.min(minDay, date.toEpochDay());
+      maxDay = Math.max(maxDay, date.toEpochDay());
+    }
+    long newFirst = isEmpty() ? minDay : Math.min(firstEpochDay, minDay);
+    long newLast = isEmpty() ? maxDay : Math.max(firstEpochDay + cumulativeCents.length - 1, maxDay);
+
+    long[] daily = new long[Math.toIntExact(newLast - newFirst + 1)];
+    int shift = (int) (firstEpochDay - newFirst);
+    long previous = 0L;
+    for (int i = 0; i < cumulativeCents.length; i++) {
+      daily[shift + i] = cumulativeCents[i] - previous;
+      previous = cumulativeCents[i];
+    }
+    deltaByDate.forEach((date, cents) -> daily[(int) (date.toEpochDay() - newFirst)] += cents);
+
+    long running = 0L;
+    for (int i = 0; i < daily.length; i++) {
+      running += daily[i];
+      daily[i] = running;
+    }
+    return new DailyBalanceIndex(newFirst, daily);
+  }
+}
@@ -46,6 +46,7 @@ public class CategoriesController {
     model.addAttribute("parents", pageData.parents());
     model.addAttribute("subcategories", pageData.subcategories());
     model.addAttribute("parentOptions", pageData.parentOptions());
+    model.addAttribute("ruleReapply", ruleManagementService.loadReapplyStatus(userDetails).orElse(null));
     return "categories";
   }
 
@@ -30,13 +30,27 @@ public class CategoryBootstrapService {
   );
 
   private final CategoryRepository categoryRepository;
+  private final CategoryTreeCache categoryTreeCache;
 
-  public CategoryBootstrapService(CategoryRepository categoryRepository) {
+  public CategoryBootstrapService(CategoryRepository categoryRepository, CategoryTreeCache categoryTreeCache) {
     this.categoryRepository = categoryRepository;
+    this.categoryTreeCache = categoryTreeCache;
   }
 
   @Transactional
   public Category ensureDefaultUncategorized(User user) {
+    Optional<Integer> knownId = categoryTreeCache.defaultCategoryId(user);
+    if (knownId.isPresent()) {
+      return categoryRepository.getReferenceById(knownId.get());
+    }
+    Category category = bootstrap(user);
+    if (category.isDefault()) {
+      categoryTreeCache.rememberDefaultCategoryId(user, category.getId());
+    }
+    return category;
+  }
+
+  private Category bootstrap(User user) {
     Optional<Category> existingFallback = categoryRepository.findByUserAndIsDefaultTrueAndDeletedAtIsNull(user);
     if (existingFallback.isPresent()) {
       return existingFallback.get();
@@ -98,6 +112,7 @@ public class CategoryBootstrapService {
     category.setSortOrder(sortOrder);
     category.setDefault(isDefault);
     category.setSystem(isSystem);
+    categoryTreeCache.invalidate(user);
     return categoryRepository.save(category);
   }
 
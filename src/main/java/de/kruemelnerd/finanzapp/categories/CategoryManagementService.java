@@ -1,12 +1,13 @@
 package de.kruemelnerd.finanzapp.categories;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
+import de.kruemelnerd.finanzapp.rules.RuleOverlapService;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,23 +28,26 @@ import org.springframework.transaction.annotation.Transactional;
 public class CategoryManagementService {
   private static final int MAX_NAME_LENGTH = 80;
 
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final CategoryRepository categoryRepository;
   private final RuleRepository ruleRepository;
   private final TransactionRepository transactionRepository;
-  private final CategoryBootstrapService categoryBootstrapService;
+  private final RuleOverlapService ruleOverlapService;
+  private final CategoryTreeCache categoryTreeCache;
 
   public CategoryManagementService(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       CategoryRepository categoryRepository,
       RuleRepository ruleRepository,
       TransactionRepository transactionRepository,
-      CategoryBootstrapService categoryBootstrapService) {
-    this.userRepository = userRepository;
+      RuleOverlapService ruleOverlapService,
+      CategoryTreeCache categoryTreeCache) {
+    this.currentUserResolver = currentUserResolver;
     this.categoryRepository = categoryRepository;
     this.ruleRepository = ruleRepository;
     this.transactionRepository = transactionRepository;
-    this.categoryBootstrapService = categoryBootstrapService;
+    this.ruleOverlapService = ruleOverlapService;
+    this.categoryTreeCache = categoryTreeCache;
   }
 
   @Transactional(readOnly = true)
@@ -68,6 +72,7 @@ public class CategoryManagementService {
       }
       rulesByCategoryId.computeIfAbsent(rule.getCategory().getId(), key -> new ArrayList<>()).add(rule);
     }
+    Map<Integer, List<String>> ruleOverlapsByCategoryId = ruleOverlapService.overlappingCategoryNamesByCategoryId(user.get());
 
     for (int parentIndex = 0; parentIndex < parents.size(); parentIndex++) {
       Category parent = parents.get(parentIndex);
@@ -107,7 +112,8 @@ public class CategoryManagementService {
             childTransactionUsageCount,
             hasRule,
             ruleActive,
-            ruleFragmentsText));
+            ruleFragmentsText,
+            ruleOverlapsByCategoryId.getOrDefault(child.getId(), List.of())));
       }
 
       parentRows.add(new ParentRow(
@@ -146,6 +152,7 @@ public class CategoryManagementService {
     category.setDefault(false);
     category.setSystem(false);
 
+    categoryTreeCache.invalidate(user.get());
     try {
       categoryRepository.save(category);
       return UpdateStatus.SUCCESS;
@@ -179,6 +186,7 @@ public class CategoryManagementService {
     }
 
     category.get().setName(name);
+    categoryTreeCache.invalidate(user.get());
     try {
       categoryRepository.save(category.get());
       return UpdateStatus.SUCCESS;
@@ -218,6 +226,7 @@ public class CategoryManagementService {
     category.setDefault(false);
     category.setSystem(false);
 
+    categoryTreeCache.invalidate(user.get());
     try {
       categoryRepository.save(category);
       return UpdateStatus.SUCCESS;
@@ -270,6 +279,7 @@ public class CategoryManagementService {
     }
     current.setName(name);
 
+    categoryTreeCache.invalidate(user.get());
     try {
       categoryRepository.save(current);
     } catch (DataIntegrityViolationException ignored) {
@@ -323,6 +333,7 @@ public class CategoryManagementService {
       child.setDeletedAt(now);
     }
 
+    categoryTreeCache.invalidate(user.get());
     categoryRepository.save(parent.get());
     categoryRepository.saveAll(children);
     normalizeParentSortOrder(user.get());
@@ -352,6 +363,7 @@ public class CategoryManagementService {
     }
 
     Category parent = subcategory.get().getParent();
+    categoryTreeCache.invalidate(user.get());
     subcategory.get().setDeletedAt(Instant.now());
     categoryRepository.save(subcategory.get());
     normalizeChildSortOrder(user.get(), parent);
@@ -430,6 +442,7 @@ public class CategoryManagementService {
       return UpdateStatus.INVALID_REORDER;
     }
 
+    categoryTreeCache.invalidate(user.get());
     categoryRepository.saveAll(parents);
     categoryRepository.saveAll(children);
     return UpdateStatus.SUCCESS;
@@ -459,6 +472,7 @@ public class CategoryManagementService {
 
     Collections.swap(parents, index, targetIndex);
     normalizeSortOrder(parents);
+    categoryTreeCache.invalidate(user.get());
     categoryRepository.saveAll(parents);
     return UpdateStatus.SUCCESS;
   }
@@ -493,6 +507,7 @@ public class CategoryManagementService {
 
     Collections.swap(siblings, index, targetIndex);
     normalizeSortOrder(siblings);
+    categoryTreeCache.invalidate(user.get());
     categoryRepository.saveAll(siblings);
     return UpdateStatus.SUCCESS;
   }
@@ -545,14 +560,7 @@ public class CategoryManagementService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername())
-        .map(user -> {
-          categoryBootstrapService.ensureDefaultUncategorized(user);
-          return user;
-        });
+    return currentUserResolver.resolve(userDetails);
   }
 
   public enum UpdateStatus {
@@ -593,7 +601,8 @@ public class CategoryManagementService {
       long transactionUsageCount,
       boolean hasRule,
       boolean ruleActive,
-      String ruleFragmentsText) {}
+      String ruleFragmentsText,
+      List<String> ruleOverlaps) {}
 
   public record ParentOption(Integer id, String name) {}
 
@@ -1,12 +1,12 @@
 package de.kruemelnerd.finanzapp.categories;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.IOException;
 import java.time.Instant;
@@ -30,22 +30,22 @@ public class CategoryTransferService {
   private static final String EXPORT_FORMAT = "finanztool-categories-v1";
   private static final int MAX_NAME_LENGTH = 80;
 
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final CategoryRepository categoryRepository;
   private final RuleRepository ruleRepository;
-  private final CategoryBootstrapService categoryBootstrapService;
+  private final CategoryTreeCache categoryTreeCache;
   private final ObjectMapper objectMapper;
 
   public CategoryTransferService(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       CategoryRepository categoryRepository,
       RuleRepository ruleRepository,
-      CategoryBootstrapService categoryBootstrapService,
+      CategoryTreeCache categoryTreeCache,
       ObjectMapper objectMapper) {
-    this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.categoryRepository = categoryRepository;
     this.ruleRepository = ruleRepository;
-    this.categoryBootstrapService = categoryBootstrapService;
+    this.categoryTreeCache = categoryTreeCache;
     this.objectMapper = objectMapper;
   }
 
@@ -141,6 +141,7 @@ public class CategoryTransferService {
 
     int createdParents = 0;
     int createdSubcategories = 0;
+    categoryTreeCache.invalidate(user.get());
 
     for (PreparedParent preparedParent : preparedParents) {
       String parentKey = normalizeKey(preparedParent.name());
@@ -242,14 +243,7 @@ public class CategoryTransferService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername())
-        .map(user -> {
-          categoryBootstrapService.ensureDefaultUncategorized(user);
-          return user;
-        });
+    return currentUserResolver.resolve(userDetails);
   }
 
   private Map<Integer, List<Rule>> loadRulesByCategoryId(User user) {
@@ -0,0 +1,92 @@
+package de.kruemelnerd.finanzapp.categories;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public final class CategoryTree {
+  public static final CategoryTree EMPTY = new CategoryTree(Map.of(), Map.of(), List.of());
+
+  private final Map<Integer, Node> nodesById;
+  private final Map<Integer, Set<Integer>> childIdsByParentId;
+  private final List<Node> subcategories;
+
+  private CategoryTree(
+      Map<Integer, Node> nodesById,
+      Map<Integer, Set<Integer>> childIdsByParentId,
+      List<Node> subcategories) {
+    this.nodesById = nodesById;
+    this.childIdsByParentId = childIdsByParentId;
+    this.subcategories = subcategories;
+  }
+
+  public static CategoryTree of(List<Category> categories) {
+    List<Category> parents = new ArrayList<>();
+    Map<Integer, List<Category>> childrenByParentId = new LinkedHashMap<>();
+    for (Category category : categories) {
+      if (category.getId() == null) {
+        continue;
+      }
+      if (category.getParent() == null) {
+        parents.add(category);
+      } else if (category.getParent().getId() != null) {
+        childrenByParentId.computeIfAbsent(category.getParent().getId(), key -> new ArrayList<>()).add(category);
+      }
+    }
+    if (parents.isEmpty()) {
+      return EMPTY;
+    }
+
+    Map<Integer, Node> nodesById = new LinkedHashMap<>();
+    Map<Integer, Set<Integer>> childIdsByParentId = new LinkedHashMap<>();
+    List<Node> subcategories = new ArrayList<>();
+    for (Category parent : parents) {
+      nodesById.put(parent.getId(), new Node(parent.getId(), null, parent.getName(), parent.getName(), parent.isDefault()));
+      Set<Integer> childIds = new LinkedHashSet<>();
+      for (Category child : childrenByParentId.getOrDefault(parent.getId(), List.of())) {
+        Node node = new Node(
+            child.getId(),
+            parent.getId(),
+            child.getName(),
+            parent.getName() + " -> " + child.getName(),
+            child.isDefault());
+        nodesById.put(child.getId(), node);
+        subcategories.add(node);
+        childIds.add(child.getId());
+      }
+      childIdsByParentId.put(parent.getId(), Collections.unmodifiableSet(childIds));
+    }
+    return new CategoryTree(
+        Collections.unmodifiableMap(nodesById),
+        Collections.unmodifiableMap(childIdsByParentId),
+        List.copyOf(subcategories));
+  }
+
+  public Optional<Node> parent(Integer id) {
+    return node(id).filter(node -> node.parentId() == null);
+  }
+
+  public Optional<Node> subcategory(Integer id) {
+    return node(id).filter(node -> node.parentId() != null);
+  }
+
+  public Set<Integer> childIds(Integer parentId) {
+    return parentId == null ? Set.of() : childIdsByParentId.getOrDefault(parentId, Set.of());
+  }
+
+  public List<Node> subcategories() {
+    return subcategories;
+  }
+
+  private Optional<Node> node(Integer id) {
+    return id == null ? Optional.empty() : Optional.ofNullable(nodesById.get(id));
+  }
+
+  public record Node(Integer id, Integer parentId, String name, String label, boolean defaultCategory) {}
+}
@@ -0,0 +1,150 @@
+package de.kruemelnerd.finanzapp.categories;
+
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class CategoryTreeCache {
+  private final CategoryRepository categoryRepository;
+  private final int maxUsers;
+  private final long idleNanos;
+  private final Map<Integer, AtomicLong> versionByUserId = new ConcurrentHashMap<>();
+  private final Map<Integer, Integer> defaultCategoryIdByUserId = new ConcurrentHashMap<>();
+  private final LinkedHashMap<Integer, CachedTree> entries;
+
+  public CategoryTreeCache(
+      CategoryRepository categoryRepository,
+      @Value("${app.categories.cache.max-users:256}") int maxUsers,
+      @Value("${app.categories.cache.idle-timeout:PT30M}") Duration idleTimeout) {
+    this.categoryRepository = categoryRepository;
+    this.maxUsers = Math.max(1, maxUsers);
+    this.idleNanos = idleTimeout.toNanos();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, CachedTree> eldest) {
+        return size() > CategoryTreeCache.this.maxUsers;
+      }
+    };
+  }
+
+  public CategoryTree tree(User user) {
+    if (user == null || user.getId() == null) {
+      return CategoryTree.EMPTY;
+    }
+
+    Integer userId = user.getId();
+    long version = currentVersion(userId);
+    long now = System.nanoTime();
+    synchronized (entries) {
+      CachedTree cached = entries.get(userId);
+      if (cached != null && cached.version() == version && now - cached.lastAccessNanos() <= idleNanos) {
+        entries.put(userId, cached.touch(now));
+        return cached.tree();
+      }
+    }
+
+    CategoryTree tree = load(user);
+    synchronized (entries) {
+      evictIdle(now);
+      if (currentVersion(userId) == version) {
+        entries.put(userId, new CachedTree(version, tree, now));
+      }
+    }
+    return tree;
+  }
+
+  public void invalidate(User user) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    Integer userId = user.getId();
+    bumpVersion(userId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          bumpVersion(userId);
+        }
+      });
+    }
+  }
+
+  public Optional<Integer> defaultCategoryId(User user) {
+    if (user == null || user.getId() == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(defaultCategoryIdByUserId.get(user.getId()));
+  }
+
+  /**
+   * Remembers the default category id only once the surrounding transaction commits, and only if the
+   * user's categories were not invalidated meanwhile; every {@link #invalidate} drops it again.
+   */
+  public void rememberDefaultCategoryId(User user, Integer categoryId) {
+    if (user == null || user.getId() == null || categoryId == null) {
+      return;
+    }
+    Integer userId = user.getId();
+    long version = currentVersion(userId);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      rememberIfCurrent(userId, categoryId, version);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        rememberIfCurrent(userId, categoryId, version);
+      }
+    });
+  }
+
+  private void rememberIfCurrent(Integer userId, Integer categoryId, long version) {
+    synchronized (entries) {
+      if (currentVersion(userId) == version) {
+        defaultCategoryIdByUserId.put(userId, categoryId);
+      }
+    }
+  }
+
+  private CategoryTree load(User user) {
+    return CategoryTree.of(categoryRepository.findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user));
+  }
+
+  private long currentVersion(Integer userId) {
+    return versionByUserId.computeIfAbsent(userId, key -> new AtomicLong()).get();
+  }
+
+  private void bumpVersion(Integer userId) {
+    versionByUserId.computeIfAbsent(userId, key -> new AtomicLong()).incrementAndGet();
+    synchronized (entries) {
+      entries.remove(userId);
+      defaultCategoryIdByUserId.remove(userId);
+    }
+  }
+
+  private void evictIdle(long now) {
+    Iterator<CachedTree> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().lastAccessNanos() > idleNanos) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private record CachedTree(long version, CategoryTree tree, long lastAccessNanos) {
+    private CachedTree touch(long now) {
+      return new CachedTree(version, tree, now);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package de.kruemelnerd.finanzapp.common.format;
+
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class DisplayFormats {
+  private static final DateTimeFormatter DATE_FORMAT_EN = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter DATE_FORMAT_DE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+  private static final Map<Locale, MoneySymbols> MONEY_SYMBOLS = new ConcurrentHashMap<>();
+
+  private DisplayFormats() {}
+
+  public static DateTimeFormatter date(Locale locale) {
+    if (Locale.GERMAN.getLanguage().equals(locale.getLanguage())) {
+      return DATE_FORMAT_DE;
+    }
+    return DATE_FORMAT_EN;
+  }
+
+  public static String money(long cents, Locale locale) {
+    MoneySymbols symbols = MONEY_SYMBOLS.computeIfAbsent(locale, MoneySymbols::of);
+    String digits = Long.toString(Math.abs(cents));
+    if (cents == Long.MIN_VALUE) {
+      digits = digits.substring(1);
+    }
+    if (digits.length() < 3) {
+      digits = "0".repeat(3 - digits.length()) + digits;
+    }
+
+    int integerLength = digits.length() - 2;
+    StringBuilder result = new StringBuilder(integerLength + integerLength / 3 + 8);
+    if (cents < 0) {
+      result.append(symbols.minus());
+    }
+    for (int i = 0; i < integerLength; i++) {
+      if (i > 0 && (integerLength - i) % 3 == 0) {
+        result.append(symbols.grouping());
+      }
+      result.append(digits.charAt(i));
+    }
+    return result.append(symbols.decimal())
+        .append(digits, integerLength, digits.length())
+        .append(" EUR")
+        .toString();
+  }
+
+  private record MoneySymbols(char grouping, char decimal, char minus) {
+    private static MoneySymbols of(Locale locale) {
+      DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+      return new MoneySymbols(symbols.getGroupingSeparator(), symbols.getDecimalSeparator(), symbols.getMinusSign());
+    }
+  }
+}
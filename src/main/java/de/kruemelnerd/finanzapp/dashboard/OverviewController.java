@@ -1,11 +1,11 @@
 package de.kruemelnerd.finanzapp.dashboard;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.CsvArtifact;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.importcsv.CsvImportFlashService;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import de.kruemelnerd.finanzapp.transactions.TransactionRow;
 import de.kruemelnerd.finanzapp.transactions.TransactionViewService;
 import java.time.ZoneId;
@@ -31,7 +31,7 @@ public class OverviewController {
   private static final DateTimeFormatter IMPORT_FORMATTER_DE =
       DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm").withZone(ZoneId.systemDefault());
 
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final TransactionRepository transactionRepository;
   private final CsvArtifactRepository csvArtifactRepository;
   private final CsvImportFlashService csvImportFlashService;
@@ -39,13 +39,13 @@ public class OverviewController {
   private final MessageSource messageSource;
 
   public OverviewController(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       TransactionRepository transactionRepository,
       CsvArtifactRepository csvArtifactRepository,
       CsvImportFlashService csvImportFlashService,
       TransactionViewService transactionViewService,
       MessageSource messageSource) {
-    this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.transactionRepository = transactionRepository;
     this.csvArtifactRepository = csvArtifactRepository;
     this.csvImportFlashService = csvImportFlashService;
@@ -98,10 +98,7 @@ public class OverviewController {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername());
+    return currentUserResolver.resolve(userDetails);
   }
 
   private String resolveDisplayName(User user) {
@@ -0,0 +1,89 @@
+package de.kruemelnerd.finanzapp.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "rule_overlaps")
+public class RuleOverlap {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Integer id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "user_id", nullable = false)
+  private User user;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "rule_id", nullable = false)
+  private Rule rule;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "overlapping_rule_id", nullable = false)
+  private Rule overlappingRule;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "overlap_type", nullable = false)
+  private RuleOverlapType overlapType;
+
+  @Column(name = "analysed_at", nullable = false)
+  private Instant analysedAt;
+
+  @PrePersist
+  void onCreate() {
+    if (analysedAt == null) {
+      analysedAt = Instant.now();
+    }
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public User getUser() {
+    return user;
+  }
+
+  public void setUser(User user) {
+    this.user = user;
+  }
+
+  public Rule getRule() {
+    return rule;
+  }
+
+  public void setRule(Rule rule) {
+    this.rule = rule;
+  }
+
+  public Rule getOverlappingRule() {
+    return overlappingRule;
+  }
+
+  public void setOverlappingRule(Rule overlappingRule) {
+    this.overlappingRule = overlappingRule;
+  }
+
+  public RuleOverlapType getOverlapType() {
+    return overlapType;
+  }
+
+  public void setOverlapType(RuleOverlapType overlapType) {
+    this.overlapType = overlapType;
+  }
+
+  public Instant getAnalysedAt() {
+    return analysedAt;
+  }
+}
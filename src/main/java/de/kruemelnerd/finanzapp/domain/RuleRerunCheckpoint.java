@@ -0,0 +1,112 @@
+package de.kruemelnerd.finanzapp.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "rule_rerun_checkpoints")
+public class RuleRerunCheckpoint {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Integer id;
+
+  @Column(name = "batch_id", nullable = false)
+  private String batchId;
+
+  @Column(name = "user_id", nullable = false)
+  private Integer userId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false)
+  private RuleRerunStatus status;
+
+  @Column(name = "updated_transactions", nullable = false)
+  private int updatedTransactions;
+
+  @Column(name = "scanned_transactions", nullable = false)
+  private int scannedTransactions;
+
+  @Column(name = "duration_ms", nullable = false)
+  private long durationMs;
+
+  @Column(name = "error_message")
+  private String errorMessage;
+
+  @Column(name = "finished_at", nullable = false)
+  private Instant finishedAt;
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getBatchId() {
+    return batchId;
+  }
+
+  public void setBatchId(String batchId) {
+    this.batchId = batchId;
+  }
+
+  public Integer getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Integer userId) {
+    this.userId = userId;
+  }
+
+  public RuleRerunStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(RuleRerunStatus status) {
+    this.status = status;
+  }
+
+  public int getUpdatedTransactions() {
+    return updatedTransactions;
+  }
+
+  public void setUpdatedTransactions(int updatedTransactions) {
+    this.updatedTransactions = updatedTransactions;
+  }
+
+  public int getScannedTransactions() {
+    return scannedTransactions;
+  }
+
+  public void setScannedTransactions(int scannedTransactions) {
+    this.scannedTransactions = scannedTransactions;
+  }
+
+  public long getDurationMs() {
+    return durationMs;
+  }
+
+  public void setDurationMs(long durationMs) {
+    this.durationMs = durationMs;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
@@ -0,0 +1,6 @@
+package de.kruemelnerd.finanzapp.domain;
+
+public enum RuleRerunStatus {
+  DONE,
+  FAILED
+}
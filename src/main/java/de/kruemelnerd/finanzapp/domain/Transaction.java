@@ -15,6 +15,7 @@ import jakarta.persistence.Table;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
 @Table(name = "transactions")
@@ -60,6 +61,24 @@ public class Transaction {
   @Column(name = "reference_text")
   private String referenceText;
 
+  @Column(name = "match_booking_text")
+  private String matchBookingText;
+
+  @Column(name = "match_partner_name")
+  private String matchPartnerName;
+
+  @Column(name = "match_text_version")
+  private Integer matchTextVersion;
+
+  @Column(name = "display_name")
+  private String displayName;
+
+  @Column(name = "display_purpose")
+  private String displayPurpose;
+
+  @Column(name = "display_text_version")
+  private Integer displayTextVersion;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "category_id")
   private Category category;
@@ -71,9 +90,6 @@ public class Transaction {
   @Column(name = "category_locked", nullable = false)
   private boolean categoryLocked;
 
-  @Column(name = "rule_conflicts")
-  private String ruleConflicts;
-
   @Column(name = "amount_cents", nullable = false)
   private long amountCents;
 
@@ -143,7 +159,9 @@ public class Transaction {
   }
 
   public void setPartnerName(String partnerName) {
+    invalidateMatchTextIfChanged(this.partnerName, partnerName);
     this.partnerName = partnerName;
+    refreshDisplayText();
   }
 
   public String getPurposeText() {
@@ -151,7 +169,9 @@ public class Transaction {
   }
 
   public void setPurposeText(String purposeText) {
+    invalidateMatchTextIfChanged(this.purposeText, purposeText);
     this.purposeText = purposeText;
+    refreshDisplayText();
   }
 
   public String getRawBookingText() {
@@ -159,6 +179,7 @@ public class Transaction {
   }
 
   public void setRawBookingText(String rawBookingText) {
+    invalidateMatchTextIfChanged(this.rawBookingText, rawBookingText);
     this.rawBookingText = rawBookingText;
   }
 
@@ -202,6 +223,42 @@ public class Transaction {
     this.referenceText = referenceText;
   }
 
+  public String getMatchBookingText() {
+    return matchBookingText;
+  }
+
+  public void setMatchBookingText(String matchBookingText) {
+    this.matchBookingText = matchBookingText;
+  }
+
+  public String getMatchPartnerName() {
+    return matchPartnerName;
+  }
+
+  public void setMatchPartnerName(String matchPartnerName) {
+    this.matchPartnerName = matchPartnerName;
+  }
+
+  public Integer getMatchTextVersion() {
+    return matchTextVersion;
+  }
+
+  public void setMatchTextVersion(Integer matchTextVersion) {
+    this.matchTextVersion = matchTextVersion;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public String getDisplayPurpose() {
+    return displayPurpose;
+  }
+
+  public Integer getDisplayTextVersion() {
+    return displayTextVersion;
+  }
+
   public Category getCategory() {
     return category;
   }
@@ -226,14 +283,6 @@ public class Transaction {
     this.categoryLocked = categoryLocked;
   }
 
-  public String getRuleConflicts() {
-    return ruleConflicts;
-  }
-
-  public void setRuleConflicts(String ruleConflicts) {
-    this.ruleConflicts = ruleConflicts;
-  }
-
   public long getAmountCents() {
     return amountCents;
   }
@@ -269,4 +318,16 @@ public class Transaction {
   public Instant getCreatedAt() {
     return createdAt;
   }
+
+  private void invalidateMatchTextIfChanged(String current, String updated) {
+    if (!Objects.equals(current, updated)) {
+      matchTextVersion = null;
+    }
+  }
+
+  private void refreshDisplayText() {
+    displayName = TransactionDisplayText.name(partnerName);
+    displayPurpose = TransactionDisplayText.purpose(purposeText);
+    displayTextVersion = TransactionDisplayText.VERSION;
+  }
 }
@@ -0,0 +1,48 @@
+package de.kruemelnerd.finanzapp.domain;
+
+public final class TransactionDisplayText {
+  /** Stored with the display columns; bump it whenever the sanitizing rules change so rows get refreshed. */
+  public static final int VERSION = 1;
+
+  private static final String BOOKING_TEXT_MARKER = "Buchungstext:";
+  private static final String CARD_MARKER = "Karte Nr.";
+  private static final String REFERENCE_MARKER = "Ref.";
+
+  private TransactionDisplayText() {}
+
+  public static String name(String partnerName) {
+    if (partnerName == null) {
+      return "";
+    }
+    String value = partnerName.trim();
+    value = cutAt(value, BOOKING_TEXT_MARKER);
+    value = cutAt(value, CARD_MARKER);
+    return cutAt(value, REFERENCE_MARKER);
+  }
+
+  public static String purpose(String purposeText) {
+    if (purposeText == null) {
+      return "";
+    }
+    String value = purposeText.trim();
+    int bookingTextIndex = indexOfIgnoreCase(value, BOOKING_TEXT_MARKER);
+    if (bookingTextIndex >= 0) {
+      value = value.substring(bookingTextIndex + BOOKING_TEXT_MARKER.length()).trim();
+    }
+    return cutAt(value, CARD_MARKER);
+  }
+
+  private static String cutAt(String value, String marker) {
+    int index = indexOfIgnoreCase(value, marker);
+    return index < 0 ? value : value.substring(0, index).trim();
+  }
+
+  private static int indexOfIgnoreCase(String source, String marker) {
+    for (int i = 0; i <= source.length() - marker.length(); i++) {
+      if (source.regionMatches(true, i, marker, 0, marker.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
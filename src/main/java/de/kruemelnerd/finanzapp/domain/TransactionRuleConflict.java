@@ -0,0 +1,95 @@
+package de.kruemelnerd.finanzapp.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.io.Serializable;
+import java.util.Objects;
+import org.springframework.data.domain.Persistable;
+
+@Entity
+@Table(name = "transaction_rule_conflicts")
+public class TransactionRuleConflict implements Persistable<TransactionRuleConflict.Key> {
+  @EmbeddedId
+  private Key id;
+
+  @Transient
+  private boolean persisted;
+
+  protected TransactionRuleConflict() {
+  }
+
+  public TransactionRuleConflict(Integer transactionId, Integer ruleId) {
+    this.id = new Key(transactionId, ruleId);
+  }
+
+  @Override
+  public Key getId() {
+    return id;
+  }
+
+  public Integer getTransactionId() {
+    return id.getTransactionId();
+  }
+
+  public Integer getRuleId() {
+    return id.getRuleId();
+  }
+
+  @Override
+  public boolean isNew() {
+    return !persisted;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markPersisted() {
+    persisted = true;
+  }
+
+  @Embeddable
+  public static class Key implements Serializable {
+    @Column(name = "transaction_id", nullable = false)
+    private Integer transactionId;
+
+    @Column(name = "rule_id", nullable = false)
+    private Integer ruleId;
+
+    protected Key() {
+    }
+
+    public Key(Integer transactionId, Integer ruleId) {
+      this.transactionId = transactionId;
+      this.ruleId = ruleId;
+    }
+
+    public Integer getTransactionId() {
+      return transactionId;
+    }
+
+    public Integer getRuleId() {
+      return ruleId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key key)) {
+        return false;
+      }
+      return Objects.equals(transactionId, key.transactionId) && Objects.equals(ruleId, key.ruleId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(transactionId, ruleId);
+    }
+  }
+}
@@ -1,16 +1,15 @@
 package de.kruemelnerd.finanzapp.importcsv;
 
-import de.kruemelnerd.finanzapp.balance.BalancePoint;
+import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
 import de.kruemelnerd.finanzapp.balance.BalanceService;
+import de.kruemelnerd.finanzapp.common.format.DisplayFormats;
 import de.kruemelnerd.finanzapp.domain.CsvArtifact;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.rules.CategoryAssignmentService;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -22,24 +21,25 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CsvImportService {
   public static final long MAX_SIZE_BYTES = 10L * 1024 * 1024;
-  private static final DateTimeFormatter DATE_FORMAT_EN = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-  private static final DateTimeFormatter DATE_FORMAT_DE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
   private final CsvArtifactRepository csvArtifactRepository;
   private final TransactionRepository transactionRepository;
   private final BalanceService balanceService;
   private final CategoryAssignmentService categoryAssignmentService;
+  private final AccountBalanceService accountBalanceService;
   private final CsvParser csvParser = new CsvParser();
 
   public CsvImportService(
       CsvArtifactRepository csvArtifactRepository,
       TransactionRepository transactionRepository,
       BalanceService balanceService,
-      CategoryAssignmentService categoryAssignmentService) {
+      CategoryAssignmentService categoryAssignmentService,
+      AccountBalanceService accountBalanceService) {
     this.csvArtifactRepository = csvArtifactRepository;
     this.transactionRepository = transactionRepository;
     this.balanceService = balanceService;
     this.categoryAssignmentService = categoryAssignmentService;
+    this.accountBalanceService = accountBalanceService;
   }
 
   @Transactional
@@ -89,16 +89,17 @@ public class CsvImportService {
     }
 
     if (!newTransactions.isEmpty()) {
-      categoryAssignmentService.assignForImport(user, newTransactions);
-      transactionRepository.saveAll(newTransactions);
+      categoryAssignmentService.assignAndSaveForImport(user, newTransactions);
     }
-
-    if (parsed.startBalanceCents() != null) {
-      List<Transaction> allActive =
-          transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user);
-      List<BalancePoint> points = balanceService.computeLast30Days(
-          parsed.startBalanceCents(), allActive);
-      balanceService.materializeLast30Days(user, points);
+    accountBalanceService.recordImport(user, newTransactions);
+    if (newTransactions.isEmpty()) {
+      balanceService.materializeIfStale(user);
+    } else {
+      LocalDate affectedFrom = newTransactions.stream()
+          .map(tx -> tx.getBookingDateTime().toLocalDate())
+          .min(LocalDate::compareTo)
+          .orElseThrow();
+      balanceService.materializeFrom(user, affectedFrom);
     }
     int duplicateCount = parsedTransactions.size() - newTransactions.size();
     return new CsvImportResult(newTransactions.size(), duplicateCount, duplicateSamples);
@@ -241,8 +242,8 @@ public class CsvImportService {
   }
 
   private String formatDuplicate(Transaction transaction, Locale locale) {
-    String date = resolveDateFormatter(locale).format(transaction.getBookingDateTime().toLocalDate());
-    String amount = formatAmount(transaction.getAmountCents(), locale);
+    String date = DisplayFormats.date(locale).format(transaction.getBookingDateTime().toLocalDate());
+    String amount = DisplayFormats.money(transaction.getAmountCents(), locale);
     String name = transaction.getPartnerName() == null ? "" : transaction.getPartnerName();
     return date + " - " + name + " - " + amount;
   }
@@ -278,20 +279,6 @@ public class CsvImportService {
     return source.toLowerCase(Locale.ROOT).indexOf(marker.toLowerCase(Locale.ROOT));
   }
 
-  private String formatAmount(long cents, Locale locale) {
-    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
-    DecimalFormat format = new DecimalFormat("#,##0.00", symbols);
-    format.setGroupingUsed(true);
-    return format.format(cents / 100.0d) + " EUR";
-  }
-
-  private DateTimeFormatter resolveDateFormatter(Locale locale) {
-    if (Locale.GERMAN.getLanguage().equals(locale.getLanguage())) {
-      return DATE_FORMAT_DE;
-    }
-    return DATE_FORMAT_EN;
-  }
-
   private Locale resolveLocale(User user) {
     if (user != null && "DE".equalsIgnoreCase(user.getLanguage())) {
       return Locale.GERMANY;
@@ -1,27 +1,30 @@
 package de.kruemelnerd.finanzapp.partials;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
+import de.kruemelnerd.finanzapp.balance.BalanceDownsampler;
 import de.kruemelnerd.finanzapp.balance.BalancePoint;
-import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
 import de.kruemelnerd.finanzapp.balance.BalanceService;
-import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.common.format.DisplayFormats;
 import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.ChartMarkerRow;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import de.kruemelnerd.finanzapp.transactions.TransactionFilterRequest;
 import de.kruemelnerd.finanzapp.transactions.TransactionPage;
 import de.kruemelnerd.finanzapp.transactions.TransactionRow;
+import de.kruemelnerd.finanzapp.transactions.TransactionSlice;
 import de.kruemelnerd.finanzapp.transactions.TransactionViewService;
+import java.sql.Timestamp;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -44,25 +47,24 @@ public class PartialsController {
   private static final int CHART_PAD_RIGHT = 14;
   private static final int CHART_MIN_TOOLTIP_WIDTH = 210;
   private static final int CHART_MAX_TOOLTIP_WIDTH = 360;
+  private static final int CHART_MAX_POINTS = (CHART_WIDTH - CHART_PAD_LEFT - CHART_PAD_RIGHT) / 2;
+  private static final int CHART_MAX_TOOLTIP_LINES = 4;
 
   private final TransactionViewService transactionViewService;
-  private final AccountBalanceService accountBalanceService;
   private final BalanceService balanceService;
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final TransactionRepository transactionRepository;
   private final MessageSource messageSource;
 
   public PartialsController(
       TransactionViewService transactionViewService,
-      AccountBalanceService accountBalanceService,
       BalanceService balanceService,
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       TransactionRepository transactionRepository,
       MessageSource messageSource) {
     this.transactionViewService = transactionViewService;
-    this.accountBalanceService = accountBalanceService;
     this.balanceService = balanceService;
-    this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.transactionRepository = transactionRepository;
     this.messageSource = messageSource;
   }
@@ -93,6 +95,12 @@ public class PartialsController {
       @AuthenticationPrincipal UserDetails userDetails,
       @ModelAttribute TransactionFilterRequest filter,
       Model model) {
+    model.addAttribute("cursorMode", filter.isCursorMode());
+    model.addAttribute("after", filter.getAfter());
+    model.addAttribute("before", filter.getBefore());
+    if (filter.isCursorMode()) {
+      return transactionsTableSlice(userDetails, filter, model);
+    }
     try {
       TransactionPage transactionPage = transactionViewService.loadTransactionsPage(
           userDetails,
@@ -115,6 +123,7 @@ public class PartialsController {
       model.addAttribute("hasNextPage", transactionPage.hasNextPage());
       model.addAttribute("previousPage", transactionPage.previousPage());
       model.addAttribute("nextPage", transactionPage.nextPage());
+      model.addAttribute("nextCursor", transactionPage.nextCursor());
       model.addAttribute("subcategoryId", transactionPage.categoryIdFilter());
       model.addAttribute("parentCategoryId", transactionPage.parentCategoryIdFilter());
       model.addAttribute("categoryFilterLabel", transactionPage.categoryFilterLabel());
@@ -148,6 +157,57 @@ public class PartialsController {
     return "partials/transactions-table";
   }
 
+  private String transactionsTableSlice(UserDetails userDetails, TransactionFilterRequest filter, Model model) {
+    try {
+      TransactionSlice slice = transactionViewService.loadTransactionsSlice(
+          userDetails,
+          filter.getMinAmount(),
+          filter.getMaxAmount(),
+          filter.getNameContains(),
+          filter.getPurposeContains(),
+          filter.isOnlyUncategorized(),
+          filter.getSubcategoryId(),
+          filter.getParentCategoryId(),
+          filter.getAfter(),
+          filter.getBefore(),
+          PAGE_SIZE);
+      model.addAttribute("transactions", slice.rows());
+      model.addAttribute("transactionsEmpty", slice.rows().isEmpty());
+      model.addAttribute("categoryOptions", transactionViewService.loadCategoryOptions(userDetails));
+      model.addAttribute("nextCursor", slice.nextCursor());
+      model.addAttribute("previousCursor", slice.previousCursor());
+      model.addAttribute("hasNextPage", slice.hasNext());
+      model.addAttribute("hasPreviousPage", slice.hasPrevious());
+      model.addAttribute("subcategoryId", slice.categoryIdFilter());
+      model.addAttribute("parentCategoryId", slice.parentCategoryIdFilter());
+      model.addAttribute("categoryFilterLabel", slice.categoryFilterLabel());
+      model.addAttribute("partialError", false);
+    } catch (RuntimeException ex) {
+      model.addAttribute("transactions", List.of());
+      model.addAttribute("transactionsEmpty", true);
+      model.addAttribute("hasNextPage", false);
+      model.addAttribute("hasPreviousPage", false);
+      model.addAttribute("partialError", true);
+      model.addAttribute("partialErrorMessage", msg("partial.error.generic"));
+      model.addAttribute("subcategoryId", filter.getSubcategoryId());
+      model.addAttribute("parentCategoryId", filter.getParentCategoryId());
+      model.addAttribute(
+          "partialRetryPath",
+          filter
+              .applyQueryParams(UriComponentsBuilder.fromPath("/partials/transactions-table"))
+              .build()
+              .toUriString());
+    }
+    model.addAttribute("currentPage", 0);
+    model.addAttribute("totalPages", 1);
+    model.addAttribute("minAmount", filter.getMinAmount());
+    model.addAttribute("maxAmount", filter.getMaxAmount());
+    model.addAttribute("nameContains", filter.getNameContains());
+    model.addAttribute("purposeContains", filter.getPurposeContains());
+    model.addAttribute("onlyUncategorized", filter.isOnlyUncategorized());
+    return "partials/transactions-table";
+  }
+
   @GetMapping("/partials/balance-chart")
   public String balanceChart(
       @AuthenticationPrincipal UserDetails userDetails,
@@ -163,13 +223,9 @@ public class PartialsController {
         return "partials/balance-chart";
       }
 
-      int days = resolveRangeDays(chartRange);
       LocalDate end = LocalDate.now();
-      LocalDate start = end.minusDays(days - 1L);
-      List<BalancePoint> points = accountBalanceService.computeRange(user.get(), start, end);
-      if (points.isEmpty()) {
-        points = balanceService.loadRange(user.get(), start, end);
-      }
+      LocalDate start = balanceService.resolveRangeStart(user.get(), chartRange, end);
+      List<BalancePoint> points = balanceService.loadSeries(user.get(), start, end);
       if (points.isEmpty()) {
         model.addAttribute("chartEmpty", true);
         model.addAttribute("chartError", false);
@@ -187,10 +243,11 @@ public class PartialsController {
           .orElse(0L);
       ChartScale chartScale = resolveChartScale(rawMin, rawMax);
 
-      ChartShape shape = toChartShape(points, chartScale.minCents(), chartScale.maxCents());
+      List<BalancePoint> plotted = BalanceDownsampler.largestTriangleThreeBuckets(points, CHART_MAX_POINTS);
+      ChartShape shape = toChartShape(plotted, start, end, chartScale);
       DateTimeFormatter labelFormatter = resolveChartDateFormatter(locale);
       List<ChartAxisTick> yAxisTicks = toYAxisTicks(chartScale, locale);
-      List<ChartDebitMarker> debitMarkers = toDebitMarkers(user.get(), start, end, points, shape, locale);
+      List<ChartDebitMarker> debitMarkers = toDebitMarkers(user.get(), start, end, plotted, chartScale, locale);
 
       model.addAttribute("chartLinePoints", shape.linePoints());
       model.addAttribute("chartAreaPoints", shape.areaPoints());
@@ -217,10 +274,7 @@ public class PartialsController {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername());
+    return currentUserResolver.resolve(userDetails);
   }
 
   private Locale resolveLocale(User user) {
@@ -230,17 +284,10 @@ public class PartialsController {
     return Locale.ENGLISH;
   }
 
-  private ChartShape toChartShape(List<BalancePoint> points, long min, long max) {
+  private ChartShape toChartShape(List<BalancePoint> points, LocalDate start, LocalDate end, ChartScale chartScale) {
     List<ChartPoint> coordinates = new ArrayList<>();
-
-    for (int i = 0; i < points.size(); i++) {
-      BalancePoint point = points.get(i);
-      double x = points.size() == 1
-          ? CHART_PAD_LEFT
-          : CHART_PAD_LEFT + (chartPlotWidth() * i / (double) (points.size() - 1));
-      int roundedX = round(x);
-      int roundedY = toChartY(point.balanceCents(), min, max);
-      coordinates.add(new ChartPoint(roundedX, roundedY));
+    for (BalancePoint point : points) {
+      coordinates.add(toChartPoint(point, start, end, chartScale));
     }
 
     String linePath = toSmoothLinePath(coordinates);
@@ -248,6 +295,14 @@ public class PartialsController {
     return new ChartShape(linePath, areaPath, coordinates);
   }
 
+  private ChartPoint toChartPoint(BalancePoint point, LocalDate start, LocalDate end, ChartScale chartScale) {
+    long spanDays = end.toEpochDay() - start.toEpochDay();
+    double x = spanDays <= 0
+        ? CHART_PAD_LEFT
+        : CHART_PAD_LEFT + (chartPlotWidth() * (point.date().toEpochDay() - start.toEpochDay()) / (double) spanDays);
+    return new ChartPoint(round(x), toChartY(point.balanceCents(), chartScale.minCents(), chartScale.maxCents()));
+  }
+
   private String toSmoothLinePath(List<ChartPoint> coordinates) {
     if (coordinates.isEmpty()) {
       return "";
@@ -316,49 +371,58 @@ public class PartialsController {
       User user,
       LocalDate start,
       LocalDate end,
-      List<BalancePoint> points,
-      ChartShape shape,
+      List<BalancePoint> plotted,
+      ChartScale chartScale,
       Locale locale) {
-    List<Transaction> debits = transactionRepository.findDebitsInRange(
-        user,
-        start.atStartOfDay(),
-        end.plusDays(1).atStartOfDay());
-    if (debits.isEmpty()) {
+    // Bookings are bucketed to the plotted point budget in SQL, so a long history never loads more
+    // than CHART_MAX_TOOLTIP_LINES rows per bucket; the rest only contribute to the "+N more" count.
+    long startMillis = Timestamp.valueOf(start.atStartOfDay()).getTime();
+    long endMillis = Timestamp.valueOf(end.plusDays(1).atStartOfDay()).getTime();
+    long bucketMillis = Math.max(1L, Math.ceilDiv(endMillis - startMillis, (long) plotted.size()));
+    List<ChartMarkerRow> rows = transactionRepository.findChartMarkerRows(
+        user.getId(), startMillis, endMillis, bucketMillis, CHART_MAX_TOOLTIP_LINES);
+    if (rows.isEmpty()) {
       return List.of();
     }
 
-    Map<LocalDate, List<Transaction>> debitsByDate = debits.stream()
-        .collect(Collectors.groupingBy(
-            tx -> tx.getBookingDateTime().toLocalDate(),
-            LinkedHashMap::new,
-            Collectors.toList()));
-
-    Map<LocalDate, ChartPoint> pointByDate = new LinkedHashMap<>();
-    Map<LocalDate, Long> balanceByDate = new LinkedHashMap<>();
-    for (int i = 0; i < points.size() && i < shape.coordinates().size(); i++) {
-      pointByDate.put(points.get(i).date(), shape.coordinates().get(i));
-      balanceByDate.put(points.get(i).date(), points.get(i).balanceCents());
+    Map<Integer, List<ChartMarkerRow>> rowsByPoint = new TreeMap<>();
+    Map<Integer, Integer> hiddenByPoint = new HashMap<>();
+    for (ChartMarkerRow row : rows) {
+      int pointIndex = resolveMarkerPointIndex(plotted, row.getBookingDateTime().toLocalDate());
+      rowsByPoint.computeIfAbsent(pointIndex, key -> new ArrayList<>()).add(row);
+      if (row.getPosition() == CHART_MAX_TOOLTIP_LINES) {
+        hiddenByPoint.merge(pointIndex, row.getBucketTotal() - row.getPosition(), Integer::sum);
+      }
     }
 
     DateTimeFormatter dayFormatter = resolveChartDayFormatter(locale);
     DateTimeFormatter timeFormatter = resolveChartTimeFormatter(locale);
+    DateTimeFormatter dateTimeFormatter = resolveChartDateTimeFormatter(locale);
     List<ChartDebitMarker> markers = new ArrayList<>();
 
-    for (Map.Entry<LocalDate, List<Transaction>> entry : debitsByDate.entrySet()) {
-      ChartPoint point = resolveMarkerPoint(entry.getKey(), pointByDate);
-      if (point == null) {
-        continue;
-      }
+    for (Map.Entry<Integer, List<ChartMarkerRow>> entry : rowsByPoint.entrySet()) {
+      BalancePoint anchor = plotted.get(entry.getKey());
+      ChartPoint point = toChartPoint(anchor, start, end, chartScale);
+      String balanceLabel = resolveTooltipBalanceLabel(anchor.balanceCents(), locale);
+
+      List<ChartMarkerRow> bookings = entry.getValue();
+      LocalDate firstDay = bookings.get(0).getBookingDateTime().toLocalDate();
+      LocalDate lastDay = bookings.get(bookings.size() - 1).getBookingDateTime().toLocalDate();
+      boolean multiDay = !firstDay.equals(lastDay);
+      DateTimeFormatter lineFormatter = multiDay ? dateTimeFormatter : timeFormatter;
 
-      Long dayBalanceCents = balanceByDate.get(entry.getKey());
-      if (dayBalanceCents == null) {
-        continue;
+      List<String> lines = new ArrayList<>();
+      for (ChartMarkerRow booking : bookings.subList(0, Math.min(bookings.size(), CHART_MAX_TOOLTIP_LINES))) {
+        lines.add(formatDebitTooltipLine(booking, locale, lineFormatter));
       }
-      String balanceLabel = resolveTooltipBalanceLabel(dayBalanceCents, locale);
+      int hidden = hiddenByPoint.getOrDefault(entry.getKey(), 0) + bookings.size() - lines.size();
+      if (hidden > 0) {
+        lines.add(msg("chart.moreBookings", hidden));
+      }
+      String dayLabel = multiDay
+          ? dayFormatter.format(firstDay) + " - " + dayFormatter.format(lastDay)
+          : dayFormatter.format(firstDay);
 
-      List<String> lines = entry.getValue().stream()
-          .map(tx -> formatDebitTooltipLine(tx, locale, timeFormatter))
-          .toList();
       int tooltipWidth = resolveTooltipWidth(lines, balanceLabel);
       int tooltipHeight = 50 + lines.size() * 16;
       int tooltipOffsetX = point.x() > CHART_WIDTH - tooltipWidth - 20 ? -tooltipWidth - 14 : 14;
@@ -373,15 +437,32 @@ public class PartialsController {
           tooltipOffsetY,
           tooltipWidth,
           tooltipHeight,
-          dayFormatter.format(entry.getKey()),
+          dayLabel,
           balanceLabel,
           lines));
     }
     return markers;
   }
 
-  private ChartPoint resolveMarkerPoint(LocalDate bookingDate, Map<LocalDate, ChartPoint> pointByDate) {
-    return pointByDate.get(bookingDate);
+  private int resolveMarkerPointIndex(List<BalancePoint> plotted, LocalDate bookingDate) {
+    int low = 0;
+    int high = plotted.size() - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (plotted.get(mid).date().isBefore(bookingDate)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    if (low > 0) {
+      long toPrevious = bookingDate.toEpochDay() - plotted.get(low - 1).date().toEpochDay();
+      long toNext = Math.abs(plotted.get(low).date().toEpochDay() - bookingDate.toEpochDay());
+      if (toPrevious < toNext) {
+        return low - 1;
+      }
+    }
+    return low;
   }
 
   private int resolveTooltipWidth(List<String> lines, String balanceLabel) {
@@ -392,7 +473,7 @@ public class PartialsController {
   }
 
   private String resolveTooltipBalanceLabel(long balanceCents, Locale locale) {
-    return resolveBalanceLabelPrefix(locale) + ": " + formatAmount(balanceCents, locale);
+    return resolveBalanceLabelPrefix(locale) + ": " + DisplayFormats.money(balanceCents, locale);
   }
 
   private String resolveBalanceLabelPrefix(Locale locale) {
@@ -402,14 +483,14 @@ public class PartialsController {
     return "End-of-day balance";
   }
 
-  private String formatDebitTooltipLine(Transaction tx, Locale locale, DateTimeFormatter timeFormatter) {
-    String partner = tx.getPartnerName();
+  private String formatDebitTooltipLine(ChartMarkerRow booking, Locale locale, DateTimeFormatter formatter) {
+    String partner = booking.getPartnerName();
     if (partner == null || partner.isBlank()) {
-      partner = tx.getPurposeText();
+      partner = booking.getPurposeText();
     }
-    return timeFormatter.format(tx.getBookingDateTime())
+    return formatter.format(booking.getBookingDateTime())
         + "  " + partner
-        + "  " + formatAmount(tx.getAmountCents(), locale);
+        + "  " + DisplayFormats.money(booking.getAmountCents(), locale);
   }
 
   private double chartPlotWidth() {
@@ -441,15 +522,15 @@ public class PartialsController {
     return DateTimeFormatter.ofPattern("hh:mm a", locale);
   }
 
-  private int round(double value) {
-    return (int) Math.round(value);
+  private DateTimeFormatter resolveChartDateTimeFormatter(Locale locale) {
+    if (Locale.GERMAN.getLanguage().equals(locale.getLanguage())) {
+      return DateTimeFormatter.ofPattern("dd.MM HH:mm", locale);
+    }
+    return DateTimeFormatter.ofPattern("MMM dd hh:mm a", locale);
   }
 
-  private int resolveRangeDays(String range) {
-    if ("30d".equalsIgnoreCase(range)) {
-      return 30;
-    }
-    throw new IllegalArgumentException("Unsupported chart range: " + range);
+  private int round(double value) {
+    return (int) Math.round(value);
   }
 
   private String msg(String key, Object... args) {
@@ -535,13 +616,6 @@ public class PartialsController {
     return format.format(cents / 100.0d) + " EUR";
   }
 
-  private String formatAmount(long cents, Locale locale) {
-    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
-    DecimalFormat format = new DecimalFormat("#,##0.00", symbols);
-    format.setGroupingUsed(true);
-    return format.format(cents / 100.0d) + " EUR";
-  }
-
   private record ChartShape(String linePoints, String areaPoints, List<ChartPoint> coordinates) {}
 
   private record ChartPoint(int x, int y) {}
@@ -1,9 +1,9 @@
 package de.kruemelnerd.finanzapp.reports;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -19,13 +19,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class SankeyReportService {
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final TransactionRepository transactionRepository;
 
   public SankeyReportService(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       TransactionRepository transactionRepository) {
-    this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.transactionRepository = transactionRepository;
   }
 
@@ -139,10 +139,7 @@ public class SankeyReportService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername());
+    return currentUserResolver.resolve(userDetails);
   }
 
   public record SankeyReportData(int year, List<SankeyNode> nodes, List<SankeyLink> links) {}
@@ -4,17 +4,35 @@ import de.kruemelnerd.finanzapp.domain.BalanceDaily;
 import de.kruemelnerd.finanzapp.domain.User;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 public interface BalanceDailyRepository extends JpaRepository<BalanceDaily, Integer> {
   List<BalanceDaily> findByUserAndDateBetween(User user, LocalDate start, LocalDate end);
 
+  List<BalanceDaily> findByUserAndDateBetweenOrderByDateAsc(User user, LocalDate start, LocalDate end);
+
+  Optional<BalanceDaily> findByUserAndDate(User user, LocalDate date);
+
+  Optional<BalanceDaily> findFirstByUserAndDateLessThanOrderByDateDesc(User user, LocalDate date);
+
+  @Query("select min(b.date) from BalanceDaily b where b.user = :user")
+  LocalDate findFirstDateByUser(@Param("user") User user);
+
   long countByUser(User user);
 
   @Transactional
   void deleteByUserAndDateBetween(User user, LocalDate start, LocalDate end);
 
+  @Modifying
+  @Transactional
+  @Query("delete from BalanceDaily b where b.user = :user and b.date < :date")
+  int deleteByUserAndDateBefore(@Param("user") User user, @Param("date") LocalDate date);
+
   @Transactional
   void deleteByUser(User user);
 }
@@ -0,0 +1,15 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+public interface BookingSlotSum {
+  long getSlotStartMillis();
+
+  long getAmountCents();
+
+  /** Reads the slot back the way booking_datetime was written: as a local date-time in the JVM zone. */
+  default LocalDate day() {
+    return new Timestamp(getSlotStartMillis()).toLocalDateTime().toLocalDate();
+  }
+}
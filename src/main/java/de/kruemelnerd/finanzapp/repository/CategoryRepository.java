@@ -19,6 +19,8 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
 
   Optional<Category> findByIdAndUserAndDeletedAtIsNull(Integer id, User user);
 
+  List<Category> findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(User user);
+
   List<Category> findByUserAndDeletedAtIsNullAndParentIsNullOrderBySortOrderAscIdAsc(User user);
 
   List<Category> findByUserAndDeletedAtIsNullAndParentIsNotNullOrderBySortOrderAscIdAsc(User user);
@@ -0,0 +1,17 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import java.time.LocalDateTime;
+
+public interface ChartMarkerRow {
+  LocalDateTime getBookingDateTime();
+
+  String getPartnerName();
+
+  String getPurposeText();
+
+  long getAmountCents();
+
+  int getPosition();
+
+  int getBucketTotal();
+}
@@ -0,0 +1,3 @@
+package de.kruemelnerd.finanzapp.repository;
+
+public record RuleConflictName(Integer transactionId, Integer ruleId, String ruleName) {}
@@ -0,0 +1,27 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import de.kruemelnerd.finanzapp.domain.RuleOverlap;
+import de.kruemelnerd.finanzapp.domain.User;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RuleOverlapRepository extends JpaRepository<RuleOverlap, Integer> {
+  @Query("""
+      select o from RuleOverlap o
+      join fetch o.rule r
+      join fetch r.category
+      join fetch o.overlappingRule other
+      join fetch other.category
+      where o.user = :user
+      """)
+  List<RuleOverlap> findWithRulesByUser(@Param("user") User user);
+
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @Query("delete from RuleOverlap o where o.user = :user")
+  int deleteByUser(@Param("user") User user);
+}
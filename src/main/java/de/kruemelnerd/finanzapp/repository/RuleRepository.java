@@ -2,9 +2,15 @@ package de.kruemelnerd.finanzapp.repository;
 
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.User;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RuleRepository extends JpaRepository<Rule, Integer> {
   List<Rule> findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(User user);
@@ -20,4 +26,12 @@ public interface RuleRepository extends JpaRepository<Rule, Integer> {
   long countByUserAndCategoryIdAndDeletedAtIsNull(User user, Integer categoryId);
 
   List<Rule> findByUserAndCategoryIdAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(User user, Integer categoryId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("update Rule r set r.lastRunAt = :lastRunAt, r.lastMatchCount = :matchCount where r.id in :ids")
+  int updateRunStats(
+      @Param("ids") Collection<Integer> ids,
+      @Param("lastRunAt") Instant lastRunAt,
+      @Param("matchCount") int matchCount);
 }
@@ -0,0 +1,18 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import de.kruemelnerd.finanzapp.domain.RuleRerunCheckpoint;
+import de.kruemelnerd.finanzapp.domain.RuleRerunStatus;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RuleRerunCheckpointRepository extends JpaRepository<RuleRerunCheckpoint, Integer> {
+  Optional<RuleRerunCheckpoint> findByBatchIdAndUserId(String batchId, Integer userId);
+
+  @Query("select c.userId from RuleRerunCheckpoint c where c.batchId = :batchId and c.status = :status")
+  List<Integer> findUserIdsByBatchIdAndStatus(
+      @Param("batchId") String batchId,
+      @Param("status") RuleRerunStatus status);
+}
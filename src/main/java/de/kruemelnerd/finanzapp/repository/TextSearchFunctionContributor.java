@@ -0,0 +1,17 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+public class TextSearchFunctionContributor implements FunctionContributor {
+  static final String TRANSACTION_TEXT_MATCH = "transaction_text_match";
+
+  @Override
+  public void contributeFunctions(FunctionContributions functionContributions) {
+    functionContributions.getFunctionRegistry().registerPattern(
+        TRANSACTION_TEXT_MATCH,
+        "(?1 in (select rowid from transactions_fts where transactions_fts match ?2))",
+        functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.INTEGER));
+  }
+}
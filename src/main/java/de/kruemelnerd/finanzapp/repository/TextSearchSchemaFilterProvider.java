@@ -0,0 +1,61 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import java.util.Locale;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+/**
+ * Keeps the FTS5 index ({@code transactions_fts} and its shadow tables) out of Hibernate schema
+ * tooling. Its columns carry no declared type, which schema introspection cannot handle; the index
+ * is owned by the Flyway migrations. Only effective together with
+ * {@code hibernate.hbm2ddl.jdbc_metadata_extraction_strategy=individually}, because grouped
+ * extraction reads every table of the schema before any filter applies.
+ */
+public class TextSearchSchemaFilterProvider implements SchemaFilterProvider {
+  static final String FTS_TABLE_PREFIX = "transactions_fts";
+
+  private static final SchemaFilter FILTER = new SchemaFilter() {
+    @Override
+    public boolean includeNamespace(Namespace namespace) {
+      return true;
+    }
+
+    @Override
+    public boolean includeTable(Table table) {
+      return !table.getName().toLowerCase(Locale.ROOT).startsWith(FTS_TABLE_PREFIX);
+    }
+
+    @Override
+    public boolean includeSequence(Sequence sequence) {
+      return true;
+    }
+  };
+
+  @Override
+  public SchemaFilter getCreateFilter() {
+    return FILTER;
+  }
+
+  @Override
+  public SchemaFilter getDropFilter() {
+    return FILTER;
+  }
+
+  @Override
+  public SchemaFilter getTruncatorFilter() {
+    return FILTER;
+  }
+
+  @Override
+  public SchemaFilter getMigrateFilter() {
+    return FILTER;
+  }
+
+  @Override
+  public SchemaFilter getValidateFilter() {
+    return FILTER;
+  }
+}
@@ -0,0 +1,35 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.domain.Specification;
+
+public record TransactionKeysetSpecification(LocalDateTime bookingDateTime, Integer id, boolean older)
+    implements Specification<Transaction> {
+  public static TransactionKeysetSpecification olderThan(LocalDateTime bookingDateTime, Integer id) {
+    return new TransactionKeysetSpecification(bookingDateTime, id, true);
+  }
+
+  public static TransactionKeysetSpecification newerThan(LocalDateTime bookingDateTime, Integer id) {
+    return new TransactionKeysetSpecification(bookingDateTime, id, false);
+  }
+
+  @Override
+  public Predicate toPredicate(Root<Transaction> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    Path<LocalDateTime> booking = root.get("bookingDateTime");
+    Path<Integer> transactionId = root.get("id");
+    if (older) {
+      return cb.and(
+          cb.lessThanOrEqualTo(booking, bookingDateTime),
+          cb.or(cb.lessThan(booking, bookingDateTime), cb.lessThan(transactionId, id)));
+    }
+    return cb.and(
+        cb.greaterThanOrEqualTo(booking, bookingDateTime),
+        cb.or(cb.greaterThan(booking, bookingDateTime), cb.greaterThan(transactionId, id)));
+  }
+}
@@ -0,0 +1,12 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import java.time.LocalDateTime;
+
+public record TransactionMatchRow(
+    Integer id,
+    LocalDateTime bookingDateTime,
+    String partnerName,
+    String rawBookingText,
+    String purposeText,
+    long amountCents,
+    boolean categoryLocked) {}
@@ -3,20 +3,30 @@ package de.kruemelnerd.finanzapp.repository;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
+public interface TransactionRepository
+    extends JpaRepository<Transaction, Integer>, JpaSpecificationExecutor<Transaction> {
   List<Transaction> findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(User user);
 
   List<Transaction> findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(User user);
 
+  List<Transaction> findByUserAndDeletedAtIsNullOrderByBookingDateTimeDescIdDesc(User user, Limit limit);
+
+  List<Transaction> findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(User user, Integer id, Pageable pageable);
+
   Optional<Transaction> findByIdAndUserAndDeletedAtIsNull(Integer id, User user);
 
   long countByUserAndDeletedAtIsNull(User user);
@@ -27,6 +37,36 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
 
   long countByUser(User user);
 
+  @Query("select min(t.bookingDateTime) from Transaction t where t.user = :user and t.deletedAt is null")
+  LocalDateTime findFirstActiveBookingDateTime(@Param("user") User user);
+
+  /**
+   * Sums active amounts per 15-minute slot of the stored epoch millis. Zone offsets are whole quarter
+   * hours, so a slot never spans local midnight and callers can assign it to a day in the JVM zone
+   * that wrote the timestamps, independent of SQLite's 'localtime' (the OS zone).
+   */
+  @Query(value = """
+      SELECT booking_datetime / 900000 * 900000 AS slotStartMillis,
+             sum(amount_cents) AS amountCents
+        FROM transactions
+       WHERE user_id = :userId AND deleted_at IS NULL
+       GROUP BY booking_datetime / 900000
+       ORDER BY slotStartMillis
+      """, nativeQuery = true)
+  List<BookingSlotSum> sumActiveAmountBySlot(@Param("userId") Integer userId);
+
+  @Query(value = "SELECT revision FROM transaction_revisions WHERE user_id = :userId", nativeQuery = true)
+  Long findRevisionByUserId(@Param("userId") Integer userId);
+
+  @Query("""
+      select new de.kruemelnerd.finanzapp.repository.TransactionMatchRow(
+        t.id, t.bookingDateTime, t.partnerName, t.rawBookingText, t.purposeText, t.amountCents, t.categoryLocked)
+      from Transaction t
+      where t.user = :user and t.deletedAt is null
+      order by t.bookingDateTime desc, t.id desc
+      """)
+  List<TransactionMatchRow> findMatchRowsByUser(@Param("user") User user);
+
   @Modifying
   @Transactional
   @Query("update Transaction t set t.deletedAt = :deletedAt where t.user = :user and t.deletedAt is null")
@@ -40,18 +80,31 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
   @Query("select t from Transaction t where t.user = :user and t.deletedAt is null and t.bookingDateTime <= :cutoff")
   List<Transaction> findActiveUpTo(User user, @Param("cutoff") LocalDateTime cutoff);
 
-  @Query("""
-      select t from Transaction t
-      where t.user = :user
-        and t.deletedAt is null
-        and t.bookingDateTime >= :start
-        and t.bookingDateTime < :end
-      order by t.bookingDateTime asc
-      """)
-  List<Transaction> findDebitsInRange(
-      @Param("user") User user,
-      @Param("start") LocalDateTime start,
-      @Param("end") LocalDateTime end);
+  @Query(value = """
+      SELECT bookingDateTime, partnerName, purposeText, amountCents, position, bucketTotal
+        FROM (SELECT booking_datetime AS bookingDateTime,
+                     partner_name AS partnerName,
+                     purpose_text AS purposeText,
+                     amount_cents AS amountCents,
+                     row_number() OVER bucket_window AS position,
+                     count(*) OVER (PARTITION BY (booking_datetime - :startMillis) / :bucketMillis) AS bucketTotal
+                FROM transactions
+               WHERE user_id = :userId
+                 AND deleted_at IS NULL
+                 AND booking_datetime >= :startMillis
+                 AND booking_datetime < :endMillis
+              WINDOW bucket_window AS (
+                PARTITION BY (booking_datetime - :startMillis) / :bucketMillis
+                ORDER BY booking_datetime, id))
+       WHERE position <= :perBucket
+       ORDER BY bookingDateTime
+      """, nativeQuery = true)
+  List<ChartMarkerRow> findChartMarkerRows(
+      @Param("userId") Integer userId,
+      @Param("startMillis") long startMillis,
+      @Param("endMillis") long endMillis,
+      @Param("bucketMillis") long bucketMillis,
+      @Param("perBucket") int perBucket);
 
   @Modifying
   @Transactional
@@ -60,4 +113,22 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
       @Param("id") Integer id,
       @Param("user") User user,
       @Param("deletedAt") java.time.Instant deletedAt);
+
+  @Query("select t.id from Transaction t where t.id in :ids and t.categoryLocked = true")
+  List<Integer> findLockedIdsIn(@Param("ids") Collection<Integer> ids);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("""
+      update Transaction t
+         set t.category = :category,
+             t.categoryAssignedBy = :assignedBy,
+             t.categoryLocked = false
+       where t.id in :ids
+         and t.categoryLocked = false
+      """)
+  int updateCategoryAssignment(
+      @Param("ids") Collection<Integer> ids,
+      @Param("category") Category category,
+      @Param("assignedBy") CategoryAssignedBy assignedBy);
 }
@@ -0,0 +1,41 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import de.kruemelnerd.finanzapp.domain.TransactionRuleConflict;
+import de.kruemelnerd.finanzapp.domain.User;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TransactionRuleConflictRepository
+    extends JpaRepository<TransactionRuleConflict, TransactionRuleConflict.Key> {
+  List<TransactionRuleConflict> findByIdTransactionIdIn(Collection<Integer> transactionIds);
+
+  @Query("select c.id.transactionId from TransactionRuleConflict c where c.id.ruleId = :ruleId order by c.id.transactionId")
+  List<Integer> findTransactionIdsByRuleId(@Param("ruleId") Integer ruleId);
+
+  @Query("""
+      select new de.kruemelnerd.finanzapp.repository.RuleConflictName(c.id.transactionId, c.id.ruleId, r.name)
+      from TransactionRuleConflict c
+      left join Rule r on r.id = c.id.ruleId and r.deletedAt is null
+      where c.id.transactionId in :transactionIds
+      order by c.id.transactionId, r.sortOrder, c.id.ruleId
+      """)
+  List<RuleConflictName> findConflictNamesByTransactionIds(@Param("transactionIds") Collection<Integer> transactionIds);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("delete from TransactionRuleConflict c where c.id.transactionId in :transactionIds")
+  int deleteByTransactionIds(@Param("transactionIds") Collection<Integer> transactionIds);
+
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @Query("""
+      delete from TransactionRuleConflict c
+      where c.id.transactionId in (select t.id from Transaction t where t.user = :user)
+      """)
+  int deleteByUser(@Param("user") User user);
+}
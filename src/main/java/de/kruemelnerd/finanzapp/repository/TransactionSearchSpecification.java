@@ -0,0 +1,130 @@
+package de.kruemelnerd.finanzapp.repository;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.domain.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+public record TransactionSearchSpecification(
+    User user,
+    Long minAbsoluteCents,
+    Long maxAbsoluteCents,
+    String nameContains,
+    String purposeContains,
+    boolean onlyUncategorized,
+    Collection<Integer> categoryIds) implements Specification<Transaction> {
+  private static final char LIKE_ESCAPE = '\\';
+  private static final int TRIGRAM_LENGTH = 3;
+  private static final List<TextColumn> NAME_COLUMNS = List.of(new TextColumn("partnerName", "partner_name"));
+  private static final List<TextColumn> PURPOSE_COLUMNS = List.of(
+      new TextColumn("purposeText", "purpose_text"),
+      new TextColumn("bookingText", "booking_text"),
+      new TextColumn("referenceText", "reference_text"));
+
+  @Override
+  public Predicate toPredicate(Root<Transaction> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.equal(root.get("user"), user));
+    predicates.add(cb.isNull(root.get("deletedAt")));
+
+    if (minAbsoluteCents != null) {
+      predicates.add(cb.ge(cb.abs(root.<Long>get("amountCents")), minAbsoluteCents));
+    }
+    if (maxAbsoluteCents != null) {
+      predicates.add(cb.le(cb.abs(root.<Long>get("amountCents")), maxAbsoluteCents));
+    }
+    if (nameContains != null) {
+      predicates.add(textContains(root, cb, NAME_COLUMNS, nameContains));
+    }
+    if (purposeContains != null) {
+      predicates.add(textContains(root, cb, PURPOSE_COLUMNS, purposeContains));
+    }
+    if (onlyUncategorized) {
+      Join<Transaction, Category> category = root.join("category", JoinType.LEFT);
+      Join<Category, Category> parent = category.join("parent", JoinType.LEFT);
+      predicates.add(cb.or(
+          cb.equal(root.get("categoryAssignedBy"), CategoryAssignedBy.DEFAULT),
+          cb.and(
+              cb.isTrue(category.get("isDefault")),
+              cb.isNull(category.get("deletedAt")),
+              cb.isNotNull(parent.get("id")),
+              cb.isNull(parent.get("deletedAt")))));
+    }
+    if (categoryIds != null) {
+      predicates.add(categoryIds.isEmpty()
+          ? cb.disjunction()
+          : root.get("category").get("id").in(categoryIds));
+    }
+    return cb.and(predicates.toArray(Predicate[]::new));
+  }
+
+  private static Predicate textContains(
+      Root<Transaction> root,
+      CriteriaBuilder cb,
+      List<TextColumn> columns,
+      String needle) {
+    String trimmed = needle.trim();
+    if (trimmed.codePointCount(0, trimmed.length()) < TRIGRAM_LENGTH) {
+      // SQLite's lower() only folds ASCII, so non-ASCII letters are matched in both cases explicitly.
+      List<String> patterns = caseVariants(trimmed).stream()
+          .map(TransactionSearchSpecification::containsPattern)
+          .toList();
+      return cb.or(columns.stream()
+          .flatMap(column -> patterns.stream()
+              .map(pattern -> cb.like(cb.lower(root.get(column.attribute())), pattern, LIKE_ESCAPE)))
+          .toArray(Predicate[]::new));
+    }
+    // value() binds the match expression as a JDBC parameter instead of inlining user text into SQL.
+    return cb.equal(
+        cb.function(
+            TextSearchFunctionContributor.TRANSACTION_TEXT_MATCH,
+            Integer.class,
+            root.get("id"),
+            ((HibernateCriteriaBuilder) cb).value(ftsMatch(columns, trimmed))),
+        1);
+  }
+
+  private static String ftsMatch(List<TextColumn> columns, String needle) {
+    String ftsColumns = columns.stream().map(TextColumn::column).collect(Collectors.joining(" ", "{", "}"));
+    return ftsColumns + " : \"" + needle.replace("\"", "\"\"") + "\"";
+  }
+
+  private static List<String> caseVariants(String needle) {
+    List<String> variants = List.of("");
+    for (int codePoint : needle.codePoints().toArray()) {
+      int lower = Character.toLowerCase(codePoint);
+      int upper = Character.toUpperCase(codePoint);
+      List<String> next = new ArrayList<>();
+      for (String prefix : variants) {
+        next.add(prefix + Character.toString(lower));
+        if (lower >= 0x80 && upper != lower) {
+          next.add(prefix + Character.toString(upper));
+        }
+      }
+      variants = next;
+    }
+    return variants;
+  }
+
+  private static String containsPattern(String needle) {
+    String escaped = needle
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_");
+    return "%" + escaped + "%";
+  }
+
+  private record TextColumn(String attribute, String column) {}
+}
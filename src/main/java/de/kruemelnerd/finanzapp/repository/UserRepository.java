@@ -1,10 +1,15 @@
 package de.kruemelnerd.finanzapp.repository;
 
 import de.kruemelnerd.finanzapp.domain.User;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
   Optional<User> findByEmail(String email);
   boolean existsByEmail(String email);
+
+  @Query("select u.id from User u order by u.id")
+  List<Integer> findAllIds();
 }
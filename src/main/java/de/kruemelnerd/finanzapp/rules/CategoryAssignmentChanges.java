@@ -0,0 +1,128 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class CategoryAssignmentChanges {
+  private final Map<Change, List<Integer>> transactionIdsByChange = new LinkedHashMap<>();
+  private final Map<Change, Category> categoryByChange = new LinkedHashMap<>();
+  private final Map<Integer, List<Integer>> conflictRuleIdsByTransactionId = new LinkedHashMap<>();
+  private int changedCount;
+
+  boolean collect(
+      Transaction transaction,
+      Category category,
+      CategoryAssignedBy assignedBy,
+      Collection<Integer> currentConflictRuleIds,
+      List<Integer> conflictRuleIds) {
+    boolean assignmentChanged =
+        !sameCategory(transaction.getCategory(), category)
+            || transaction.getCategoryAssignedBy() != assignedBy
+            || transaction.isCategoryLocked();
+    boolean conflictsChanged = !sameConflicts(currentConflictRuleIds, conflictRuleIds);
+    if (!assignmentChanged && !conflictsChanged) {
+      return false;
+    }
+
+    changedCount++;
+    if (transaction.getId() == null) {
+      return true;
+    }
+    if (assignmentChanged) {
+      Change change = new Change(category == null ? null : category.getId(), assignedBy);
+      categoryByChange.putIfAbsent(change, category);
+      transactionIdsByChange.computeIfAbsent(change, key -> new ArrayList<>()).add(transaction.getId());
+    }
+    if (conflictsChanged) {
+      conflictRuleIdsByTransactionId.put(
+          transaction.getId(),
+          conflictRuleIds == null ? List.of() : List.copyOf(conflictRuleIds));
+    }
+    return true;
+  }
+
+  static boolean sameCategory(Category current, Category target) {
+    if (current == target) {
+      return true;
+    }
+    if (current == null || target == null || current.getId() == null) {
+      return false;
+    }
+    return current.getId().equals(target.getId());
+  }
+
+  static boolean sameConflicts(Collection<Integer> current, Collection<Integer> target) {
+    boolean currentEmpty = current == null || current.isEmpty();
+    boolean targetEmpty = target == null || target.isEmpty();
+    if (currentEmpty || targetEmpty) {
+      return currentEmpty == targetEmpty;
+    }
+    return new HashSet<>(current).equals(new HashSet<>(target));
+  }
+
+  List<Integer> transactionIds() {
+    Set<Integer> ids = new LinkedHashSet<>(conflictRuleIdsByTransactionId.keySet());
+    transactionIdsByChange.values().forEach(ids::addAll);
+    return List.copyOf(ids);
+  }
+
+  /** Drops collected changes for transactions that must no longer be touched, e.g. locked after planning. */
+  void discard(Set<Integer> transactionIds) {
+    if (transactionIds.isEmpty()) {
+      return;
+    }
+    Set<Integer> discarded = new HashSet<>();
+    Iterator<Map.Entry<Change, List<Integer>>> changes = transactionIdsByChange.entrySet().iterator();
+    while (changes.hasNext()) {
+      Map.Entry<Change, List<Integer>> entry = changes.next();
+      for (Integer id : entry.getValue()) {
+        if (transactionIds.contains(id)) {
+          discarded.add(id);
+        }
+      }
+      entry.getValue().removeAll(transactionIds);
+      if (entry.getValue().isEmpty()) {
+        categoryByChange.remove(entry.getKey());
+        changes.remove();
+      }
+    }
+    for (Integer transactionId : transactionIds) {
+      if (conflictRuleIdsByTransactionId.remove(transactionId) != null) {
+        discarded.add(transactionId);
+      }
+    }
+    changedCount -= discarded.size();
+  }
+
+  int changedCount() {
+    return changedCount;
+  }
+
+  boolean isEmpty() {
+    return transactionIdsByChange.isEmpty() && conflictRuleIdsByTransactionId.isEmpty();
+  }
+
+  Map<Change, List<Integer>> transactionIdsByChange() {
+    return transactionIdsByChange;
+  }
+
+  Map<Integer, List<Integer>> conflictRuleIdsByTransactionId() {
+    return conflictRuleIdsByTransactionId;
+  }
+
+  Category category(Change change) {
+    return categoryByChange.get(change);
+  }
+
+  record Change(Integer categoryId, CategoryAssignedBy assignedBy) {}
+}
@@ -5,84 +5,146 @@ import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.domain.TransactionRuleConflict;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
+import jakarta.persistence.EntityManager;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CategoryAssignmentService {
+  private static final int UPDATE_BATCH_SIZE = 500;
+
   private final CategoryBootstrapService categoryBootstrapService;
   private final RuleRepository ruleRepository;
   private final TransactionRepository transactionRepository;
+  private final TransactionRuleConflictRepository transactionRuleConflictRepository;
   private final RuleEngine ruleEngine;
+  private final RuleSetCache ruleSetCache;
+  private final RuleSqlPushdown ruleSqlPushdown;
+  private final EntityManager entityManager;
+  private final int chunkSize;
 
   public CategoryAssignmentService(
       CategoryBootstrapService categoryBootstrapService,
       RuleRepository ruleRepository,
       TransactionRepository transactionRepository,
-      RuleEngine ruleEngine) {
+      TransactionRuleConflictRepository transactionRuleConflictRepository,
+      RuleEngine ruleEngine,
+      RuleSetCache ruleSetCache,
+      RuleSqlPushdown ruleSqlPushdown,
+      EntityManager entityManager,
+      @Value("${app.rules.run.chunk-size:1000}") int chunkSize) {
     this.categoryBootstrapService = categoryBootstrapService;
     this.ruleRepository = ruleRepository;
     this.transactionRepository = transactionRepository;
+    this.transactionRuleConflictRepository = transactionRuleConflictRepository;
     this.ruleEngine = ruleEngine;
+    this.ruleSetCache = ruleSetCache;
+    this.ruleSqlPushdown = ruleSqlPushdown;
+    this.entityManager = entityManager;
+    this.chunkSize = Math.max(1, chunkSize);
   }
 
-  public void assignForImport(User user, List<Transaction> transactions) {
+  @Transactional
+  public List<Transaction> assignAndSaveForImport(User user, List<Transaction> transactions) {
     if (transactions == null || transactions.isEmpty()) {
-      return;
+      return List.of();
     }
 
     Category defaultCategory = categoryBootstrapService.ensureDefaultUncategorized(user);
-    List<Rule> activeRules = ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
-    for (Transaction transaction : transactions) {
-      applyRules(transaction, activeRules, defaultCategory);
+    RuleEngine.RuleEvaluationBatch batch = ruleEngine.evaluateAll(transactions, ruleSetCache.activeRules(user));
+    for (int i = 0; i < transactions.size(); i++) {
+      Transaction transaction = transactions.get(i);
+      RuleEngine.MatchText matchText = ruleEngine.normalize(transaction);
+      transaction.setMatchBookingText(matchText.bookingText());
+      transaction.setMatchPartnerName(matchText.partnerName());
+      transaction.setMatchTextVersion(RuleTextNormalizer.VERSION);
+      applyEvaluation(transaction, batch.evaluations().get(i), defaultCategory);
+    }
+
+    List<Transaction> saved = transactionRepository.saveAll(transactions);
+    List<TransactionRuleConflict> conflicts = new ArrayList<>();
+    for (int i = 0; i < saved.size(); i++) {
+      Transaction transaction = saved.get(i);
+      if (transaction.isCategoryLocked() || transaction.getId() == null) {
+        continue;
+      }
+      for (Integer ruleId : batch.evaluations().get(i).conflictRuleIds()) {
+        conflicts.add(new TransactionRuleConflict(transaction.getId(), ruleId));
+      }
+    }
+    if (!conflicts.isEmpty()) {
+      transactionRuleConflictRepository.saveAll(conflicts);
     }
+    return saved;
   }
 
   @Transactional
   public RuleRunStats runAllRules(User user) {
+    return runAllRules(user, RuleRunProgress.NONE);
+  }
+
+  @Transactional
+  public RuleRunStats runAllRules(User user, RuleRunProgress progress) {
     Category defaultCategory = categoryBootstrapService.ensureDefaultUncategorized(user);
-    List<Rule> activeRules = ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
-    List<Transaction> transactions = transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(user);
+    PreparedRuleSet activeRules = ruleSetCache.activeRules(user);
     Map<Integer, Integer> matchCountByRuleId = new HashMap<>();
+    int[] changed = new int[1];
 
-    int updated = 0;
-    for (Transaction transaction : transactions) {
-      RuleEngine.RuleEvaluation evaluation = ruleEngine.evaluate(transaction, activeRules);
-      if (evaluation.winningRule() != null && evaluation.winningRule().getId() != null) {
-        Integer ruleId = evaluation.winningRule().getId();
-        matchCountByRuleId.put(ruleId, matchCountByRuleId.getOrDefault(ruleId, 0) + 1);
-      }
-      if (applyRules(transaction, activeRules, defaultCategory)) {
-        updated++;
-      }
-    }
+    int scanned = forEachChunk(user, progress, transactions -> {
+      CategoryAssignmentChanges changes = new CategoryAssignmentChanges();
+      collectAllRules(transactions, activeRules, defaultCategory, matchCountByRuleId, changes);
+      persistChanges(changes);
+      changed[0] += changes.changedCount();
+    });
 
-    if (updated > 0) {
-      transactionRepository.saveAll(transactions);
-    }
+    updateRunStats(activeRules, matchCountByRuleId);
+    return new RuleRunStats(changed[0], scanned);
+  }
 
-    Instant now = Instant.now();
-    for (Rule rule : activeRules) {
-      rule.setLastRunAt(now);
-      Integer ruleId = rule.getId();
-      rule.setLastMatchCount(ruleId == null ? 0 : matchCountByRuleId.getOrDefault(ruleId, 0));
-    }
-    ruleRepository.saveAll(activeRules);
+  @Transactional(readOnly = true)
+  public RuleRunPlan planAllRules(User user, Category defaultCategory, RuleRunProgress progress) {
+    PreparedRuleSet activeRules = ruleSetCache.activeRules(user);
+    Map<Integer, Integer> matchCountByRuleId = new HashMap<>();
+    CategoryAssignmentChanges changes = new CategoryAssignmentChanges();
 
-    return new RuleRunStats(updated, transactions.size());
+    int scanned = forEachChunk(user, progress, transactions ->
+        collectAllRules(transactions, activeRules, defaultCategory, matchCountByRuleId, changes));
+    return new RuleRunPlan(activeRules, matchCountByRuleId, changes, scanned);
+  }
+
+  @Transactional
+  public RuleRunStats applyPlan(RuleRunPlan plan) {
+    plan.changes.discard(lockedTransactionIds(plan.changes.transactionIds()));
+    persistChanges(plan.changes);
+    updateRunStats(plan.activeRules, plan.matchCountByRuleId);
+    return new RuleRunStats(plan.changes.changedCount(), plan.scannedTransactions);
   }
 
   @Transactional
   public RuleRunStats runCategoryRules(User user, Integer categoryId) {
+    return runCategoryRules(user, categoryId, RuleRunProgress.NONE);
+  }
+
+  @Transactional
+  public RuleRunStats runCategoryRules(User user, Integer categoryId, RuleRunProgress progress) {
     List<Rule> categoryRules =
         ruleRepository.findByUserAndCategoryIdAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user, categoryId);
     if (categoryRules.isEmpty()) {
@@ -93,125 +155,248 @@ public class CategoryAssignmentService {
         .filter(Rule::isActive)
         .toList();
 
-    List<Transaction> transactions = transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(user);
-    int updated = 0;
-    int matches = 0;
+    return runRules(user, ruleEngine.prepare(activeRules), ruleIds(categoryRules), progress);
+  }
 
-    for (Transaction transaction : transactions) {
-      if (transaction.isCategoryLocked()) {
-        continue;
-      }
+  @Transactional
+  public RuleRunStats runSingleRule(User user, Integer ruleId) {
+    Rule rule = ruleRepository.findByIdAndUserAndDeletedAtIsNull(ruleId, user)
+        .orElseThrow(() -> new IllegalArgumentException("Rule not found"));
 
-      RuleEngine.RuleEvaluation evaluation = ruleEngine.evaluate(transaction, activeRules);
-      if (evaluation.winningRule() == null) {
-        continue;
-      }
+    return runRules(user, ruleEngine.prepare(List.of(rule)), ruleIds(List.of(rule)), RuleRunProgress.NONE);
+  }
 
-      matches++;
-      if (applyWinningRule(transaction, evaluation.winningRule(), null)) {
-        updated++;
-      }
+  private RuleRunStats runRules(User user, PreparedRuleSet ruleSet, List<Integer> statRuleIds, RuleRunProgress progress) {
+    if (user.getId() != null && ruleSqlPushdown.supports(ruleSet)) {
+      entityManager.flush();
+      RuleSqlPushdown.PushdownResult result = ruleSqlPushdown.run(user, ruleSet);
+      entityManager.clear();
+      progress.onChunk(result.scannedTransactions(), result.scannedTransactions());
+      updateRunStats(statRuleIds, Instant.now(), result.matchedTransactions());
+      return new RuleRunStats(result.changedTransactions(), result.scannedTransactions());
     }
 
-    if (updated > 0) {
-      transactionRepository.saveAll(transactions);
-    }
+    int[] matches = new int[1];
+    int[] changed = new int[1];
+
+    int scanned = forEachChunk(user, progress, transactions -> {
+      RuleEngine.RuleEvaluationBatch batch = ruleEngine.evaluateAll(transactions, ruleSet);
+      Map<Integer, List<Integer>> currentConflicts = loadConflictRuleIds(transactions);
+      CategoryAssignmentChanges changes = new CategoryAssignmentChanges();
+
+      for (int i = 0; i < transactions.size(); i++) {
+        Transaction transaction = transactions.get(i);
+        if (transaction.isCategoryLocked()) {
+          continue;
+        }
+
+        RuleEngine.RuleEvaluation evaluation = batch.evaluations().get(i);
+        if (evaluation.winningRule() == null) {
+          continue;
+        }
+
+        matches[0]++;
+        changes.collect(
+            transaction,
+            evaluation.winningRule().getCategory(),
+            CategoryAssignedBy.RULE,
+            currentConflicts.getOrDefault(transaction.getId(), List.of()),
+            List.of());
+      }
 
-    Instant now = Instant.now();
-    for (Rule rule : categoryRules) {
-      rule.setLastRunAt(now);
-      rule.setLastMatchCount(matches);
-    }
-    ruleRepository.saveAll(categoryRules);
+      persistChanges(changes);
+      changed[0] += changes.changedCount();
+    });
 
-    return new RuleRunStats(updated, transactions.size());
+    updateRunStats(statRuleIds, Instant.now(), matches[0]);
+    return new RuleRunStats(changed[0], scanned);
   }
 
-  @Transactional
-  public RuleRunStats runSingleRule(User user, Integer ruleId) {
-    Rule rule = ruleRepository.findByIdAndUserAndDeletedAtIsNull(ruleId, user)
-        .orElseThrow(() -> new IllegalArgumentException("Rule not found"));
+  private int forEachChunk(User user, RuleRunProgress progress, Consumer<List<Transaction>> chunkHandler) {
+    long total = transactionRepository.countByUserAndDeletedAtIsNull(user);
+    Pageable chunk = PageRequest.of(0, chunkSize);
+    int processed = 0;
+    int lastId = 0;
+
+    while (true) {
+      List<Transaction> transactions =
+          transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(user, lastId, chunk);
+      if (transactions.isEmpty()) {
+        break;
+      }
 
-    List<Transaction> transactions = transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(user);
-    int updated = 0;
-    int matches = 0;
+      lastId = transactions.get(transactions.size() - 1).getId();
+      chunkHandler.accept(transactions);
+      processed += transactions.size();
+      entityManager.flush();
+      entityManager.clear();
+      progress.onChunk(processed, total);
 
-    for (Transaction transaction : transactions) {
-      if (transaction.isCategoryLocked()) {
-        continue;
+      if (transactions.size() < chunkSize) {
+        break;
       }
+    }
+    return processed;
+  }
 
-      RuleEngine.RuleEvaluation evaluation = ruleEngine.evaluate(transaction, List.of(rule));
-      if (evaluation.winningRule() == null) {
+  private void collectAllRules(
+      List<Transaction> transactions,
+      PreparedRuleSet activeRules,
+      Category defaultCategory,
+      Map<Integer, Integer> matchCountByRuleId,
+      CategoryAssignmentChanges changes) {
+    RuleEngine.RuleEvaluationBatch batch = ruleEngine.evaluateAll(transactions, activeRules);
+    batch.matchCountByRuleId().forEach((ruleId, count) -> matchCountByRuleId.merge(ruleId, count, Integer::sum));
+    Map<Integer, List<Integer>> currentConflicts = loadConflictRuleIds(transactions);
+
+    for (int i = 0; i < transactions.size(); i++) {
+      Transaction transaction = transactions.get(i);
+      RuleEngine.RuleEvaluation evaluation = batch.evaluations().get(i);
+      Rule winningRule = evaluation.winningRule();
+      if (transaction.isCategoryLocked()) {
         continue;
       }
 
-      matches++;
-      if (applyWinningRule(transaction, rule, null)) {
-        updated++;
+      List<Integer> current = currentConflicts.getOrDefault(transaction.getId(), List.of());
+      if (winningRule == null) {
+        changes.collect(transaction, defaultCategory, CategoryAssignedBy.DEFAULT, current, List.of());
+      } else {
+        changes.collect(
+            transaction,
+            winningRule.getCategory(),
+            CategoryAssignedBy.RULE,
+            current,
+            evaluation.conflictRuleIds());
       }
     }
+  }
 
-    if (updated > 0) {
-      transactionRepository.saveAll(transactions);
+  private Map<Integer, List<Integer>> loadConflictRuleIds(List<Transaction> transactions) {
+    List<Integer> transactionIds = transactions.stream()
+        .map(Transaction::getId)
+        .filter(Objects::nonNull)
+        .toList();
+    if (transactionIds.isEmpty()) {
+      return Map.of();
     }
 
-    rule.setLastRunAt(Instant.now());
-    rule.setLastMatchCount(matches);
-    ruleRepository.save(rule);
-    return new RuleRunStats(updated, transactions.size());
+    Map<Integer, List<Integer>> ruleIdsByTransactionId = new HashMap<>();
+    for (TransactionRuleConflict conflict : transactionRuleConflictRepository.findByIdTransactionIdIn(transactionIds)) {
+      ruleIdsByTransactionId.computeIfAbsent(conflict.getTransactionId(), key -> new ArrayList<>()).add(conflict.getRuleId());
+    }
+    return ruleIdsByTransactionId;
   }
 
-  boolean applyRules(Transaction transaction, List<Rule> orderedRules, Category defaultCategory) {
-    if (transaction.isCategoryLocked()) {
-      return false;
+  private void persistChanges(CategoryAssignmentChanges changes) {
+    if (changes.isEmpty()) {
+      return;
     }
+    changes.transactionIdsByChange().forEach((change, transactionIds) -> {
+      for (List<Integer> batch : batches(transactionIds)) {
+        transactionRepository.updateCategoryAssignment(batch, changes.category(change), change.assignedBy());
+      }
+    });
 
-    RuleEngine.RuleEvaluation evaluation = ruleEngine.evaluate(transaction, orderedRules);
-    if (evaluation.winningRule() == null) {
-      return applyDefaultCategory(transaction, defaultCategory);
+    Map<Integer, List<Integer>> conflictRuleIdsByTransactionId = changes.conflictRuleIdsByTransactionId();
+    if (conflictRuleIdsByTransactionId.isEmpty()) {
+      return;
+    }
+    for (List<Integer> batch : batches(List.copyOf(conflictRuleIdsByTransactionId.keySet()))) {
+      transactionRuleConflictRepository.deleteByTransactionIds(batch);
     }
+    List<TransactionRuleConflict> conflicts = new ArrayList<>();
+    conflictRuleIdsByTransactionId.forEach((transactionId, ruleIds) -> {
+      for (Integer ruleId : ruleIds) {
+        conflicts.add(new TransactionRuleConflict(transactionId, ruleId));
+      }
+    });
+    if (!conflicts.isEmpty()) {
+      transactionRuleConflictRepository.saveAll(conflicts);
+    }
+  }
 
-    String conflicts = serializeConflictIds(evaluation.conflictRuleIds());
-    return applyWinningRule(transaction, evaluation.winningRule(), conflicts);
+  private Set<Integer> lockedTransactionIds(List<Integer> transactionIds) {
+    Set<Integer> locked = new HashSet<>();
+    for (List<Integer> batch : batches(transactionIds)) {
+      locked.addAll(transactionRepository.findLockedIdsIn(batch));
+    }
+    return locked;
   }
 
-  private boolean applyWinningRule(Transaction transaction, Rule winningRule, String conflicts) {
-    boolean changed =
-        !Objects.equals(transaction.getCategory(), winningRule.getCategory())
-            || transaction.getCategoryAssignedBy() != CategoryAssignedBy.RULE
-            || transaction.isCategoryLocked()
-            || !Objects.equals(transaction.getRuleConflicts(), conflicts);
+  private List<List<Integer>> batches(List<Integer> ids) {
+    List<List<Integer>> batches = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += UPDATE_BATCH_SIZE) {
+      batches.add(ids.subList(from, Math.min(from + UPDATE_BATCH_SIZE, ids.size())));
+    }
+    return batches;
+  }
 
-    transaction.setCategory(winningRule.getCategory());
-    transaction.setCategoryAssignedBy(CategoryAssignedBy.RULE);
-    transaction.setCategoryLocked(false);
-    transaction.setRuleConflicts(conflicts);
-    return changed;
+  private void updateRunStats(PreparedRuleSet activeRules, Map<Integer, Integer> matchCountByRuleId) {
+    Map<Integer, List<Integer>> ruleIdsByMatchCount = new LinkedHashMap<>();
+    for (PreparedRuleSet.PreparedRule rule : activeRules.rules()) {
+      if (rule.ruleId() == null) {
+        continue;
+      }
+      int matchCount = matchCountByRuleId.getOrDefault(rule.ruleId(), 0);
+      ruleIdsByMatchCount.computeIfAbsent(matchCount, key -> new ArrayList<>()).add(rule.ruleId());
+    }
+    Instant now = Instant.now();
+    ruleIdsByMatchCount.forEach((matchCount, ruleIds) -> updateRunStats(ruleIds, now, matchCount));
   }
 
-  private boolean applyDefaultCategory(Transaction transaction, Category defaultCategory) {
-    boolean changed =
-        !Objects.equals(transaction.getCategory(), defaultCategory)
-            || transaction.getCategoryAssignedBy() != CategoryAssignedBy.DEFAULT
-            || transaction.isCategoryLocked()
-            || transaction.getRuleConflicts() != null;
+  private void updateRunStats(List<Integer> ruleIds, Instant lastRunAt, int matchCount) {
+    if (ruleIds.isEmpty()) {
+      return;
+    }
+    ruleRepository.updateRunStats(ruleIds, lastRunAt, matchCount);
+  }
 
-    transaction.setCategory(defaultCategory);
-    transaction.setCategoryAssignedBy(CategoryAssignedBy.DEFAULT);
-    transaction.setCategoryLocked(false);
-    transaction.setRuleConflicts(null);
-    return changed;
+  private List<Integer> ruleIds(List<Rule> rules) {
+    return rules.stream()
+        .map(Rule::getId)
+        .filter(Objects::nonNull)
+        .toList();
   }
 
-  private String serializeConflictIds(List<Integer> conflictRuleIds) {
-    if (conflictRuleIds == null || conflictRuleIds.isEmpty()) {
-      return null;
+  private void applyEvaluation(
+      Transaction transaction,
+      RuleEngine.RuleEvaluation evaluation,
+      Category defaultCategory) {
+    if (transaction.isCategoryLocked()) {
+      return;
     }
-    return conflictRuleIds.stream()
-        .map(String::valueOf)
-        .collect(Collectors.joining(",", "[", "]"));
+
+    Rule winningRule = evaluation.winningRule();
+    transaction.setCategory(winningRule == null ? defaultCategory : winningRule.getCategory());
+    transaction.setCategoryAssignedBy(winningRule == null ? CategoryAssignedBy.DEFAULT : CategoryAssignedBy.RULE);
+    transaction.setCategoryLocked(false);
   }
 
   public record RuleRunStats(int updatedTransactions, int scannedTransactions) {}
+
+  public static final class RuleRunPlan {
+    private final PreparedRuleSet activeRules;
+    private final Map<Integer, Integer> matchCountByRuleId;
+    private final CategoryAssignmentChanges changes;
+    private final int scannedTransactions;
+
+    private RuleRunPlan(
+        PreparedRuleSet activeRules,
+        Map<Integer, Integer> matchCountByRuleId,
+        CategoryAssignmentChanges changes,
+        int scannedTransactions) {
+      this.activeRules = activeRules;
+      this.matchCountByRuleId = matchCountByRuleId;
+      this.changes = changes;
+      this.scannedTransactions = scannedTransactions;
+    }
+
+    public int changedTransactions() {
+      return changes.changedCount();
+    }
+
+    public int scannedTransactions() {
+      return scannedTransactions;
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import java.util.BitSet;
+import java.util.List;
+
+public record PreparedRuleSet(List<PreparedRule> rules, List<BitSet> impliedRules, RuleTokenIndex tokenIndex) {
+  public PreparedRuleSet {
+    rules = List.copyOf(rules);
+    impliedRules = List.copyOf(impliedRules);
+  }
+
+  public PreparedRuleSet(List<PreparedRule> rules) {
+    this(rules, RuleOverlaps.impliedRules(rules), RuleTokenIndex.build(rules));
+  }
+
+  public static PreparedRuleSet empty() {
+    return new PreparedRuleSet(List.of());
+  }
+
+  public boolean isEmpty() {
+    return rules.isEmpty();
+  }
+
+  public int size() {
+    return rules.size();
+  }
+
+  boolean implies(PreparedRule rule, PreparedRule other) {
+    return rule.index() < impliedRules.size() && impliedRules.get(rule.index()).get(other.index());
+  }
+
+  public record PreparedRule(
+      int index,
+      Rule rule,
+      Integer ruleId,
+      Category category,
+      Integer categoryId,
+      RuleMatchField matchField,
+      String needle,
+      RuleMatchMode matchMode) {
+    boolean sameCategory(PreparedRule other) {
+      if (other == null || category == null || other.category == null) {
+        return false;
+      }
+      if (category == other.category) {
+        return true;
+      }
+      return categoryId != null && categoryId.equals(other.categoryId);
+    }
+  }
+}
@@ -4,28 +4,42 @@ import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class RuleEngine {
+  static final int PARALLEL_THRESHOLD = 2_048;
+
   private final RuleTextNormalizer normalizer;
+  private final boolean tokenIndexEnabled;
 
   public RuleEngine(RuleTextNormalizer normalizer) {
+    this(normalizer, false);
+  }
+
+  @Autowired
+  public RuleEngine(
+      RuleTextNormalizer normalizer,
+      @Value("${app.rules.match.token-index:false}") boolean tokenIndexEnabled) {
     this.normalizer = normalizer;
+    this.tokenIndexEnabled = tokenIndexEnabled;
   }
 
-  public RuleEvaluation evaluate(Transaction transaction, List<Rule> orderedRules) {
+  public PreparedRuleSet prepare(List<Rule> orderedRules) {
     if (orderedRules == null || orderedRules.isEmpty()) {
-      return new RuleEvaluation(null, List.of());
+      return PreparedRuleSet.empty();
     }
 
-    String bookingText = normalizer.normalize(resolveBookingText(transaction));
-    String partnerName = normalizer.normalize(transaction.getPartnerName());
-
-    Rule winningRule = null;
-    List<Integer> conflictingRuleIds = new ArrayList<>();
-
+    List<PreparedRuleSet.PreparedRule> prepared = new ArrayList<>();
     for (Rule rule : orderedRules) {
       if (rule == null || !rule.isActive() || rule.getDeletedAt() != null) {
         continue;
@@ -36,39 +50,132 @@ public class RuleEngine {
         continue;
       }
 
-      if (!matches(rule.getMatchField(), needle, bookingText, partnerName)) {
-        continue;
+      RuleMatchField matchField = rule.getMatchField() == null ? RuleMatchField.BOTH : rule.getMatchField();
+      prepared.add(new PreparedRuleSet.PreparedRule(
+          prepared.size(),
+          rule,
+          rule.getId(),
+          rule.getCategory(),
+          rule.getCategory() == null ? null : rule.getCategory().getId(),
+          matchField,
+          needle,
+          matchModeFor(needle)));
+    }
+    return new PreparedRuleSet(prepared);
+  }
+
+  public RuleEvaluation evaluate(Transaction transaction, List<Rule> orderedRules) {
+    return evaluate(transaction, prepare(orderedRules));
+  }
+
+  public RuleEvaluation evaluate(Transaction transaction, PreparedRuleSet ruleSet) {
+    RuleMatch match = match(transaction, ruleSet);
+    return match.toEvaluation();
+  }
+
+  public RuleEvaluationBatch evaluateAll(List<Transaction> transactions, PreparedRuleSet ruleSet) {
+    if (transactions == null || transactions.isEmpty()) {
+      return new RuleEvaluationBatch(List.of(), Map.of());
+    }
+
+    Transaction[] items = transactions.toArray(new Transaction[0]);
+    RuleEvaluation[] evaluations = new RuleEvaluation[items.length];
+    LongAdder[] winCounts = new LongAdder[ruleSet.size()];
+    for (int i = 0; i < winCounts.length; i++) {
+      winCounts[i] = new LongAdder();
+    }
+
+    IntStream indexes = IntStream.range(0, items.length);
+    if (items.length >= PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(i -> {
+      RuleMatch match = match(items[i], ruleSet);
+      if (match.winningRule() != null) {
+        winCounts[match.winningRule().index()].increment();
       }
+      evaluations[i] = match.toEvaluation();
+    });
+
+    Map<Integer, Integer> matchCountByRuleId = new HashMap<>();
+    for (PreparedRuleSet.PreparedRule rule : ruleSet.rules()) {
+      long count = winCounts[rule.index()].sum();
+      if (rule.ruleId() != null && count > 0) {
+        matchCountByRuleId.merge(rule.ruleId(), (int) count, Integer::sum);
+      }
+    }
+    return new RuleEvaluationBatch(Arrays.asList(evaluations), Map.copyOf(matchCountByRuleId));
+  }
+
+  public MatchText normalize(Transaction transaction) {
+    return normalize(transaction.getRawBookingText(), transaction.getPurposeText(), transaction.getPartnerName());
+  }
+
+  public MatchText normalize(String rawBookingText, String purposeText, String partnerName) {
+    return new MatchText(
+        normalizer.normalize(resolveBookingText(rawBookingText, purposeText)),
+        normalizer.normalize(partnerName));
+  }
+
+  public RuleMatchMode matchModeFor(String needle) {
+    return tokenIndexEnabled && RuleTokenIndex.isTokenSequence(needle) ? RuleMatchMode.TOKEN : RuleMatchMode.SUBSTRING;
+  }
+
+  public boolean matches(PreparedRuleSet.PreparedRule rule, MatchText text) {
+    return switch (rule.matchField()) {
+      case BOOKING_TEXT -> contains(rule, text.bookingText());
+      case PARTNER_NAME -> contains(rule, text.partnerName());
+      case BOTH -> contains(rule, text.bookingText()) || contains(rule, text.partnerName());
+    };
+  }
+
+  private boolean contains(PreparedRuleSet.PreparedRule rule, String text) {
+    if (rule.matchMode() == RuleMatchMode.TOKEN) {
+      return RuleTokenIndex.containsTokens(text, rule.needle());
+    }
+    return text.contains(rule.needle());
+  }
+
+  private boolean matches(PreparedRuleSet.PreparedRule rule, MatchText text, BitSet tokenMatches) {
+    if (rule.matchMode() == RuleMatchMode.TOKEN) {
+      return tokenMatches.get(rule.index());
+    }
+    return matches(rule, text);
+  }
+
+  private RuleMatch match(Transaction transaction, PreparedRuleSet ruleSet) {
+    if (ruleSet == null || ruleSet.isEmpty()) {
+      return RuleMatch.NONE;
+    }
 
+    MatchText text = normalize(transaction);
+    BitSet tokenMatches = ruleSet.tokenIndex().matches(text);
+    PreparedRuleSet.PreparedRule winningRule = null;
+    List<Integer> conflictingRuleIds = new ArrayList<>();
+
+    for (PreparedRuleSet.PreparedRule rule : ruleSet.rules()) {
       if (winningRule == null) {
-        winningRule = rule;
+        if (matches(rule, text, tokenMatches)) {
+          winningRule = rule;
+        }
         continue;
       }
 
-      if (!sameCategory(winningRule, rule) && rule.getId() != null) {
-        conflictingRuleIds.add(rule.getId());
+      if (winningRule.sameCategory(rule) || rule.ruleId() == null) {
+        continue;
+      }
+      if (ruleSet.implies(winningRule, rule) || matches(rule, text, tokenMatches)) {
+        conflictingRuleIds.add(rule.ruleId());
       }
     }
 
-    return new RuleEvaluation(winningRule, List.copyOf(conflictingRuleIds));
-  }
-
-  private boolean matches(
-      RuleMatchField field,
-      String needle,
-      String bookingText,
-      String partnerName) {
-    RuleMatchField matchField = field == null ? RuleMatchField.BOTH : field;
-    return switch (matchField) {
-      case BOOKING_TEXT -> bookingText.contains(needle);
-      case PARTNER_NAME -> partnerName.contains(needle);
-      case BOTH -> bookingText.contains(needle) || partnerName.contains(needle);
-    };
+    if (winningRule == null) {
+      return RuleMatch.NONE;
+    }
+    return new RuleMatch(winningRule, List.copyOf(conflictingRuleIds));
   }
 
-  private String resolveBookingText(Transaction transaction) {
-    String rawBooking = transaction.getRawBookingText();
-    String purpose = transaction.getPurposeText();
+  private String resolveBookingText(String rawBooking, String purpose) {
     if (rawBooking == null && purpose == null) {
       return "";
     }
@@ -81,20 +188,17 @@ public class RuleEngine {
     return rawBooking + " " + purpose;
   }
 
-  private boolean sameCategory(Rule first, Rule second) {
-    if (first == null || second == null || first.getCategory() == null || second.getCategory() == null) {
-      return false;
-    }
-    if (first.getCategory() == second.getCategory()) {
-      return true;
-    }
-    Integer firstCategoryId = first.getCategory().getId();
-    Integer secondCategoryId = second.getCategory().getId();
-    if (firstCategoryId == null || secondCategoryId == null) {
-      return false;
+  private record RuleMatch(PreparedRuleSet.PreparedRule winningRule, List<Integer> conflictRuleIds) {
+    private static final RuleMatch NONE = new RuleMatch(null, List.of());
+
+    private RuleEvaluation toEvaluation() {
+      return new RuleEvaluation(winningRule == null ? null : winningRule.rule(), conflictRuleIds);
     }
-    return firstCategoryId.equals(secondCategoryId);
   }
 
+  public record MatchText(String bookingText, String partnerName) {}
+
   public record RuleEvaluation(Rule winningRule, List<Integer> conflictRuleIds) {}
+
+  public record RuleEvaluationBatch(List<RuleEvaluation> evaluations, Map<Integer, Integer> matchCountByRuleId) {}
 }
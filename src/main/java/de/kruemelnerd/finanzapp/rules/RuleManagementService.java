@@ -1,13 +1,12 @@
 package de.kruemelnerd.finanzapp.rules;
 
-import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -21,6 +20,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -28,26 +29,33 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RuleManagementService {
+  private static final Logger log = LoggerFactory.getLogger(RuleManagementService.class);
   private static final DateTimeFormatter DATE_TIME_EN = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
   private static final DateTimeFormatter DATE_TIME_DE = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final RuleRepository ruleRepository;
   private final CategoryRepository categoryRepository;
-  private final CategoryBootstrapService categoryBootstrapService;
   private final CategoryAssignmentService categoryAssignmentService;
+  private final RuleSetCache ruleSetCache;
+  private final RuleOverlapService ruleOverlapService;
+  private final RuleReapplyScheduler ruleReapplyScheduler;
 
   public RuleManagementService(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       RuleRepository ruleRepository,
       CategoryRepository categoryRepository,
-      CategoryBootstrapService categoryBootstrapService,
-      CategoryAssignmentService categoryAssignmentService) {
-    this.userRepository = userRepository;
+      CategoryAssignmentService categoryAssignmentService,
+      RuleSetCache ruleSetCache,
+      RuleOverlapService ruleOverlapService,
+      RuleReapplyScheduler ruleReapplyScheduler) {
+    this.currentUserResolver = currentUserResolver;
     this.ruleRepository = ruleRepository;
     this.categoryRepository = categoryRepository;
-    this.categoryBootstrapService = categoryBootstrapService;
     this.categoryAssignmentService = categoryAssignmentService;
+    this.ruleSetCache = ruleSetCache;
+    this.ruleOverlapService = ruleOverlapService;
+    this.ruleReapplyScheduler = ruleReapplyScheduler;
   }
 
   @Transactional(readOnly = true)
@@ -195,6 +203,7 @@ public class RuleManagementService {
     try {
       ruleRepository.saveAll(newRules);
       normalizeSortOrder(user.get());
+      rulesChanged(user.get());
       return true;
     } catch (DataIntegrityViolationException ignored) {
       return false;
@@ -249,6 +258,7 @@ public class RuleManagementService {
     try {
       ruleRepository.saveAll(replacementRules);
       reindexByCategoryOrder(user.get(), categoryOrder);
+      rulesChanged(user.get());
       return true;
     } catch (DataIntegrityViolationException ignored) {
       return false;
@@ -272,6 +282,7 @@ public class RuleManagementService {
       rule.setActive(enable);
     }
     ruleRepository.saveAll(rules);
+    rulesChanged(user.get());
     return true;
   }
 
@@ -303,6 +314,7 @@ public class RuleManagementService {
     }
     ruleRepository.saveAll(rules);
     normalizeSortOrder(user.get());
+    rulesChanged(user.get());
     return true;
   }
 
@@ -314,19 +326,43 @@ public class RuleManagementService {
     }
 
     try {
-      return Optional.of(categoryAssignmentService.runCategoryRules(user.get(), categoryId));
+      return Optional.of(categoryAssignmentService.runCategoryRules(user.get(), categoryId, progressLogger(user.get())));
     } catch (IllegalArgumentException ex) {
       return Optional.empty();
     }
   }
 
-  @Transactional
+  // Not transactional itself: the run waits for a background reapplication of the same user to finish
+  // before CategoryAssignmentService opens its write transaction.
   public Optional<CategoryAssignmentService.RuleRunStats> runAllRules(UserDetails userDetails) {
     Optional<User> user = resolveUser(userDetails);
     if (user.isEmpty()) {
       return Optional.empty();
     }
-    return Optional.of(categoryAssignmentService.runAllRules(user.get()));
+    return Optional.of(ruleReapplyScheduler.runExclusively(
+        user.get(), () -> categoryAssignmentService.runAllRules(user.get(), progressLogger(user.get()))));
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<RuleReapplyView> loadReapplyStatus(UserDetails userDetails) {
+    Optional<User> user = resolveUser(userDetails);
+    if (user.isEmpty()) {
+      return Optional.empty();
+    }
+
+    RuleReapplyScheduler.ReapplyStatus status = ruleReapplyScheduler.status(user.get());
+    if (status.state() == RuleReapplyScheduler.ReapplyState.IDLE) {
+      return Optional.empty();
+    }
+    String finishedAtLabel = status.finishedAt() == null
+        ? null
+        : resolveDateTimeFormatter(resolveLocale(user.get())).format(status.finishedAt().atZone(ZoneId.systemDefault()));
+    return Optional.of(new RuleReapplyView(
+        status.state().name(),
+        status.processedTransactions(),
+        status.totalTransactions(),
+        status.updatedTransactions(),
+        finishedAtLabel));
   }
 
   @Transactional
@@ -371,6 +407,7 @@ public class RuleManagementService {
       }
       if (changed) {
         ruleRepository.saveAll(existingRules);
+        rulesChanged(user.get());
       }
       return RuleGroupUpdateStatus.SUCCESS;
     }
@@ -407,6 +444,7 @@ public class RuleManagementService {
       } else {
         reindexByCategoryOrder(user.get(), categoryOrder);
       }
+      rulesChanged(user.get());
       return RuleGroupUpdateStatus.SUCCESS;
     } catch (DataIntegrityViolationException ignored) {
       return RuleGroupUpdateStatus.PERSISTENCE_ERROR;
@@ -437,6 +475,8 @@ public class RuleManagementService {
 
     Collections.swap(categoryOrder, index, targetIndex);
     reindexByCategoryOrder(user.get(), categoryOrder);
+    ruleSetCache.invalidate(user.get());
+    ruleReapplyScheduler.schedule(user.get());
     return true;
   }
 
@@ -525,7 +565,7 @@ public class RuleManagementService {
     return new RuleGroupPreparedData(category.get(), fragments);
   }
 
-  private List<String> parseFragments(String raw) {
+  static List<String> parseFragments(String raw) {
     if (raw == null || raw.isBlank()) {
       return List.of();
     }
@@ -549,6 +589,17 @@ public class RuleManagementService {
     return List.copyOf(fragments);
   }
 
+  private void rulesChanged(User user) {
+    ruleSetCache.invalidate(user);
+    ruleOverlapService.refresh(user);
+    ruleReapplyScheduler.schedule(user);
+  }
+
+  private RuleRunProgress progressLogger(User user) {
+    Integer userId = user.getId();
+    return (processed, total) -> log.debug("Rule run for user {}: {}/{} transactions", userId, processed, total);
+  }
+
   private Optional<Category> resolveSubCategory(User user, Integer categoryId) {
     Optional<Category> category = categoryRepository.findByIdAndUserAndDeletedAtIsNull(categoryId, user);
     if (category.isEmpty() || category.get().getParent() == null) {
@@ -558,14 +609,7 @@ public class RuleManagementService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername())
-        .map(user -> {
-          categoryBootstrapService.ensureDefaultUncategorized(user);
-          return user;
-        });
+    return currentUserResolver.resolve(userDetails);
   }
 
   private Locale resolveLocale(User user) {
@@ -617,6 +661,13 @@ public class RuleManagementService {
 
   public record RuleCategoryOption(Integer id, String label) {}
 
+  public record RuleReapplyView(
+      String state,
+      int processedTransactions,
+      long totalTransactions,
+      Integer updatedTransactions,
+      String finishedAtLabel) {}
+
   public record RuleGroupFormData(Integer categoryId, String categoryLabel, String fragmentsText) {}
 
   public enum RuleGroupUpdateStatus {
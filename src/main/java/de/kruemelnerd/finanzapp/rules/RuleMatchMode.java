@@ -0,0 +1,6 @@
+package de.kruemelnerd.finanzapp.rules;
+
+public enum RuleMatchMode {
+  SUBSTRING,
+  TOKEN
+}
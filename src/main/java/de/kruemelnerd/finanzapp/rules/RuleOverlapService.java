@@ -0,0 +1,78 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleOverlap;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleOverlapRepository;
+import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class RuleOverlapService {
+  private final RuleRepository ruleRepository;
+  private final RuleOverlapRepository ruleOverlapRepository;
+  private final RuleEngine ruleEngine;
+
+  public RuleOverlapService(
+      RuleRepository ruleRepository,
+      RuleOverlapRepository ruleOverlapRepository,
+      RuleEngine ruleEngine) {
+    this.ruleRepository = ruleRepository;
+    this.ruleOverlapRepository = ruleOverlapRepository;
+    this.ruleEngine = ruleEngine;
+  }
+
+  @Transactional
+  public int refresh(User user) {
+    ruleOverlapRepository.deleteByUser(user);
+    PreparedRuleSet ruleSet =
+        ruleEngine.prepare(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user));
+
+    List<RuleOverlap> overlaps = new ArrayList<>();
+    for (RuleOverlaps.Overlap overlap : RuleOverlaps.analyze(ruleSet.rules())) {
+      Rule rule = overlap.rule().rule();
+      Rule overlappingRule = overlap.overlappingRule().rule();
+      if (rule == null || overlappingRule == null || rule.getId() == null || overlappingRule.getId() == null) {
+        continue;
+      }
+
+      RuleOverlap entity = new RuleOverlap();
+      entity.setUser(user);
+      entity.setRule(rule);
+      entity.setOverlappingRule(overlappingRule);
+      entity.setOverlapType(overlap.type());
+      overlaps.add(entity);
+    }
+
+    if (!overlaps.isEmpty()) {
+      ruleOverlapRepository.saveAll(overlaps);
+    }
+    return overlaps.size();
+  }
+
+  @Transactional(readOnly = true)
+  public Map<Integer, List<String>> overlappingCategoryNamesByCategoryId(User user) {
+    Map<Integer, Set<String>> namesByCategoryId = new HashMap<>();
+    for (RuleOverlap overlap : ruleOverlapRepository.findWithRulesByUser(user)) {
+      Category category = overlap.getRule().getCategory();
+      Category overlappingCategory = overlap.getOverlappingRule().getCategory();
+      if (category == null || overlappingCategory == null) {
+        continue;
+      }
+      namesByCategoryId.computeIfAbsent(category.getId(), key -> new TreeSet<>()).add(overlappingCategory.getName());
+      namesByCategoryId.computeIfAbsent(overlappingCategory.getId(), key -> new TreeSet<>()).add(category.getName());
+    }
+
+    Map<Integer, List<String>> result = new HashMap<>();
+    namesByCategoryId.forEach((categoryId, names) -> result.put(categoryId, List.copyOf(names)));
+    return result;
+  }
+}
@@ -0,0 +1,84 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.RuleOverlapType;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+final class RuleOverlaps {
+  private RuleOverlaps() {}
+
+  static List<Overlap> analyze(List<PreparedRuleSet.PreparedRule> rules) {
+    Map<String, List<PreparedRuleSet.PreparedRule>> rulesByNeedle = new HashMap<>();
+    Set<Integer> needleLengths = new TreeSet<>();
+    for (PreparedRuleSet.PreparedRule rule : rules) {
+      rulesByNeedle.computeIfAbsent(rule.needle(), key -> new ArrayList<>()).add(rule);
+      needleLengths.add(rule.needle().length());
+    }
+
+    List<Overlap> overlaps = new ArrayList<>();
+    for (PreparedRuleSet.PreparedRule rule : rules) {
+      String needle = rule.needle();
+      Set<String> seen = new HashSet<>();
+      for (int length : needleLengths) {
+        if (length > needle.length()) {
+          break;
+        }
+        for (int start = 0; start + length <= needle.length(); start++) {
+          String part = needle.substring(start, start + length);
+          List<PreparedRuleSet.PreparedRule> contained = rulesByNeedle.get(part);
+          if (contained == null || !seen.add(part)) {
+            continue;
+          }
+          for (PreparedRuleSet.PreparedRule other : contained) {
+            if (other == rule || rule.sameCategory(other)) {
+              continue;
+            }
+            RuleOverlapType type = implies(rule, other)
+                ? RuleOverlapType.IMPLIES
+                : RuleOverlapType.SHARED_TEXT;
+            overlaps.add(new Overlap(rule, other, type));
+          }
+        }
+      }
+    }
+    return overlaps;
+  }
+
+  static List<BitSet> impliedRules(List<PreparedRuleSet.PreparedRule> rules) {
+    List<BitSet> implied = new ArrayList<>(rules.size());
+    for (int i = 0; i < rules.size(); i++) {
+      implied.add(new BitSet());
+    }
+    if (rules.size() < 2) {
+      return implied;
+    }
+    for (Overlap overlap : analyze(rules)) {
+      if (overlap.type() == RuleOverlapType.IMPLIES) {
+        implied.get(overlap.rule().index()).set(overlap.overlappingRule().index());
+      }
+    }
+    return implied;
+  }
+
+  private static boolean implies(PreparedRuleSet.PreparedRule rule, PreparedRuleSet.PreparedRule other) {
+    if (other.matchField() != RuleMatchField.BOTH && other.matchField() != rule.matchField()) {
+      return false;
+    }
+    if (other.matchMode() != RuleMatchMode.TOKEN) {
+      return true;
+    }
+    return rule.matchMode() == RuleMatchMode.TOKEN && RuleTokenIndex.containsTokens(rule.needle(), other.needle());
+  }
+
+  record Overlap(
+      PreparedRuleSet.PreparedRule rule,
+      PreparedRuleSet.PreparedRule overlappingRule,
+      RuleOverlapType type) {}
+}
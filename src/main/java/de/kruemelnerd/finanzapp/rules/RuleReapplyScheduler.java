@@ -0,0 +1,280 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class RuleReapplyScheduler {
+  private static final Logger log = LoggerFactory.getLogger(RuleReapplyScheduler.class);
+  private static final Duration DONE_VISIBLE_FOR = Duration.ofMinutes(5);
+
+  private final UserRepository userRepository;
+  private final CategoryBootstrapService categoryBootstrapService;
+  private final CategoryAssignmentService categoryAssignmentService;
+  private final ScheduledExecutorService executor;
+  private final Duration delay;
+  private final boolean enabled;
+  private final Clock clock;
+  private final Map<Integer, UserRun> runs = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RuleReapplyScheduler(
+      UserRepository userRepository,
+      CategoryBootstrapService categoryBootstrapService,
+      CategoryAssignmentService categoryAssignmentService,
+      @Value("${app.rules.reapply.enabled:true}") boolean enabled,
+      @Value("${app.rules.reapply.delay:PT2S}") Duration delay,
+      @Value("${app.rules.reapply.pool-size:2}") int poolSize) {
+    this(
+        userRepository,
+        categoryBootstrapService,
+        categoryAssignmentService,
+        newExecutor(poolSize),
+        delay,
+        enabled,
+        Clock.systemUTC());
+  }
+
+  RuleReapplyScheduler(
+      UserRepository userRepository,
+      CategoryBootstrapService categoryBootstrapService,
+      CategoryAssignmentService categoryAssignmentService,
+      ScheduledExecutorService executor,
+      Duration delay,
+      boolean enabled,
+      Clock clock) {
+    this.userRepository = userRepository;
+    this.categoryBootstrapService = categoryBootstrapService;
+    this.categoryAssignmentService = categoryAssignmentService;
+    this.executor = executor;
+    this.delay = delay;
+    this.enabled = enabled;
+    this.clock = clock;
+  }
+
+  public void schedule(User user) {
+    if (!enabled || user == null || user.getId() == null) {
+      return;
+    }
+    Integer userId = user.getId();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          enqueue(userId);
+        }
+      });
+      return;
+    }
+    enqueue(userId);
+  }
+
+  public ReapplyStatus status(User user) {
+    if (user == null || user.getId() == null) {
+      return ReapplyStatus.IDLE;
+    }
+    UserRun run = runs.get(user.getId());
+    if (run == null) {
+      return ReapplyStatus.IDLE;
+    }
+    synchronized (run) {
+      if (run.running) {
+        return new ReapplyStatus(ReapplyState.RUNNING, run.processed, run.total, null, null);
+      }
+      if (run.pending != null) {
+        return new ReapplyStatus(ReapplyState.QUEUED, 0, 0, null, null);
+      }
+      if (run.finishedAt == null || run.finishedAt.isBefore(clock.instant().minus(DONE_VISIBLE_FOR))) {
+        removeIfIdle(user.getId(), run);
+        return ReapplyStatus.IDLE;
+      }
+      if (run.failed) {
+        return new ReapplyStatus(ReapplyState.FAILED, run.processed, run.total, null, run.finishedAt);
+      }
+      return new ReapplyStatus(ReapplyState.DONE, run.processed, run.total, run.updated, run.finishedAt);
+    }
+  }
+
+  /**
+   * Runs a manual rule run for the user while no background reapplication of that user is running,
+   * so both never assign categories for the same transactions concurrently.
+   */
+  public <T> T runExclusively(User user, Supplier<T> action) {
+    if (user == null || user.getId() == null) {
+      return action.get();
+    }
+    Integer userId = user.getId();
+    while (true) {
+      UserRun run = runs.computeIfAbsent(userId, key -> new UserRun());
+      run.exclusive.lock();
+      try {
+        if (runs.get(userId) == run) {
+          return action.get();
+        }
+      } finally {
+        run.exclusive.unlock();
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void enqueue(Integer userId) {
+    pruneFinished();
+    while (true) {
+      UserRun run = runs.computeIfAbsent(userId, key -> new UserRun());
+      synchronized (run) {
+        if (runs.get(userId) != run) {
+          continue;
+        }
+        if (run.running) {
+          run.rerun = true;
+          return;
+        }
+        if (run.pending != null) {
+          run.pending.cancel(false);
+        }
+        scheduleLocked(userId, run);
+        return;
+      }
+    }
+  }
+
+  private void pruneFinished() {
+    Instant visibleAfter = clock.instant().minus(DONE_VISIBLE_FOR);
+    runs.forEach((userId, run) -> {
+      synchronized (run) {
+        if (run.finishedAt == null || run.finishedAt.isBefore(visibleAfter)) {
+          removeIfIdle(userId, run);
+        }
+      }
+    });
+  }
+
+  private void removeIfIdle(Integer userId, UserRun run) {
+    if (!run.running && run.pending == null && !run.exclusive.isLocked() && !run.exclusive.hasQueuedThreads()) {
+      runs.remove(userId, run);
+    }
+  }
+
+  private void scheduleLocked(Integer userId, UserRun run) {
+    long generation = ++run.generation;
+    run.pending = executor.schedule(() -> execute(userId, run, generation), delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void execute(Integer userId, UserRun run, long generation) {
+    synchronized (run) {
+      if (run.generation != generation || run.running) {
+        return;
+      }
+      run.pending = null;
+      run.running = true;
+      run.rerun = false;
+      run.failed = false;
+      run.processed = 0;
+      run.total = 0;
+    }
+
+    Integer updated = null;
+    boolean failed = false;
+    run.exclusive.lock();
+    try {
+      Optional<User> user = userRepository.findById(userId);
+      if (user.isPresent()) {
+        // Plan in a read-only transaction and only take SQLite's write lock for the short apply step.
+        Category defaultCategory = categoryBootstrapService.ensureDefaultUncategorized(user.get());
+        CategoryAssignmentService.RuleRunPlan plan =
+            categoryAssignmentService.planAllRules(user.get(), defaultCategory, (processed, total) -> {
+              synchronized (run) {
+                run.processed = processed;
+                run.total = total;
+              }
+            });
+        updated = categoryAssignmentService.applyPlan(plan).updatedTransactions();
+      }
+    } catch (RuntimeException ex) {
+      failed = true;
+      log.warn("Background rule reapplication failed for user {}", userId, ex);
+    } finally {
+      run.exclusive.unlock();
+    }
+
+    synchronized (run) {
+      run.running = false;
+      run.failed = failed;
+      run.updated = updated;
+      run.finishedAt = clock.instant();
+      if (run.rerun) {
+        run.rerun = false;
+        scheduleLocked(userId, run);
+      }
+    }
+  }
+
+  private static ScheduledExecutorService newExecutor(int poolSize) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), task -> {
+      Thread thread = new Thread(task, "rule-reapply-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  private static final class UserRun {
+    private final ReentrantLock exclusive = new ReentrantLock();
+    private ScheduledFuture<?> pending;
+    private long generation;
+    private boolean running;
+    private boolean rerun;
+    private boolean failed;
+    private int processed;
+    private long total;
+    private Integer updated;
+    private Instant finishedAt;
+  }
+
+  public enum ReapplyState {
+    IDLE,
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+  }
+
+  public record ReapplyStatus(
+      ReapplyState state,
+      int processedTransactions,
+      long totalTransactions,
+      Integer updatedTransactions,
+      Instant finishedAt) {
+    static final ReapplyStatus IDLE = new ReapplyStatus(ReapplyState.IDLE, 0, 0, null, null);
+  }
+}
@@ -0,0 +1,29 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "app.rules.rerun-all", name = "enabled", havingValue = "true")
+public class RuleRerunBatchRunner implements ApplicationRunner {
+  private final RuleRerunBatchService ruleRerunBatchService;
+  private final String batchId;
+  private final int parallelism;
+
+  public RuleRerunBatchRunner(
+      RuleRerunBatchService ruleRerunBatchService,
+      @Value("${app.rules.rerun-all.batch-id:rerun}") String batchId,
+      @Value("${app.rules.rerun-all.parallelism:1}") int parallelism) {
+    this.ruleRerunBatchService = ruleRerunBatchService;
+    this.batchId = batchId;
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    ruleRerunBatchService.rerunAll(batchId, parallelism);
+  }
+}
@@ -0,0 +1,225 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.RuleRerunCheckpoint;
+import de.kruemelnerd.finanzapp.domain.RuleRerunStatus;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleRerunCheckpointRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RuleRerunBatchService {
+  private static final Logger log = LoggerFactory.getLogger(RuleRerunBatchService.class);
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final UserRepository userRepository;
+  private final CategoryBootstrapService categoryBootstrapService;
+  private final CategoryAssignmentService categoryAssignmentService;
+  private final RuleRerunCheckpointRepository checkpointRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final Clock clock;
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  @Autowired
+  public RuleRerunBatchService(
+      UserRepository userRepository,
+      CategoryBootstrapService categoryBootstrapService,
+      CategoryAssignmentService categoryAssignmentService,
+      RuleRerunCheckpointRepository checkpointRepository,
+      JdbcTemplate jdbcTemplate) {
+    this(
+        userRepository,
+        categoryBootstrapService,
+        categoryAssignmentService,
+        checkpointRepository,
+        jdbcTemplate,
+        Clock.systemUTC());
+  }
+
+  RuleRerunBatchService(
+      UserRepository userRepository,
+      CategoryBootstrapService categoryBootstrapService,
+      CategoryAssignmentService categoryAssignmentService,
+      RuleRerunCheckpointRepository checkpointRepository,
+      JdbcTemplate jdbcTemplate,
+      Clock clock) {
+    this.userRepository = userRepository;
+    this.categoryBootstrapService = categoryBootstrapService;
+    this.categoryAssignmentService = categoryAssignmentService;
+    this.checkpointRepository = checkpointRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.clock = clock;
+  }
+
+  public BatchResult rerunAll(String batchId, int parallelism) {
+    if (batchId == null || batchId.isBlank()) {
+      throw new IllegalArgumentException("Batch id must not be empty");
+    }
+    Set<Integer> done = new HashSet<>(checkpointRepository.findUserIdsByBatchIdAndStatus(batchId, RuleRerunStatus.DONE));
+    List<Integer> pending = userRepository.findAllIds().stream()
+        .filter(userId -> !done.contains(userId))
+        .toList();
+    int threads = effectiveParallelism(parallelism);
+    log.info(
+        "Rule rerun batch {}: {} users pending, {} already done, parallelism {}",
+        batchId,
+        pending.size(),
+        done.size(),
+        threads);
+
+    AtomicInteger succeeded = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicInteger updated = new AtomicInteger();
+    long started = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Integer userId : pending) {
+        futures.add(executor.submit(() -> {
+          UserResult result = rerunUser(batchId, userId);
+          if (result.status() == RuleRerunStatus.DONE) {
+            succeeded.incrementAndGet();
+            updated.addAndGet(result.updatedTransactions());
+          } else {
+            failed.incrementAndGet();
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Rule rerun batch interrupted", ex);
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Rule rerun batch aborted", ex.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long durationMs = (System.nanoTime() - started) / 1_000_000;
+    log.info(
+        "Rule rerun batch {} finished: {} users done, {} failed, {} skipped, {} transactions updated in {} ms",
+        batchId,
+        succeeded.get(),
+        failed.get(),
+        done.size(),
+        updated.get(),
+        durationMs);
+    return new BatchResult(succeeded.get(), failed.get(), done.size(), updated.get(), durationMs);
+  }
+
+  UserResult rerunUser(String batchId, Integer userId) {
+    long started = System.nanoTime();
+    try {
+      Optional<User> user = userRepository.findById(userId);
+      if (user.isEmpty()) {
+        return new UserResult(RuleRerunStatus.DONE, 0, 0);
+      }
+      Category defaultCategory = write(() -> categoryBootstrapService.ensureDefaultUncategorized(user.get()));
+      CategoryAssignmentService.RuleRunPlan plan =
+          categoryAssignmentService.planAllRules(user.get(), defaultCategory, RuleRunProgress.NONE);
+      CategoryAssignmentService.RuleRunStats stats = write(() -> {
+        CategoryAssignmentService.RuleRunStats applied = categoryAssignmentService.applyPlan(plan);
+        saveCheckpoint(batchId, userId, RuleRerunStatus.DONE, applied, elapsedMs(started), null);
+        return applied;
+      });
+      log.info(
+          "Rule rerun batch {}: user {} updated {} of {} transactions in {} ms",
+          batchId,
+          userId,
+          stats.updatedTransactions(),
+          stats.scannedTransactions(),
+          elapsedMs(started));
+      return new UserResult(RuleRerunStatus.DONE, stats.updatedTransactions(), stats.scannedTransactions());
+    } catch (RuntimeException ex) {
+      long durationMs = elapsedMs(started);
+      log.warn("Rule rerun batch {}: user {} failed after {} ms", batchId, userId, durationMs, ex);
+      write(() -> saveCheckpoint(batchId, userId, RuleRerunStatus.FAILED, null, durationMs, ex.getMessage()));
+      return new UserResult(RuleRerunStatus.FAILED, 0, 0);
+    }
+  }
+
+  int effectiveParallelism(int requested) {
+    int parallelism = Math.max(1, requested);
+    if (parallelism == 1) {
+      return 1;
+    }
+    String journalMode = jdbcTemplate.queryForObject("PRAGMA journal_mode", String.class);
+    if (!"wal".equalsIgnoreCase(journalMode)) {
+      log.warn(
+          "SQLite journal_mode is {}; readers would block on the writer, running rule rerun with parallelism 1",
+          journalMode);
+      return 1;
+    }
+    return parallelism;
+  }
+
+  private RuleRerunCheckpoint saveCheckpoint(
+      String batchId,
+      Integer userId,
+      RuleRerunStatus status,
+      CategoryAssignmentService.RuleRunStats stats,
+      long durationMs,
+      String errorMessage) {
+    RuleRerunCheckpoint checkpoint = checkpointRepository.findByBatchIdAndUserId(batchId, userId)
+        .orElseGet(RuleRerunCheckpoint::new);
+    checkpoint.setBatchId(batchId);
+    checkpoint.setUserId(userId);
+    checkpoint.setStatus(status);
+    checkpoint.setUpdatedTransactions(stats == null ? 0 : stats.updatedTransactions());
+    checkpoint.setScannedTransactions(stats == null ? 0 : stats.scannedTransactions());
+    checkpoint.setDurationMs(durationMs);
+    checkpoint.setErrorMessage(truncate(errorMessage));
+    checkpoint.setFinishedAt(clock.instant());
+    return checkpointRepository.save(checkpoint);
+  }
+
+  private <T> T write(Supplier<T> action) {
+    writeLock.lock();
+    try {
+      return action.get();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private long elapsedMs(long startedNanos) {
+    return (System.nanoTime() - startedNanos) / 1_000_000;
+  }
+
+  private String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  record UserResult(RuleRerunStatus status, int updatedTransactions, int scannedTransactions) {}
+
+  public record BatchResult(
+      int succeededUsers,
+      int failedUsers,
+      int skippedUsers,
+      int updatedTransactions,
+      long durationMs) {}
+}
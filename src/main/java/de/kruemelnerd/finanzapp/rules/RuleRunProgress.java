@@ -0,0 +1,8 @@
+package de.kruemelnerd.finanzapp.rules;
+
+@FunctionalInterface
+public interface RuleRunProgress {
+  RuleRunProgress NONE = (processedTransactions, totalTransactions) -> {};
+
+  void onChunk(int processedTransactions, long totalTransactions);
+}
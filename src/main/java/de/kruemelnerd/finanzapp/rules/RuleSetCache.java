@@ -0,0 +1,111 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class RuleSetCache {
+  private final RuleRepository ruleRepository;
+  private final RuleEngine ruleEngine;
+  private final int maxUsers;
+  private final long idleNanos;
+  private final Map<Integer, AtomicLong> versionByUserId = new ConcurrentHashMap<>();
+  private final LinkedHashMap<Integer, CachedRuleSet> entries;
+
+  public RuleSetCache(
+      RuleRepository ruleRepository,
+      RuleEngine ruleEngine,
+      @Value("${app.rules.cache.max-users:256}") int maxUsers,
+      @Value("${app.rules.cache.idle-timeout:PT30M}") Duration idleTimeout) {
+    this.ruleRepository = ruleRepository;
+    this.ruleEngine = ruleEngine;
+    this.maxUsers = Math.max(1, maxUsers);
+    this.idleNanos = idleTimeout.toNanos();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, CachedRuleSet> eldest) {
+        return size() > RuleSetCache.this.maxUsers;
+      }
+    };
+  }
+
+  public PreparedRuleSet activeRules(User user) {
+    if (user == null || user.getId() == null) {
+      return load(user);
+    }
+
+    Integer userId = user.getId();
+    long version = currentVersion(userId);
+    long now = System.nanoTime();
+    synchronized (entries) {
+      CachedRuleSet cached = entries.get(userId);
+      if (cached != null && cached.version() == version && now - cached.lastAccessNanos() <= idleNanos) {
+        entries.put(userId, cached.touch(now));
+        return cached.ruleSet();
+      }
+    }
+
+    PreparedRuleSet ruleSet = load(user);
+    synchronized (entries) {
+      evictIdle(now);
+      entries.put(userId, new CachedRuleSet(version, ruleSet, now));
+    }
+    return ruleSet;
+  }
+
+  public void invalidate(User user) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    Integer userId = user.getId();
+    bumpVersion(userId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          bumpVersion(userId);
+        }
+      });
+    }
+  }
+
+  private PreparedRuleSet load(User user) {
+    return ruleEngine.prepare(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user));
+  }
+
+  private long currentVersion(Integer userId) {
+    return versionByUserId.computeIfAbsent(userId, key -> new AtomicLong()).get();
+  }
+
+  private void bumpVersion(Integer userId) {
+    versionByUserId.computeIfAbsent(userId, key -> new AtomicLong()).incrementAndGet();
+    synchronized (entries) {
+      entries.remove(userId);
+    }
+  }
+
+  private void evictIdle(long now) {
+    Iterator<CachedRuleSet> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().lastAccessNanos() > idleNanos) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private record CachedRuleSet(long version, PreparedRuleSet ruleSet, long lastAccessNanos) {
+    private CachedRuleSet touch(long now) {
+      return new CachedRuleSet(version, ruleSet, now);
+    }
+  }
+}
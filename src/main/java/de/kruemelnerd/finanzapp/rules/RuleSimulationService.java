@@ -0,0 +1,353 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionMatchRow;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class RuleSimulationService {
+  static final int SAMPLE_LIMIT = 10;
+
+  private final CurrentUserResolver currentUserResolver;
+  private final CategoryRepository categoryRepository;
+  private final TransactionRepository transactionRepository;
+  private final RuleEngine ruleEngine;
+  private final RuleTextNormalizer normalizer;
+  private final RuleSetCache ruleSetCache;
+  private final int maxCachedRows;
+  private final long idleNanos;
+  private final LinkedHashMap<Integer, CachedHistory> histories = new LinkedHashMap<>(16, 0.75f, true);
+  private int cachedRows;
+
+  public RuleSimulationService(
+      CurrentUserResolver currentUserResolver,
+      CategoryRepository categoryRepository,
+      TransactionRepository transactionRepository,
+      RuleEngine ruleEngine,
+      RuleTextNormalizer normalizer,
+      RuleSetCache ruleSetCache,
+      @Value("${app.rules.simulation.history.max-rows:200000}") int maxCachedRows,
+      @Value("${app.rules.simulation.history.idle-timeout:PT10M}") Duration idleTimeout) {
+    this.currentUserResolver = currentUserResolver;
+    this.categoryRepository = categoryRepository;
+    this.transactionRepository = transactionRepository;
+    this.ruleEngine = ruleEngine;
+    this.normalizer = normalizer;
+    this.ruleSetCache = ruleSetCache;
+    this.maxCachedRows = Math.max(0, maxCachedRows);
+    this.idleNanos = idleTimeout.toNanos();
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<RuleSimulationResult> simulate(UserDetails userDetails, Integer categoryId, String fragmentsText) {
+    if (categoryId == null) {
+      return Optional.empty();
+    }
+
+    Optional<User> user = resolveUser(userDetails);
+    if (user.isEmpty()) {
+      return Optional.empty();
+    }
+
+    Optional<Category> category = categoryRepository.findByIdAndUserAndDeletedAtIsNull(categoryId, user.get());
+    if (category.isEmpty() || category.get().getParent() == null) {
+      return Optional.empty();
+    }
+
+    List<String> fragments = RuleManagementService.parseFragments(fragmentsText);
+    List<PreparedRuleSet.PreparedRule> candidates = new ArrayList<>();
+    List<Integer> fragmentIndexByCandidate = new ArrayList<>();
+    for (int i = 0; i < fragments.size(); i++) {
+      String needle = normalizer.normalize(fragments.get(i));
+      if (needle.isBlank()) {
+        continue;
+      }
+      candidates.add(new PreparedRuleSet.PreparedRule(
+          candidates.size(),
+          null,
+          null,
+          category.get(),
+          categoryId,
+          RuleMatchField.BOTH,
+          needle,
+          ruleEngine.matchModeFor(needle)));
+      fragmentIndexByCandidate.add(i);
+    }
+
+    PreparedRuleSet activeRules = ruleSetCache.activeRules(user.get());
+    List<PreparedRuleSet.PreparedRule> ownRules = new ArrayList<>();
+    List<PreparedRuleSet.PreparedRule> otherRules = new ArrayList<>();
+    for (PreparedRuleSet.PreparedRule rule : activeRules.rules()) {
+      if (categoryId.equals(rule.categoryId())) {
+        ownRules.add(rule);
+      } else {
+        otherRules.add(rule);
+      }
+    }
+    List<PreparedRuleSet.PreparedRule> simulatedOrder = simulatedOrder(activeRules, candidates, categoryId);
+
+    List<HistoryRow> rows = loadHistory(user.get());
+    HistoryRow[] items = rows.toArray(new HistoryRow[0]);
+    boolean[] matched = new boolean[items.length];
+    boolean[] winning = new boolean[items.length];
+    LongAdder[] fragmentHits = adders(candidates.size());
+    LongAdder[] conflictHits = adders(activeRules.size());
+    LongAdder matchedCount = new LongAdder();
+    LongAdder winningCount = new LongAdder();
+    LongAdder lockedCount = new LongAdder();
+
+    IntStream indexes = IntStream.range(0, candidates.isEmpty() ? 0 : items.length);
+    if (items.length >= RuleEngine.PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(i -> {
+      HistoryRow row = items[i];
+      boolean hit = false;
+      for (PreparedRuleSet.PreparedRule candidate : candidates) {
+        if (ruleEngine.matches(candidate, row.text())) {
+          fragmentHits[candidate.index()].increment();
+          hit = true;
+        }
+      }
+      if (!hit) {
+        return;
+      }
+
+      matched[i] = true;
+      matchedCount.increment();
+      if (row.categoryLocked()) {
+        lockedCount.increment();
+      }
+
+      for (PreparedRuleSet.PreparedRule rule : simulatedOrder) {
+        if (ruleEngine.matches(rule, row.text())) {
+          if (rule.ruleId() == null) {
+            winning[i] = true;
+            winningCount.increment();
+          }
+          break;
+        }
+      }
+
+      for (PreparedRuleSet.PreparedRule rule : ownRules) {
+        if (ruleEngine.matches(rule, row.text())) {
+          return;
+        }
+      }
+      for (PreparedRuleSet.PreparedRule rule : otherRules) {
+        if (ruleEngine.matches(rule, row.text())) {
+          conflictHits[rule.index()].increment();
+        }
+      }
+    });
+
+    int[] matchCountByFragment = new int[fragments.size()];
+    for (int i = 0; i < candidates.size(); i++) {
+      matchCountByFragment[fragmentIndexByCandidate.get(i)] += (int) fragmentHits[i].sum();
+    }
+    List<FragmentMatch> fragmentMatches = new ArrayList<>();
+    for (int i = 0; i < fragments.size(); i++) {
+      fragmentMatches.add(new FragmentMatch(fragments.get(i), matchCountByFragment[i]));
+    }
+
+    List<SampleTransaction> samples = new ArrayList<>();
+    for (int i = 0; i < items.length && samples.size() < SAMPLE_LIMIT; i++) {
+      if (matched[i]) {
+        HistoryRow row = items[i];
+        samples.add(new SampleTransaction(row.id(), row.bookingDateTime(), row.partnerName(), row.amountCents(), winning[i]));
+      }
+    }
+
+    return Optional.of(new RuleSimulationResult(
+        categoryId,
+        items.length,
+        (int) matchedCount.sum(),
+        (int) winningCount.sum(),
+        (int) lockedCount.sum(),
+        List.copyOf(fragmentMatches),
+        newConflicts(user.get(), otherRules, conflictHits),
+        List.copyOf(samples)));
+  }
+
+  private List<PreparedRuleSet.PreparedRule> simulatedOrder(
+      PreparedRuleSet activeRules,
+      List<PreparedRuleSet.PreparedRule> candidates,
+      Integer categoryId) {
+    List<PreparedRuleSet.PreparedRule> order = new ArrayList<>();
+    boolean inserted = false;
+    for (PreparedRuleSet.PreparedRule rule : activeRules.rules()) {
+      if (!categoryId.equals(rule.categoryId())) {
+        order.add(rule);
+        continue;
+      }
+      if (!inserted) {
+        order.addAll(candidates);
+        inserted = true;
+      }
+    }
+    if (!inserted) {
+      order.addAll(candidates);
+    }
+    return order;
+  }
+
+  private List<ConflictingRule> newConflicts(
+      User user,
+      List<PreparedRuleSet.PreparedRule> otherRules,
+      LongAdder[] conflictHits) {
+    List<ConflictingRule> conflicts = new ArrayList<>();
+    Map<Integer, String> labelByCategoryId = null;
+    for (PreparedRuleSet.PreparedRule rule : otherRules) {
+      long count = conflictHits[rule.index()].sum();
+      if (count == 0 || rule.ruleId() == null) {
+        continue;
+      }
+      if (labelByCategoryId == null) {
+        labelByCategoryId = loadCategoryLabels(user);
+      }
+      conflicts.add(new ConflictingRule(
+          rule.ruleId(),
+          rule.categoryId(),
+          labelByCategoryId.getOrDefault(rule.categoryId(), "-"),
+          rule.rule().getMatchText(),
+          (int) count));
+    }
+    return List.copyOf(conflicts);
+  }
+
+  private Map<Integer, String> loadCategoryLabels(User user) {
+    Map<Integer, String> labels = new HashMap<>();
+    for (Category category : categoryRepository.findByUserAndDeletedAtIsNullAndParentIsNotNullOrderBySortOrderAscIdAsc(user)) {
+      labels.put(category.getId(), category.getParent().getName() + " -> " + category.getName());
+    }
+    return labels;
+  }
+
+  private List<HistoryRow> loadHistory(User user) {
+    Long storedRevision = transactionRepository.findRevisionByUserId(user.getId());
+    long revision = storedRevision == null ? 0 : storedRevision;
+    long now = System.nanoTime();
+    synchronized (histories) {
+      CachedHistory cached = histories.get(user.getId());
+      if (cached != null && cached.revision() == revision && now - cached.lastAccessNanos() <= idleNanos) {
+        histories.put(user.getId(), cached.touch(now));
+        return cached.rows();
+      }
+    }
+
+    List<HistoryRow> rows = new ArrayList<>();
+    for (TransactionMatchRow row : transactionRepository.findMatchRowsByUser(user)) {
+      rows.add(new HistoryRow(
+          row.id(),
+          row.bookingDateTime(),
+          row.partnerName(),
+          row.amountCents(),
+          row.categoryLocked(),
+          ruleEngine.normalize(row.rawBookingText(), row.purposeText(), row.partnerName())));
+    }
+    List<HistoryRow> snapshot = List.copyOf(rows);
+    if (user.getId() != null) {
+      synchronized (histories) {
+        cache(user.getId(), new CachedHistory(revision, snapshot, now), now);
+      }
+    }
+    return snapshot;
+  }
+
+  /** Caps the normalized rows held across users, dropping idle and then least recently used histories. */
+  private void cache(Integer userId, CachedHistory history, long now) {
+    CachedHistory previous = histories.remove(userId);
+    if (previous != null) {
+      cachedRows -= previous.rows().size();
+    }
+    Iterator<CachedHistory> idle = histories.values().iterator();
+    while (idle.hasNext()) {
+      CachedHistory cached = idle.next();
+      if (now - cached.lastAccessNanos() > idleNanos) {
+        cachedRows -= cached.rows().size();
+        idle.remove();
+      }
+    }
+    if (history.rows().size() > maxCachedRows) {
+      return;
+    }
+    Iterator<CachedHistory> eldest = histories.values().iterator();
+    while (cachedRows + history.rows().size() > maxCachedRows && eldest.hasNext()) {
+      cachedRows -= eldest.next().rows().size();
+      eldest.remove();
+    }
+    histories.put(userId, history);
+    cachedRows += history.rows().size();
+  }
+
+  private LongAdder[] adders(int size) {
+    LongAdder[] adders = new LongAdder[size];
+    for (int i = 0; i < size; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private Optional<User> resolveUser(UserDetails userDetails) {
+    return currentUserResolver.resolve(userDetails);
+  }
+
+  private record HistoryRow(
+      Integer id,
+      LocalDateTime bookingDateTime,
+      String partnerName,
+      long amountCents,
+      boolean categoryLocked,
+      RuleEngine.MatchText text) {}
+
+  private record CachedHistory(long revision, List<HistoryRow> rows, long lastAccessNanos) {
+    private CachedHistory touch(long now) {
+      return new CachedHistory(revision, rows, now);
+    }
+  }
+
+  public record RuleSimulationResult(
+      Integer categoryId,
+      int scannedTransactions,
+      int matchedTransactions,
+      int winningTransactions,
+      int lockedTransactions,
+      List<FragmentMatch> fragments,
+      List<ConflictingRule> newConflicts,
+      List<SampleTransaction> samples) {}
+
+  public record FragmentMatch(String fragment, int matchCount) {}
+
+  public record ConflictingRule(
+      Integer ruleId,
+      Integer categoryId,
+      String categoryLabel,
+      String matchText,
+      int transactionCount) {}
+
+  public record SampleTransaction(
+      Integer id,
+      LocalDateTime bookingDateTime,
+      String partnerName,
+      long amountCents,
+      boolean winning) {}
+}
@@ -0,0 +1,173 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RuleSqlPushdown {
+  static final int MAX_PARAMETERS = 900;
+  private static final int BACKFILL_CHUNK_SIZE = 1000;
+  private static final String USER_SCOPE =
+      "user_id = ?1 AND deleted_at IS NULL AND category_locked = 0";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final RuleEngine ruleEngine;
+  private final boolean enabled;
+
+  public RuleSqlPushdown(
+      JdbcTemplate jdbcTemplate,
+      RuleEngine ruleEngine,
+      @Value("${app.rules.run.sql-pushdown:true}") boolean enabled) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ruleEngine = ruleEngine;
+    this.enabled = enabled;
+  }
+
+  public boolean supports(PreparedRuleSet ruleSet) {
+    if (!enabled || ruleSet == null) {
+      return false;
+    }
+    int parameters = 1;
+    for (PreparedRuleSet.PreparedRule rule : ruleSet.rules()) {
+      if (rule.matchMode() != RuleMatchMode.SUBSTRING || (rule.category() != null && rule.categoryId() == null)) {
+        return false;
+      }
+      parameters++;
+    }
+    return parameters <= MAX_PARAMETERS;
+  }
+
+  public PushdownResult run(User user, PreparedRuleSet ruleSet) {
+    Integer userId = Objects.requireNonNull(user.getId(), "user id");
+    int scanned = count("SELECT count(*) FROM transactions WHERE user_id = ?1 AND deleted_at IS NULL", userId);
+    if (ruleSet.isEmpty()) {
+      return new PushdownResult(0, 0, scanned);
+    }
+
+    backfillMatchText(userId);
+    CompiledRules compiled = compile(ruleSet);
+    Object[] args = compiled.args(userId);
+    String matched = USER_SCOPE + " AND " + compiled.anyMatch();
+
+    int matches = count("SELECT count(*) FROM transactions WHERE " + matched, args);
+    if (matches == 0) {
+      return new PushdownResult(0, 0, scanned);
+    }
+    int changed = jdbcTemplate.update("""
+        UPDATE transactions
+           SET category_id = %1$s,
+               category_assigned_by = 'RULE',
+               category_locked = 0
+         WHERE %2$s
+           AND (category_id IS NOT %1$s
+                OR category_assigned_by IS NOT 'RULE'
+                OR EXISTS (SELECT 1 FROM transaction_rule_conflicts c WHERE c.transaction_id = transactions.id))
+        """.formatted(compiled.categoryCase(), matched), args);
+    jdbcTemplate.update(
+        "DELETE FROM transaction_rule_conflicts WHERE transaction_id IN (SELECT id FROM transactions WHERE "
+            + matched + ")",
+        args);
+    return new PushdownResult(matches, changed, scanned);
+  }
+
+  CompiledRules compile(PreparedRuleSet ruleSet) {
+    List<String> needles = new ArrayList<>();
+    StringBuilder categoryCase = new StringBuilder("CASE");
+    StringBuilder anyMatch = new StringBuilder("(");
+    Integer bandCategoryId = null;
+    StringBuilder band = null;
+
+    for (PreparedRuleSet.PreparedRule rule : ruleSet.rules()) {
+      needles.add(rule.needle());
+      String condition = condition(rule, needles.size() + 1);
+      if (needles.size() > 1) {
+        anyMatch.append(" OR ");
+      }
+      anyMatch.append(condition);
+
+      if (band != null && Objects.equals(bandCategoryId, rule.categoryId())) {
+        band.append(" OR ").append(condition);
+        continue;
+      }
+      appendBand(categoryCase, band, bandCategoryId);
+      band = new StringBuilder(condition);
+      bandCategoryId = rule.categoryId();
+    }
+    appendBand(categoryCase, band, bandCategoryId);
+    categoryCase.append(" END");
+    anyMatch.append(")");
+    return new CompiledRules(categoryCase.toString(), anyMatch.toString(), List.copyOf(needles));
+  }
+
+  /**
+   * Recomputes stored match text for rows that were never normalized, whose source text changed since
+   * (the entity setters clear the version), or that were normalized by an older {@link RuleTextNormalizer}.
+   */
+  private void backfillMatchText(Integer userId) {
+    while (true) {
+      List<Object[]> rows = jdbcTemplate.query("""
+          SELECT id, raw_booking_text, purpose_text, partner_name
+            FROM transactions
+           WHERE user_id = ? AND deleted_at IS NULL
+             AND match_text_version IS NOT ?
+           ORDER BY id
+           LIMIT ?
+          """, (rs, rowNum) -> {
+            RuleEngine.MatchText text = ruleEngine.normalize(
+                rs.getString("raw_booking_text"),
+                rs.getString("purpose_text"),
+                rs.getString("partner_name"));
+            return new Object[] {text.bookingText(), text.partnerName(), RuleTextNormalizer.VERSION, rs.getInt("id")};
+          }, userId, RuleTextNormalizer.VERSION, BACKFILL_CHUNK_SIZE);
+      if (rows.isEmpty()) {
+        return;
+      }
+      jdbcTemplate.batchUpdate(
+          "UPDATE transactions SET match_booking_text = ?, match_partner_name = ?, match_text_version = ? WHERE id = ?",
+          rows);
+      if (rows.size() < BACKFILL_CHUNK_SIZE) {
+        return;
+      }
+    }
+  }
+
+  private int count(String sql, Object... args) {
+    Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+    return count == null ? 0 : count;
+  }
+
+  private static void appendBand(StringBuilder categoryCase, StringBuilder band, Integer categoryId) {
+    if (band == null) {
+      return;
+    }
+    categoryCase.append(" WHEN ").append(band).append(" THEN ").append(categoryId == null ? "NULL" : categoryId);
+  }
+
+  private static String condition(PreparedRuleSet.PreparedRule rule, int parameter) {
+    String bookingText = "instr(match_booking_text, ?" + parameter + ") > 0";
+    String partnerName = "instr(match_partner_name, ?" + parameter + ") > 0";
+    return switch (rule.matchField()) {
+      case BOOKING_TEXT -> bookingText;
+      case PARTNER_NAME -> partnerName;
+      case BOTH -> "(" + bookingText + " OR " + partnerName + ")";
+    };
+  }
+
+  record CompiledRules(String categoryCase, String anyMatch, List<String> needles) {
+    Object[] args(Integer userId) {
+      Object[] args = new Object[needles.size() + 1];
+      args[0] = userId;
+      for (int i = 0; i < needles.size(); i++) {
+        args[i + 1] = needles.get(i);
+      }
+      return args;
+    }
+  }
+
+  public record PushdownResult(int matchedTransactions, int changedTransactions, int scannedTransactions) {}
+}
@@ -7,6 +7,9 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class RuleTextNormalizer {
+  /** Stored with the precomputed match text; bump it whenever {@link #normalize} changes its output. */
+  public static final int VERSION = 1;
+
   private static final Pattern MULTI_SPACE = Pattern.compile("\\s+");
   private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
   private static final Pattern APOSTROPHES = Pattern.compile("['`´\u2018\u2019\u02BC]");
@@ -0,0 +1,257 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+final class RuleTokenIndex {
+  static final RuleTokenIndex EMPTY =
+      new RuleTokenIndex(new TokenTable(), new int[0][], new int[0][], new RuleMatchField[0]);
+
+  private final TokenTable tokenIds;
+  private final int[][] ruleIndexesByFirstToken;
+  private final int[][] tokenSequenceByRuleIndex;
+  private final RuleMatchField[] matchFieldByRuleIndex;
+
+  private RuleTokenIndex(
+      TokenTable tokenIds,
+      int[][] ruleIndexesByFirstToken,
+      int[][] tokenSequenceByRuleIndex,
+      RuleMatchField[] matchFieldByRuleIndex) {
+    this.tokenIds = tokenIds;
+    this.ruleIndexesByFirstToken = ruleIndexesByFirstToken;
+    this.tokenSequenceByRuleIndex = tokenSequenceByRuleIndex;
+    this.matchFieldByRuleIndex = matchFieldByRuleIndex;
+  }
+
+  static RuleTokenIndex build(List<PreparedRuleSet.PreparedRule> rules) {
+    TokenTable tokenIds = new TokenTable();
+    int[][] sequences = new int[rules.size()][];
+    RuleMatchField[] fields = new RuleMatchField[rules.size()];
+    int[][] postings = new int[8][];
+    int[] postingSizes = new int[8];
+
+    for (PreparedRuleSet.PreparedRule rule : rules) {
+      if (rule.matchMode() != RuleMatchMode.TOKEN) {
+        continue;
+      }
+      String[] tokens = rule.needle().split(" ");
+      int[] sequence = new int[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        sequence[i] = tokenIds.add(tokens[i]);
+      }
+      sequences[rule.index()] = sequence;
+      fields[rule.index()] = rule.matchField();
+
+      int first = sequence[0];
+      if (postings.length <= first) {
+        postings = Arrays.copyOf(postings, Math.max(first + 1, postings.length * 2));
+        postingSizes = Arrays.copyOf(postingSizes, postings.length);
+      }
+      int[] posting = postings[first];
+      if (posting == null || postingSizes[first] == posting.length) {
+        posting = posting == null ? new int[4] : Arrays.copyOf(posting, posting.length * 2);
+        postings[first] = posting;
+      }
+      posting[postingSizes[first]++] = rule.index();
+    }
+    if (tokenIds.size() == 0) {
+      return EMPTY;
+    }
+
+    int[][] ruleIndexesByFirstToken = new int[tokenIds.size()][];
+    for (int i = 0; i < ruleIndexesByFirstToken.length; i++) {
+      ruleIndexesByFirstToken[i] = postings[i] == null ? new int[0] : Arrays.copyOf(postings[i], postingSizes[i]);
+    }
+    return new RuleTokenIndex(tokenIds, ruleIndexesByFirstToken, sequences, fields);
+  }
+
+  boolean isEmpty() {
+    return tokenIds.size() == 0;
+  }
+
+  BitSet matches(RuleEngine.MatchText text) {
+    BitSet matched = new BitSet();
+    if (isEmpty()) {
+      return matched;
+    }
+    collect(text.bookingText(), RuleMatchField.BOOKING_TEXT, matched);
+    collect(text.partnerName(), RuleMatchField.PARTNER_NAME, matched);
+    return matched;
+  }
+
+  static boolean isTokenSequence(String needle) {
+    if (needle == null || needle.isEmpty()) {
+      return false;
+    }
+    char previous = ' ';
+    for (int i = 0; i < needle.length(); i++) {
+      char c = needle.charAt(i);
+      if (c == ' ') {
+        if (previous == ' ') {
+          return false;
+        }
+      } else if (!isWordChar(c)) {
+        return false;
+      }
+      previous = c;
+    }
+    return previous != ' ';
+  }
+
+  static boolean containsTokens(String text, String needle) {
+    int from = 0;
+    while (true) {
+      int start = text.indexOf(needle, from);
+      if (start < 0) {
+        return false;
+      }
+      int end = start + needle.length();
+      if ((start == 0 || !isWordChar(text.charAt(start - 1)))
+          && (end == text.length() || !isWordChar(text.charAt(end)))) {
+        return true;
+      }
+      from = start + 1;
+    }
+  }
+
+  private void collect(String text, RuleMatchField field, BitSet matched) {
+    TokenizedText tokens = tokenize(text);
+    for (int position = 0; position < tokens.size(); position++) {
+      int tokenId = tokens.ids()[position];
+      if (tokenId < 0) {
+        continue;
+      }
+      for (int ruleIndex : ruleIndexesByFirstToken[tokenId]) {
+        if (matched.get(ruleIndex) || !accepts(matchFieldByRuleIndex[ruleIndex], field)) {
+          continue;
+        }
+        if (sequenceMatches(tokens, position, tokenSequenceByRuleIndex[ruleIndex])) {
+          matched.set(ruleIndex);
+        }
+      }
+    }
+  }
+
+  private boolean sequenceMatches(TokenizedText tokens, int position, int[] sequence) {
+    if (position + sequence.length > tokens.size()) {
+      return false;
+    }
+    for (int i = 1; i < sequence.length; i++) {
+      int current = position + i;
+      if (tokens.ids()[current] != sequence[i] || !tokens.spaceSeparated()[current]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private TokenizedText tokenize(String text) {
+    int[] ids = new int[8];
+    boolean[] spaceSeparated = new boolean[8];
+    int size = 0;
+    int index = 0;
+    int length = text.length();
+    while (index < length) {
+      int start = index;
+      while (start < length && !isWordChar(text.charAt(start))) {
+        start++;
+      }
+      if (start == length) {
+        break;
+      }
+      int end = start;
+      while (end < length && isWordChar(text.charAt(end))) {
+        end++;
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        spaceSeparated = Arrays.copyOf(spaceSeparated, size * 2);
+      }
+      ids[size] = tokenIds.find(text, start, end);
+      spaceSeparated[size] = size > 0 && start - index == 1 && text.charAt(index) == ' ';
+      size++;
+      index = end;
+    }
+    return new TokenizedText(ids, spaceSeparated, size);
+  }
+
+  private static boolean accepts(RuleMatchField ruleField, RuleMatchField textField) {
+    return ruleField == RuleMatchField.BOTH || ruleField == textField;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c);
+  }
+
+  private record TokenizedText(int[] ids, boolean[] spaceSeparated, int size) {}
+
+  /**
+   * Open-addressing map from token to a dense int id. Lookups hash a region of the scanned text
+   * directly, so tokenizing a transaction neither allocates substrings nor boxes ids.
+   */
+  private static final class TokenTable {
+    private String[] keys = new String[16];
+    private int[] ids = new int[16];
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    int add(String token) {
+      int existing = find(token, 0, token.length());
+      if (existing >= 0) {
+        return existing;
+      }
+      if ((size + 1) * 2 > keys.length) {
+        grow();
+      }
+      insert(token, size);
+      return size++;
+    }
+
+    int find(String text, int start, int end) {
+      int length = end - start;
+      int mask = keys.length - 1;
+      for (int slot = hash(text, start, end) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+        String key = keys[slot];
+        if (key.length() == length && key.regionMatches(0, text, start, length)) {
+          return ids[slot];
+        }
+      }
+      return -1;
+    }
+
+    private void insert(String token, int id) {
+      int mask = keys.length - 1;
+      int slot = hash(token, 0, token.length()) & mask;
+      while (keys[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = token;
+      ids[slot] = id;
+    }
+
+    private void grow() {
+      String[] oldKeys = keys;
+      int[] oldIds = ids;
+      keys = new String[oldKeys.length * 2];
+      ids = new int[oldIds.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          insert(oldKeys[i], oldIds[i]);
+        }
+      }
+    }
+
+    private static int hash(String text, int start, int end) {
+      int h = 0;
+      for (int i = start; i < end; i++) {
+        h = 31 * h + text.charAt(i);
+      }
+      return h ^ (h >>> 16);
+    }
+  }
+}
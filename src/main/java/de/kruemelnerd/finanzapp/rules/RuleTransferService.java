@@ -1,13 +1,12 @@
 package de.kruemelnerd.finanzapp.rules;
 
-import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.IOException;
 import java.time.Instant;
@@ -31,23 +30,29 @@ import tools.jackson.databind.ObjectMapper;
 public class RuleTransferService {
   private static final String EXPORT_FORMAT = "finanztool-rules-v1";
 
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final RuleRepository ruleRepository;
   private final CategoryRepository categoryRepository;
-  private final CategoryBootstrapService categoryBootstrapService;
   private final ObjectMapper objectMapper;
+  private final RuleSetCache ruleSetCache;
+  private final RuleOverlapService ruleOverlapService;
+  private final RuleReapplyScheduler ruleReapplyScheduler;
 
   public RuleTransferService(
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       RuleRepository ruleRepository,
       CategoryRepository categoryRepository,
-      CategoryBootstrapService categoryBootstrapService,
-      ObjectMapper objectMapper) {
-    this.userRepository = userRepository;
+      ObjectMapper objectMapper,
+      RuleSetCache ruleSetCache,
+      RuleOverlapService ruleOverlapService,
+      RuleReapplyScheduler ruleReapplyScheduler) {
+    this.currentUserResolver = currentUserResolver;
     this.ruleRepository = ruleRepository;
     this.categoryRepository = categoryRepository;
-    this.categoryBootstrapService = categoryBootstrapService;
     this.objectMapper = objectMapper;
+    this.ruleSetCache = ruleSetCache;
+    this.ruleOverlapService = ruleOverlapService;
+    this.ruleReapplyScheduler = ruleReapplyScheduler;
   }
 
   @Transactional(readOnly = true)
@@ -176,6 +181,9 @@ public class RuleTransferService {
 
     if (!importedRules.isEmpty()) {
       ruleRepository.saveAll(importedRules);
+      ruleSetCache.invalidate(user.get());
+      ruleOverlapService.refresh(user.get());
+      ruleReapplyScheduler.schedule(user.get());
     }
 
     return new ImportResult(ImportStatus.SUCCESS, importedGroupCount, importedRules.size(), null);
@@ -298,14 +306,7 @@ public class RuleTransferService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername())
-        .map(user -> {
-          categoryBootstrapService.ensureDefaultUncategorized(user);
-          return user;
-        });
+    return currentUserResolver.resolve(userDetails);
   }
 
   private record ExportPayload(String format, Instant exportedAt, List<ExportRuleGroup> groups) {}
@@ -20,14 +20,17 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class RulesController {
   private final RuleManagementService ruleManagementService;
   private final RuleTransferService ruleTransferService;
+  private final RuleSimulationService ruleSimulationService;
   private final MessageSource messageSource;
 
   public RulesController(
       RuleManagementService ruleManagementService,
       RuleTransferService ruleTransferService,
+      RuleSimulationService ruleSimulationService,
       MessageSource messageSource) {
     this.ruleManagementService = ruleManagementService;
     this.ruleTransferService = ruleTransferService;
+    this.ruleSimulationService = ruleSimulationService;
     this.messageSource = messageSource;
   }
 
@@ -152,6 +155,16 @@ public class RulesController {
     return "redirect:/rules";
   }
 
+  @GetMapping(value = "/rules/{categoryId}/simulate", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<RuleSimulationService.RuleSimulationResult> simulateRuleGroup(
+      @PathVariable("categoryId") Integer categoryId,
+      @RequestParam(value = "fragmentsText", required = false) String fragmentsText,
+      @AuthenticationPrincipal UserDetails userDetails) {
+    return ruleSimulationService.simulate(userDetails, categoryId, fragmentsText)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
   @PostMapping("/rules/run-all")
   public String runAllRules(
       @AuthenticationPrincipal UserDetails userDetails,
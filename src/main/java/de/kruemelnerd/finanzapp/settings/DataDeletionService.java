@@ -1,9 +1,12 @@
 package de.kruemelnerd.finanzapp.settings;
 
+import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
+import de.kruemelnerd.finanzapp.categories.CategoryTreeCache;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.BalanceDailyRepository;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.time.Instant;
 import org.springframework.stereotype.Service;
@@ -12,19 +15,28 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class DataDeletionService {
   private final TransactionRepository transactionRepository;
+  private final TransactionRuleConflictRepository transactionRuleConflictRepository;
   private final CsvArtifactRepository csvArtifactRepository;
   private final BalanceDailyRepository balanceDailyRepository;
   private final UserRepository userRepository;
+  private final AccountBalanceService accountBalanceService;
+  private final CategoryTreeCache categoryTreeCache;
 
   public DataDeletionService(
       TransactionRepository transactionRepository,
+      TransactionRuleConflictRepository transactionRuleConflictRepository,
       CsvArtifactRepository csvArtifactRepository,
       BalanceDailyRepository balanceDailyRepository,
-      UserRepository userRepository) {
+      UserRepository userRepository,
+      AccountBalanceService accountBalanceService,
+      CategoryTreeCache categoryTreeCache) {
     this.transactionRepository = transactionRepository;
+    this.transactionRuleConflictRepository = transactionRuleConflictRepository;
     this.csvArtifactRepository = csvArtifactRepository;
     this.balanceDailyRepository = balanceDailyRepository;
     this.userRepository = userRepository;
+    this.accountBalanceService = accountBalanceService;
+    this.categoryTreeCache = categoryTreeCache;
   }
 
   @Transactional
@@ -33,13 +45,17 @@ public class DataDeletionService {
     transactionRepository.softDeleteByUser(user, now);
     csvArtifactRepository.softDeleteByUser(user, now);
     balanceDailyRepository.deleteByUser(user);
+    accountBalanceService.invalidate(user);
   }
 
   @Transactional
   public void hardDeleteAccount(User user) {
+    transactionRuleConflictRepository.deleteByUser(user);
     transactionRepository.deleteByUser(user);
     csvArtifactRepository.deleteByUser(user);
     balanceDailyRepository.deleteByUser(user);
+    accountBalanceService.invalidate(user);
+    categoryTreeCache.invalidate(user);
     userRepository.delete(user);
   }
 }
@@ -1,5 +1,6 @@
 package de.kruemelnerd.finanzapp.settings;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.importcsv.CsvImportFlashService;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
@@ -27,6 +28,7 @@ public class SettingsController {
   private final CsvImportFlashService csvImportFlashService;
   private final DataDeletionService dataDeletionService;
   private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final LocaleResolver localeResolver;
   private final MessageSource messageSource;
 
@@ -34,11 +36,13 @@ public class SettingsController {
       CsvImportFlashService csvImportFlashService,
       DataDeletionService dataDeletionService,
       UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       LocaleResolver localeResolver,
       MessageSource messageSource) {
     this.csvImportFlashService = csvImportFlashService;
     this.dataDeletionService = dataDeletionService;
     this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.localeResolver = localeResolver;
     this.messageSource = messageSource;
   }
@@ -76,6 +80,7 @@ public class SettingsController {
 
     user.get().setDisplayName(normalized.isBlank() ? null : normalized);
     userRepository.save(user.get());
+    currentUserResolver.invalidate(user.get());
     redirectAttributes.addFlashAttribute("settingsStatus", "success");
     redirectAttributes.addFlashAttribute("settingsMessage", msg("settings.profileUpdated"));
     return "redirect:/settings";
@@ -98,6 +103,7 @@ public class SettingsController {
     String normalized = normalizeLanguage(language);
     user.get().setLanguage(normalized);
     userRepository.save(user.get());
+    currentUserResolver.invalidate(user.get());
     localeResolver.setLocale(request, response, toLocale(normalized));
     redirectAttributes.addFlashAttribute("settingsStatus", "success");
     redirectAttributes.addFlashAttribute("settingsMessage", msg("settings.languageUpdated"));
@@ -140,6 +146,7 @@ public class SettingsController {
       return "redirect:/login";
     }
     dataDeletionService.hardDeleteAccount(user.get());
+    currentUserResolver.invalidate(user.get());
     new SecurityContextLogoutHandler().logout(
         request,
         response,
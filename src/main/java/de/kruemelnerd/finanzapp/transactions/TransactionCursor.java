@@ -0,0 +1,39 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+record TransactionCursor(LocalDateTime bookingDateTime, Integer id) {
+  private static final char SEPARATOR = '|';
+
+  static TransactionCursor of(Transaction transaction) {
+    return new TransactionCursor(transaction.getBookingDateTime(), transaction.getId());
+  }
+
+  static Optional<TransactionCursor> decode(String token) {
+    if (token == null || token.isBlank()) {
+      return Optional.empty();
+    }
+    try {
+      String payload = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+      int separator = payload.lastIndexOf(SEPARATOR);
+      if (separator <= 0) {
+        return Optional.empty();
+      }
+      return Optional.of(new TransactionCursor(
+          LocalDateTime.parse(payload.substring(0, separator)),
+          Integer.valueOf(payload.substring(separator + 1))));
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      return Optional.empty();
+    }
+  }
+
+  String encode() {
+    String payload = bookingDateTime + String.valueOf(SEPARATOR) + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,64 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import de.kruemelnerd.finanzapp.domain.TransactionDisplayText;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the stored display columns for rows written by an older {@link TransactionDisplayText#VERSION},
+ * so changed sanitizing rules reach existing transactions without another migration.
+ */
+@Component
+public class TransactionDisplayTextRefresher implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(TransactionDisplayTextRefresher.class);
+  private static final int BATCH_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public TransactionDisplayTextRefresher(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int refreshed = refreshStale();
+    if (refreshed > 0) {
+      log.info("Refreshed display text of {} transactions to version {}", refreshed, TransactionDisplayText.VERSION);
+    }
+  }
+
+  int refreshStale() {
+    int refreshed = 0;
+    int lastId = 0;
+    while (true) {
+      List<Object[]> rows = jdbcTemplate.query("""
+          SELECT id, partner_name, purpose_text
+            FROM transactions
+           WHERE id > ? AND display_text_version IS NOT ?
+           ORDER BY id
+           LIMIT ?
+          """, (rs, rowNum) -> new Object[] {
+            TransactionDisplayText.name(rs.getString("partner_name")),
+            TransactionDisplayText.purpose(rs.getString("purpose_text")),
+            TransactionDisplayText.VERSION,
+            rs.getInt("id")
+          }, lastId, TransactionDisplayText.VERSION, BATCH_SIZE);
+      if (rows.isEmpty()) {
+        return refreshed;
+      }
+      jdbcTemplate.batchUpdate(
+          "UPDATE transactions SET display_name = ?, display_purpose = ?, display_text_version = ? WHERE id = ?",
+          rows);
+      refreshed += rows.size();
+      lastId = (Integer) rows.get(rows.size() - 1)[3];
+      if (rows.size() < BATCH_SIZE) {
+        return refreshed;
+      }
+    }
+  }
+}
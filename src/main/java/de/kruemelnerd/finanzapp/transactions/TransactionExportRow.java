@@ -0,0 +1,15 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record TransactionExportRow(
+    Integer id,
+    LocalDate bookingDate,
+    LocalDate valueDate,
+    String name,
+    String purpose,
+    BigDecimal amount,
+    String currency,
+    String status,
+    String category) {}
@@ -0,0 +1,81 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+@Service
+public class TransactionExportService {
+  private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+      .setDelimiter(';')
+      .setHeader("id", "bookingDate", "valueDate", "name", "purpose", "amount", "currency", "status", "category")
+      .build();
+
+  private final TransactionViewService transactionViewService;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  public TransactionExportService(
+      TransactionViewService transactionViewService,
+      ObjectMapper objectMapper,
+      @Value("${app.transactions.export.batch-size:500}") int batchSize) {
+    this.transactionViewService = transactionViewService;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  public Optional<StreamingResponseBody> exportCsv(UserDetails userDetails, TransactionFilterRequest filter) {
+    return transactionViewService.resolveExport(userDetails, filter)
+        .map(query -> out -> {
+          CSVPrinter printer = new CSVPrinter(
+              new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), CSV_FORMAT);
+          stream(query, row -> printer.printRecord(
+              row.id(),
+              row.bookingDate(),
+              row.valueDate(),
+              row.name(),
+              row.purpose(),
+              row.amount().toPlainString(),
+              row.currency(),
+              row.status(),
+              row.category()));
+          printer.flush();
+        });
+  }
+
+  public Optional<StreamingResponseBody> exportJson(UserDetails userDetails, TransactionFilterRequest filter) {
+    return transactionViewService.resolveExport(userDetails, filter)
+        .map(query -> out -> {
+          try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            stream(query, generator::writePOJO);
+            generator.writeEndArray();
+          }
+        });
+  }
+
+  private void stream(TransactionViewService.ExportQuery query, RowWriter writer) throws IOException {
+    String after = null;
+    do {
+      TransactionViewService.ExportBatch batch = transactionViewService.loadExportBatch(query, after, batchSize);
+      for (TransactionExportRow row : batch.rows()) {
+        writer.write(row);
+      }
+      after = batch.nextCursor();
+    } while (after != null);
+  }
+
+  private interface RowWriter {
+    void write(TransactionExportRow row) throws IOException;
+  }
+}
@@ -1,6 +1,7 @@
 package de.kruemelnerd.finanzapp.transactions;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 import org.springframework.web.util.UriComponentsBuilder;
 
 public class TransactionFilterRequest {
@@ -12,6 +13,8 @@ public class TransactionFilterRequest {
   private Integer subcategoryId;
   private Integer parentCategoryId;
   private Integer page;
+  private String after;
+  private String before;
 
   public BigDecimal getMinAmount() {
     return minAmount;
@@ -77,6 +80,26 @@ public class TransactionFilterRequest {
     this.page = page;
   }
 
+  public String getAfter() {
+    return after;
+  }
+
+  public void setAfter(String after) {
+    this.after = after;
+  }
+
+  public String getBefore() {
+    return before;
+  }
+
+  public void setBefore(String before) {
+    this.before = before;
+  }
+
+  public boolean isCursorMode() {
+    return (after != null && !after.isBlank()) || (before != null && !before.isBlank());
+  }
+
   public UriComponentsBuilder applyQueryParams(UriComponentsBuilder builder) {
     return builder
         .queryParam("minAmount", minAmount)
@@ -86,6 +109,8 @@ public class TransactionFilterRequest {
         .queryParam("onlyUncategorized", onlyUncategorized)
         .queryParam("subcategoryId", subcategoryId)
         .queryParam("parentCategoryId", parentCategoryId)
-        .queryParam("page", page);
+        .queryParam("page", page)
+        .queryParamIfPresent("after", Optional.ofNullable(after))
+        .queryParamIfPresent("before", Optional.ofNullable(before));
   }
 }
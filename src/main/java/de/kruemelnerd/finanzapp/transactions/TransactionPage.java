@@ -10,14 +10,15 @@ public record TransactionPage(
     long totalItems,
     Integer categoryIdFilter,
     Integer parentCategoryIdFilter,
-    String categoryFilterLabel) {
+    String categoryFilterLabel,
+    String nextCursor) {
   public TransactionPage(
       List<TransactionRow> rows,
       int page,
       int pageSize,
       int totalPages,
       long totalItems) {
-    this(rows, page, pageSize, totalPages, totalItems, null, null, null);
+    this(rows, page, pageSize, totalPages, totalItems, null, null, null, null);
   }
 
   public boolean hasPreviousPage() {
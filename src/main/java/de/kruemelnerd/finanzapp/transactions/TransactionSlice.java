@@ -0,0 +1,20 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import java.util.List;
+
+public record TransactionSlice(
+    List<TransactionRow> rows,
+    int pageSize,
+    String nextCursor,
+    String previousCursor,
+    Integer categoryIdFilter,
+    Integer parentCategoryIdFilter,
+    String categoryFilterLabel) {
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+
+  public boolean hasPrevious() {
+    return previousCursor != null;
+  }
+}
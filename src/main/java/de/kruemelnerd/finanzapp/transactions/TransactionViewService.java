@@ -1,84 +1,89 @@
 package de.kruemelnerd.finanzapp.transactions;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
+import de.kruemelnerd.finanzapp.common.format.DisplayFormats;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
-import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
-import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.balance.BalanceService;
+import de.kruemelnerd.finanzapp.categories.CategoryTree;
+import de.kruemelnerd.finanzapp.categories.CategoryTreeCache;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
-import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import de.kruemelnerd.finanzapp.repository.RuleConflictName;
+import de.kruemelnerd.finanzapp.repository.TransactionKeysetSpecification;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
-import de.kruemelnerd.finanzapp.repository.UserRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionSearchSpecification;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TransactionViewService {
-  private static final DateTimeFormatter DATE_FORMAT_EN = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-  private static final DateTimeFormatter DATE_FORMAT_DE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
   private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
   private static final BigDecimal HUNDRED = new BigDecimal("100");
   private static final int MAX_PAGE_SIZE = 100;
+  private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("bookingDateTime"), Sort.Order.desc("id"));
+  private static final Sort OLDEST_FIRST = Sort.by(Sort.Order.asc("bookingDateTime"), Sort.Order.asc("id"));
 
   private final TransactionRepository transactionRepository;
-  private final UserRepository userRepository;
+  private final CurrentUserResolver currentUserResolver;
   private final AccountBalanceService accountBalanceService;
-  private final CategoryBootstrapService categoryBootstrapService;
   private final CategoryRepository categoryRepository;
-  private final RuleRepository ruleRepository;
+  private final CategoryTreeCache categoryTreeCache;
+  private final TransactionRuleConflictRepository transactionRuleConflictRepository;
+  private final BalanceService balanceService;
 
   public TransactionViewService(
       TransactionRepository transactionRepository,
-      UserRepository userRepository,
+      CurrentUserResolver currentUserResolver,
       AccountBalanceService accountBalanceService,
-      CategoryBootstrapService categoryBootstrapService,
       CategoryRepository categoryRepository,
-      RuleRepository ruleRepository) {
+      CategoryTreeCache categoryTreeCache,
+      TransactionRuleConflictRepository transactionRuleConflictRepository,
+      BalanceService balanceService) {
     this.transactionRepository = transactionRepository;
-    this.userRepository = userRepository;
+    this.currentUserResolver = currentUserResolver;
     this.accountBalanceService = accountBalanceService;
-    this.categoryBootstrapService = categoryBootstrapService;
     this.categoryRepository = categoryRepository;
-    this.ruleRepository = ruleRepository;
+    this.categoryTreeCache = categoryTreeCache;
+    this.transactionRuleConflictRepository = transactionRuleConflictRepository;
+    this.balanceService = balanceService;
   }
 
+  @Transactional(readOnly = true)
   public List<TransactionRow> loadTransactions(
       UserDetails userDetails,
       BigDecimal minAmount,
       BigDecimal maxAmount,
       String exactName,
       String exactPurpose) {
-    LoadedTransactions loaded = loadFilteredTransactions(
-        userDetails,
-        minAmount,
-        maxAmount,
-        exactName,
-        exactPurpose,
-        false,
-        null,
-        null);
-    return loaded.transactions().stream()
-        .map(tx -> toRow(tx, loaded.locale(), loaded.categoryDisplayById(), loaded.ruleNameById()))
-        .toList();
+    return buildQuery(userDetails, minAmount, maxAmount, exactName, exactPurpose, false, null, null)
+        .map(query -> toRows(transactionRepository.findAll(query.specification(), NEWEST_FIRST), query))
+        .orElse(List.of());
   }
 
+  @Transactional(readOnly = true)
   public TransactionPage loadTransactionsPage(
       UserDetails userDetails,
       BigDecimal minAmount,
@@ -90,7 +95,8 @@ public class TransactionViewService {
       Integer parentCategoryId,
       Integer page,
       Integer pageSize) {
-    LoadedTransactions loaded = loadFilteredTransactions(
+    int safePageSize = normalizePageSize(pageSize);
+    Optional<TransactionQuery> query = buildQuery(
         userDetails,
         minAmount,
         maxAmount,
@@ -99,38 +105,126 @@ public class TransactionViewService {
         onlyUncategorized != null && onlyUncategorized,
         categoryId,
         parentCategoryId);
+    if (query.isEmpty()) {
+      return new TransactionPage(List.of(), 0, safePageSize, 1, 0, null, null, null, null);
+    }
 
-    int safePageSize = normalizePageSize(pageSize);
-    int totalItems = loaded.transactions().size();
-    int totalPages = Math.max(1, (int) Math.ceil(totalItems / (double) safePageSize));
-    int safePage = normalizePage(page, totalPages);
-
-    int fromIndex = safePage * safePageSize;
-    int toIndex = Math.min(fromIndex + safePageSize, totalItems);
-    List<TransactionRow> rows = loaded.transactions().subList(fromIndex, toIndex).stream()
-        .map(tx -> toRow(tx, loaded.locale(), loaded.categoryDisplayById(), loaded.ruleNameById()))
-        .toList();
+    Specification<Transaction> specification = query.get().specification();
+    int requestedPage = page == null || page < 0 ? 0 : page;
+    Page<Transaction> result =
+        transactionRepository.findAll(specification, PageRequest.of(requestedPage, safePageSize, NEWEST_FIRST));
+    int totalPages = Math.max(1, result.getTotalPages());
+    int safePage = normalizePage(requestedPage, totalPages);
+    if (safePage != requestedPage) {
+      result = transactionRepository.findAll(specification, PageRequest.of(safePage, safePageSize, NEWEST_FIRST));
+    }
 
-    CategoryFilter categoryFilter = loaded.categoryFilter();
+    CategoryFilter categoryFilter = query.get().categoryFilter();
+    // The first page hands over a keyset cursor so that paging onward can switch to cursor mode.
+    String nextCursor = safePage == 0 && result.hasNext()
+        ? TransactionCursor.of(result.getContent().get(result.getNumberOfElements() - 1)).encode()
+        : null;
     return new TransactionPage(
-        rows,
+        toRows(result.getContent(), query.get()),
         safePage,
         safePageSize,
         totalPages,
-        totalItems,
+        (int) result.getTotalElements(),
+        categoryFilter.categoryId(),
+        categoryFilter.parentCategoryId(),
+        categoryFilter.label(),
+        nextCursor);
+  }
+
+  @Transactional(readOnly = true)
+  public TransactionSlice loadTransactionsSlice(
+      UserDetails userDetails,
+      BigDecimal minAmount,
+      BigDecimal maxAmount,
+      String nameContains,
+      String purposeContains,
+      Boolean onlyUncategorized,
+      Integer categoryId,
+      Integer parentCategoryId,
+      String after,
+      String before,
+      Integer pageSize) {
+    int safePageSize = normalizePageSize(pageSize);
+    Optional<TransactionQuery> query = buildQuery(
+        userDetails,
+        minAmount,
+        maxAmount,
+        nameContains,
+        purposeContains,
+        onlyUncategorized != null && onlyUncategorized,
+        categoryId,
+        parentCategoryId);
+    if (query.isEmpty()) {
+      return new TransactionSlice(List.of(), safePageSize, null, null, null, null, null);
+    }
+
+    Optional<TransactionCursor> beforeCursor = TransactionCursor.decode(before);
+    Optional<TransactionCursor> afterCursor = beforeCursor.isPresent()
+        ? Optional.empty()
+        : TransactionCursor.decode(after);
+    Specification<Transaction> specification = query.get().specification();
+    List<Transaction> fetched;
+    if (beforeCursor.isPresent()) {
+      TransactionCursor cursor = beforeCursor.get();
+      fetched = fetchSlice(
+          specification.and(TransactionKeysetSpecification.newerThan(cursor.bookingDateTime(), cursor.id())),
+          OLDEST_FIRST,
+          safePageSize);
+    } else if (afterCursor.isPresent()) {
+      TransactionCursor cursor = afterCursor.get();
+      fetched = fetchSlice(
+          specification.and(TransactionKeysetSpecification.olderThan(cursor.bookingDateTime(), cursor.id())),
+          NEWEST_FIRST,
+          safePageSize);
+    } else {
+      fetched = fetchSlice(specification, NEWEST_FIRST, safePageSize);
+    }
+
+    boolean hasMore = fetched.size() > safePageSize;
+    List<Transaction> transactions = hasMore ? fetched.subList(0, safePageSize) : fetched;
+    if (beforeCursor.isPresent()) {
+      transactions = new ArrayList<>(transactions);
+      Collections.reverse(transactions);
+    }
+
+    String nextCursor = null;
+    String previousCursor = null;
+    if (!transactions.isEmpty()) {
+      TransactionCursor first = TransactionCursor.of(transactions.get(0));
+      TransactionCursor last = TransactionCursor.of(transactions.get(transactions.size() - 1));
+      boolean newerExists = beforeCursor.isPresent() ? hasMore : afterCursor.isPresent();
+      boolean olderExists = beforeCursor.isPresent() || hasMore;
+      nextCursor = olderExists ? last.encode() : null;
+      previousCursor = newerExists ? first.encode() : null;
+    }
+
+    CategoryFilter categoryFilter = query.get().categoryFilter();
+    return new TransactionSlice(
+        toRows(transactions, query.get()),
+        safePageSize,
+        nextCursor,
+        previousCursor,
         categoryFilter.categoryId(),
         categoryFilter.parentCategoryId(),
         categoryFilter.label());
   }
 
+  @Transactional(readOnly = true)
   public List<TransactionRow> loadRecent(UserDetails userDetails, int limit) {
-    List<TransactionRow> rows = loadTransactions(userDetails, null, null, null, null);
-    if (rows.size() <= limit) {
-      return rows;
-    }
-    return rows.subList(0, limit);
+    return buildQuery(userDetails, null, null, null, null, false, null, null)
+        .map(query -> toRows(
+            transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDescIdDesc(
+                query.user(), Limit.of(Math.max(1, limit))),
+            query))
+        .orElse(List.of());
   }
 
+  @Transactional(readOnly = true)
   public String loadCurrentBalanceLabel(UserDetails userDetails) {
     Optional<User> user = resolveUser(userDetails);
     if (user.isEmpty()) {
@@ -138,24 +232,63 @@ public class TransactionViewService {
     }
     Locale locale = resolveLocale(user.get());
     return accountBalanceService.computeCurrentBalanceCents(user.get())
-        .map(cents -> formatAmount(cents, locale))
+        .map(cents -> DisplayFormats.money(cents, locale))
         .orElse(null);
   }
 
+  public Optional<ExportQuery> resolveExport(
+      UserDetails userDetails,
+      TransactionFilterRequest filter) {
+    return buildQuery(
+        userDetails,
+        filter.getMinAmount(),
+        filter.getMaxAmount(),
+        filter.getNameContains(),
+        filter.getPurposeContains(),
+        filter.isOnlyUncategorized(),
+        filter.getSubcategoryId(),
+        filter.getParentCategoryId())
+        .map(query -> new ExportQuery(query.specification(), query.categoryTree()));
+  }
+
+  /**
+   * Loads one keyset-bounded export batch in its own short read transaction, so no cursor stays open
+   * (and blocks SQLite writers) while the caller writes the rows to a slow client.
+   */
+  @Transactional(readOnly = true)
+  public ExportBatch loadExportBatch(ExportQuery query, String after, int batchSize) {
+    Specification<Transaction> specification = TransactionCursor.decode(after)
+        .map(cursor -> query.specification()
+            .and(TransactionKeysetSpecification.olderThan(cursor.bookingDateTime(), cursor.id())))
+        .orElse(query.specification());
+    List<Transaction> transactions = transactionRepository.findBy(
+        specification, q -> q.sortBy(NEWEST_FIRST).limit(batchSize).all());
+    if (transactions.isEmpty()) {
+      return new ExportBatch(List.of(), null);
+    }
+
+    List<TransactionExportRow> rows = transactions.stream()
+        .map(tx -> toExportRow(tx, query.categoryTree()))
+        .toList();
+    String nextCursor = transactions.size() < batchSize
+        ? null
+        : TransactionCursor.of(transactions.get(transactions.size() - 1)).encode();
+    return new ExportBatch(rows, nextCursor);
+  }
+
+  @Transactional(readOnly = true)
   public List<TransactionCategoryOption> loadCategoryOptions(UserDetails userDetails) {
     Optional<User> user = resolveUser(userDetails);
     if (user.isEmpty()) {
       return List.of();
     }
 
-    return buildCategoryDisplayById(user.get()).entrySet().stream()
-        .map(entry -> new TransactionCategoryOption(
-            entry.getKey(),
-            entry.getValue().label(),
-            entry.getValue().defaultCategory()))
+    return categoryTreeCache.tree(user.get()).subcategories().stream()
+        .map(node -> new TransactionCategoryOption(node.id(), node.label(), node.defaultCategory()))
         .toList();
   }
 
+  @Transactional
   public boolean setManualCategory(UserDetails userDetails, Integer transactionId, Integer categoryId) {
     if (transactionId == null || categoryId == null) {
       return false;
@@ -180,8 +313,8 @@ public class TransactionViewService {
     tx.setCategory(category.get());
     tx.setCategoryAssignedBy(CategoryAssignedBy.MANUAL);
     tx.setCategoryLocked(true);
-    tx.setRuleConflicts(null);
     transactionRepository.save(tx);
+    transactionRuleConflictRepository.deleteByTransactionIds(List.of(tx.getId()));
     return true;
   }
 
@@ -190,105 +323,70 @@ public class TransactionViewService {
     if (user.isEmpty() || id == null) {
       return false;
     }
+    Optional<Transaction> transaction = transactionRepository.findByIdAndUserAndDeletedAtIsNull(id, user.get());
+    if (transaction.isEmpty()) {
+      return false;
+    }
     int updated = transactionRepository.softDeleteByIdAndUser(id, user.get(), Instant.now());
+    if (updated > 0) {
+      accountBalanceService.recordRemoval(user.get(), transaction.get());
+      balanceService.materializeFrom(user.get(), transaction.get().getBookingDateTime().toLocalDate());
+    }
     return updated > 0;
   }
 
+  private List<TransactionRow> toRows(List<Transaction> transactions, TransactionQuery query) {
+    Map<Integer, String> conflictNamesByTransactionId = loadConflictNames(transactions);
+    return transactions.stream()
+        .map(tx -> toRow(
+            tx,
+            query.locale(),
+            query.categoryTree(),
+            tx.getId() == null ? null : conflictNamesByTransactionId.get(tx.getId())))
+        .toList();
+  }
+
   private TransactionRow toRow(
       Transaction transaction,
       Locale locale,
-      Map<Integer, CategoryDisplay> categoryDisplayById,
-      Map<Integer, String> ruleNameById) {
-    String date = resolveDateFormatter(locale).format(transaction.getBookingDateTime());
-    String time = TIME_FORMAT.format(transaction.getBookingDateTime());
-    String name = sanitizeNameForDisplay(transaction.getPartnerName());
-    String purpose = sanitizePurposeForDisplay(transaction.getPurposeText());
-    String amount = formatAmount(transaction.getAmountCents(), locale);
-
+      CategoryTree categoryTree,
+      String conflictNames) {
     Integer categoryId = transaction.getCategory() == null ? null : transaction.getCategory().getId();
-    CategoryDisplay categoryDisplay = categoryId == null ? null : categoryDisplayById.get(categoryId);
-    String conflictNames = resolveConflictNames(transaction.getRuleConflicts(), ruleNameById);
-
+    CategoryTree.Node categoryNode = categoryTree.subcategory(categoryId).orElse(null);
     return new TransactionRow(
         transaction.getId(),
-        name,
-        purpose,
-        date,
-        time,
+        transaction.getDisplayName(),
+        transaction.getDisplayPurpose(),
+        DisplayFormats.date(locale).format(transaction.getBookingDateTime()),
+        TIME_FORMAT.format(transaction.getBookingDateTime()),
         transaction.getStatus(),
-        amount,
+        DisplayFormats.money(transaction.getAmountCents(), locale),
         categoryId,
-        categoryDisplay == null ? null : categoryDisplay.label(),
-        categoryDisplay != null && categoryDisplay.defaultCategory(),
+        categoryNode == null ? null : categoryNode.label(),
+        categoryNode != null && categoryNode.defaultCategory(),
         transaction.getCategoryAssignedBy() == null ? null : transaction.getCategoryAssignedBy().name(),
         transaction.isCategoryLocked(),
         conflictNames);
   }
 
-  private String sanitizeNameForDisplay(String partnerName) {
-    if (partnerName == null) {
-      return "";
-    }
-    String value = partnerName.trim();
-    if (value.isEmpty()) {
-      return "";
-    }
-    int bookingTextIndex = indexOfIgnoreCase(value, "Buchungstext:");
-    if (bookingTextIndex >= 0) {
-      value = value.substring(0, bookingTextIndex).trim();
-    }
-    int cardIndex = indexOfIgnoreCase(value, "Karte Nr.");
-    if (cardIndex >= 0) {
-      value = value.substring(0, cardIndex).trim();
-    }
-    int referenceIndex = indexOfIgnoreCase(value, "Ref.");
-    if (referenceIndex >= 0) {
-      value = value.substring(0, referenceIndex).trim();
-    }
-    return value;
-  }
-
-  private String sanitizePurposeForDisplay(String purposeText) {
-    if (purposeText == null) {
-      return "";
-    }
-    String value = purposeText.trim();
-    if (value.isEmpty()) {
-      return "";
-    }
-    int bookingTextIndex = indexOfIgnoreCase(value, "Buchungstext:");
-    if (bookingTextIndex >= 0) {
-      value = value.substring(bookingTextIndex + "Buchungstext:".length()).trim();
-    }
-    int cardIndex = indexOfIgnoreCase(value, "Karte Nr.");
-    if (cardIndex >= 0) {
-      value = value.substring(0, cardIndex).trim();
-    }
-    return value;
-  }
-
-  private int indexOfIgnoreCase(String source, String marker) {
-    return source.toLowerCase(Locale.ROOT).indexOf(marker.toLowerCase(Locale.ROOT));
+  private TransactionExportRow toExportRow(Transaction transaction, CategoryTree categoryTree) {
+    Integer categoryId = transaction.getCategory() == null ? null : transaction.getCategory().getId();
+    return new TransactionExportRow(
+        transaction.getId(),
+        transaction.getBookingDateTime().toLocalDate(),
+        transaction.getValueDate(),
+        transaction.getDisplayName(),
+        transaction.getDisplayPurpose(),
+        BigDecimal.valueOf(transaction.getAmountCents(), 2),
+        transaction.getCurrency(),
+        transaction.getStatus(),
+        categoryTree.subcategory(categoryId).map(CategoryTree.Node::label).orElse(null));
   }
 
   private long toCents(BigDecimal amount) {
     return amount.multiply(HUNDRED).setScale(0, RoundingMode.HALF_UP).longValue();
   }
 
-  private String formatAmount(long cents, Locale locale) {
-    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
-    DecimalFormat format = new DecimalFormat("#,##0.00", symbols);
-    format.setGroupingUsed(true);
-    return format.format(cents / 100.0d) + " EUR";
-  }
-
-  private DateTimeFormatter resolveDateFormatter(Locale locale) {
-    if (Locale.GERMAN.getLanguage().equals(locale.getLanguage())) {
-      return DATE_FORMAT_DE;
-    }
-    return DATE_FORMAT_EN;
-  }
-
   private Locale resolveLocale(User user) {
     if ("DE".equalsIgnoreCase(user.getLanguage())) {
       return Locale.GERMANY;
@@ -297,28 +395,18 @@ public class TransactionViewService {
   }
 
   private Optional<User> resolveUser(UserDetails userDetails) {
-    if (userDetails == null || userDetails.getUsername() == null || userDetails.getUsername().isBlank()) {
-      return Optional.empty();
-    }
-    return userRepository.findByEmail(userDetails.getUsername())
-        .map(user -> {
-          categoryBootstrapService.ensureDefaultUncategorized(user);
-          return user;
-        });
+    return currentUserResolver.resolve(userDetails);
   }
 
   private boolean hasText(String value) {
     return value != null && !value.trim().isEmpty();
   }
 
-  private boolean containsIgnoreCase(String source, String normalizedNeedle) {
-    if (source == null) {
-      return false;
-    }
-    return source.toLowerCase(Locale.ROOT).contains(normalizedNeedle);
+  private List<Transaction> fetchSlice(Specification<Transaction> specification, Sort sort, int pageSize) {
+    return transactionRepository.findBy(specification, query -> query.sortBy(sort).limit(pageSize + 1).all());
   }
 
-  private LoadedTransactions loadFilteredTransactions(
+  private Optional<TransactionQuery> buildQuery(
       UserDetails userDetails,
       BigDecimal minAmount,
       BigDecimal maxAmount,
@@ -329,195 +417,69 @@ public class TransactionViewService {
       Integer parentCategoryId) {
     Optional<User> user = resolveUser(userDetails);
     if (user.isEmpty()) {
-      return new LoadedTransactions(List.of(), Locale.ENGLISH, Map.of(), Map.of(), CategoryFilter.empty());
-    }
-
-    List<Transaction> transactions =
-        transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user.get());
-    Locale locale = resolveLocale(user.get());
-    Map<Integer, CategoryDisplay> categoryDisplayById = buildCategoryDisplayById(user.get());
-    CategoryFilter categoryFilter = resolveCategoryFilter(user.get(), categoryDisplayById, categoryId, parentCategoryId);
-
-    if (minAmount != null) {
-      long minCents = Math.abs(toCents(minAmount));
-      transactions = transactions.stream()
-          .filter(tx -> Math.abs(tx.getAmountCents()) >= minCents)
-          .toList();
-    }
-    if (maxAmount != null) {
-      long maxCents = Math.abs(toCents(maxAmount));
-      transactions = transactions.stream()
-          .filter(tx -> Math.abs(tx.getAmountCents()) <= maxCents)
-          .toList();
-    }
-    if (hasText(nameContains)) {
-      String normalized = nameContains.trim().toLowerCase(Locale.ROOT);
-      transactions = transactions.stream()
-          .filter(tx -> containsIgnoreCase(tx.getPartnerName(), normalized))
-          .toList();
-    }
-    if (hasText(purposeContains)) {
-      String normalized = purposeContains.trim().toLowerCase(Locale.ROOT);
-      transactions = transactions.stream()
-          .filter(tx -> containsIgnoreCase(tx.getPurposeText(), normalized))
-          .toList();
-    }
-
-    if (onlyUncategorized) {
-      transactions = transactions.stream()
-          .filter(tx -> isDefaultCategory(tx, categoryDisplayById))
-          .toList();
-    }
-
-    if (categoryFilter.categoryId() != null) {
-      Integer effectiveCategoryId = categoryFilter.categoryId();
-      transactions = transactions.stream()
-          .filter(tx -> tx.getCategory() != null && Objects.equals(tx.getCategory().getId(), effectiveCategoryId))
-          .toList();
-    } else if (categoryFilter.parentCategoryId() != null) {
-      transactions = transactions.stream()
-          .filter(tx -> isInParentCategory(tx, categoryFilter.subcategoryIds()))
-          .toList();
+      return Optional.empty();
     }
 
-    Map<Integer, String> ruleNameById = loadRuleNameById(user.get(), transactions);
-    return new LoadedTransactions(transactions, locale, categoryDisplayById, ruleNameById, categoryFilter);
-  }
-
-  private boolean isInParentCategory(Transaction transaction, Set<Integer> subcategoryIds) {
-    if (transaction.getCategory() == null || transaction.getCategory().getId() == null) {
-      return false;
-    }
-    return subcategoryIds.contains(transaction.getCategory().getId());
+    CategoryTree categoryTree = categoryTreeCache.tree(user.get());
+    CategoryFilter categoryFilter = resolveCategoryFilter(categoryTree, categoryId, parentCategoryId);
+    Set<Integer> categoryIds = categoryFilter.categoryId() != null || categoryFilter.parentCategoryId() != null
+        ? categoryFilter.subcategoryIds()
+        : null;
+    TransactionSearchSpecification specification = new TransactionSearchSpecification(
+        user.get(),
+        minAmount == null ? null : Math.abs(toCents(minAmount)),
+        maxAmount == null ? null : Math.abs(toCents(maxAmount)),
+        hasText(nameContains) ? nameContains : null,
+        hasText(purposeContains) ? purposeContains : null,
+        onlyUncategorized,
+        categoryIds);
+    return Optional.of(new TransactionQuery(
+        user.get(),
+        specification,
+        resolveLocale(user.get()),
+        categoryTree,
+        categoryFilter));
   }
 
-  private CategoryFilter resolveCategoryFilter(
-      User user,
-      Map<Integer, CategoryDisplay> categoryDisplayById,
-      Integer categoryId,
-      Integer parentCategoryId) {
+  private CategoryFilter resolveCategoryFilter(CategoryTree categoryTree, Integer categoryId, Integer parentCategoryId) {
     if (categoryId != null) {
-      Optional<Category> category = categoryRepository.findByIdAndUserAndDeletedAtIsNull(categoryId, user);
-      if (category.isPresent() && category.get().getParent() != null && category.get().getId() != null) {
-        Category current = category.get();
-        CategoryDisplay display = categoryDisplayById.get(current.getId());
-        String label = display == null ? current.getName() : display.label();
-        return new CategoryFilter(current.getId(), null, Set.of(current.getId()), label);
+      Optional<CategoryTree.Node> category = categoryTree.subcategory(categoryId);
+      if (category.isPresent()) {
+        return new CategoryFilter(categoryId, null, Set.of(categoryId), category.get().label());
       }
     }
 
     if (parentCategoryId != null) {
-      Optional<Category> parent = categoryRepository.findByIdAndUserAndDeletedAtIsNull(parentCategoryId, user);
-      if (parent.isPresent() && parent.get().getParent() == null && parent.get().getId() != null) {
-        List<Category> subcategories = categoryRepository.findByUserAndParentAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user, parent.get());
-        Set<Integer> subcategoryIds = subcategories.stream()
-            .map(Category::getId)
-            .filter(Objects::nonNull)
-            .collect(java.util.stream.Collectors.toCollection(LinkedHashSet::new));
-        return new CategoryFilter(null, parent.get().getId(), Set.copyOf(subcategoryIds), parent.get().getName());
+      Optional<CategoryTree.Node> parent = categoryTree.parent(parentCategoryId);
+      if (parent.isPresent()) {
+        return new CategoryFilter(null, parentCategoryId, categoryTree.childIds(parentCategoryId), parent.get().name());
       }
     }
 
     return CategoryFilter.empty();
   }
 
-  private boolean isDefaultCategory(Transaction transaction, Map<Integer, CategoryDisplay> categoryDisplayById) {
-    if (transaction.getCategoryAssignedBy() == CategoryAssignedBy.DEFAULT) {
-      return true;
-    }
-    if (transaction.getCategory() == null || transaction.getCategory().getId() == null) {
-      return false;
-    }
-    CategoryDisplay display = categoryDisplayById.get(transaction.getCategory().getId());
-    return display != null && display.defaultCategory();
-  }
-
-  private Map<Integer, CategoryDisplay> buildCategoryDisplayById(User user) {
-    List<Category> parents = categoryRepository.findByUserAndDeletedAtIsNullAndParentIsNullOrderBySortOrderAscIdAsc(user);
-    if (parents.isEmpty()) {
-      return Map.of();
-    }
-
-    Map<Integer, CategoryDisplay> displayById = new HashMap<>();
-    for (Category parent : parents) {
-      List<Category> children = categoryRepository.findByUserAndParentAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user, parent);
-      for (Category child : children) {
-        if (child.getId() == null) {
-          continue;
-        }
-        String label = parent.getName() + " -> " + child.getName();
-        displayById.put(child.getId(), new CategoryDisplay(label, child.isDefault()));
-      }
-    }
-    return displayById;
-  }
-
-  private Map<Integer, String> loadRuleNameById(User user, List<Transaction> transactions) {
-    Set<Integer> ruleIds = new HashSet<>();
-    for (Transaction transaction : transactions) {
-      ruleIds.addAll(parseConflictIds(transaction.getRuleConflicts()));
-    }
-    if (ruleIds.isEmpty()) {
-      return Map.of();
-    }
-
-    List<Rule> rules = ruleRepository.findByUserAndIdInAndDeletedAtIsNull(user, List.copyOf(ruleIds));
-    Map<Integer, String> names = new HashMap<>();
-    for (Rule rule : rules) {
-      if (rule.getId() != null) {
-        names.put(rule.getId(), rule.getName());
-      }
-    }
-    return names;
-  }
-
-  private String resolveConflictNames(String ruleConflicts, Map<Integer, String> ruleNameById) {
-    List<Integer> ids = parseConflictIds(ruleConflicts);
-    if (ids.isEmpty()) {
-      return null;
-    }
-
-    List<String> names = ids.stream()
-        .map(id -> ruleNameById.getOrDefault(id, "#" + id))
+  private Map<Integer, String> loadConflictNames(List<Transaction> transactions) {
+    List<Integer> transactionIds = transactions.stream()
+        .map(Transaction::getId)
+        .filter(Objects::nonNull)
         .toList();
-    return String.join(", ", names);
-  }
-
-  private List<Integer> parseConflictIds(String raw) {
-    if (!hasText(raw)) {
-      return List.of();
+    if (transactionIds.isEmpty()) {
+      return Map.of();
     }
 
-    String cleaned = raw.trim();
-    if (cleaned.startsWith("[")) {
-      cleaned = cleaned.substring(1);
-    }
-    if (cleaned.endsWith("]")) {
-      cleaned = cleaned.substring(0, cleaned.length() - 1);
-    }
-    if (cleaned.isBlank()) {
-      return List.of();
+    Map<Integer, List<String>> namesByTransactionId = new HashMap<>();
+    for (RuleConflictName conflict : transactionRuleConflictRepository.findConflictNamesByTransactionIds(transactionIds)) {
+      String name = conflict.ruleName() == null ? "#" + conflict.ruleId() : conflict.ruleName();
+      namesByTransactionId.computeIfAbsent(conflict.transactionId(), key -> new java.util.ArrayList<>()).add(name);
     }
 
-    List<Integer> ids = new java.util.ArrayList<>();
-    for (String token : cleaned.split(",")) {
-      String trimmed = token.trim();
-      if (trimmed.isBlank()) {
-        continue;
-      }
-      try {
-        ids.add(Integer.parseInt(trimmed));
-      } catch (NumberFormatException ignored) {
-        // keep robust against malformed legacy values
-      }
-    }
-    return ids;
+    Map<Integer, String> conflictNames = new HashMap<>();
+    namesByTransactionId.forEach((transactionId, names) -> conflictNames.put(transactionId, String.join(", ", names)));
+    return conflictNames;
   }
 
-  private int normalizePage(Integer page, int totalPages) {
-    if (page == null || page < 0) {
-      return 0;
-    }
+  private int normalizePage(int page, int totalPages) {
     return Math.min(page, totalPages - 1);
   }
 
@@ -528,11 +490,15 @@ public class TransactionViewService {
     return Math.min(pageSize, MAX_PAGE_SIZE);
   }
 
-  private record LoadedTransactions(
-      List<Transaction> transactions,
+  public record ExportQuery(Specification<Transaction> specification, CategoryTree categoryTree) {}
+
+  public record ExportBatch(List<TransactionExportRow> rows, String nextCursor) {}
+
+  private record TransactionQuery(
+      User user,
+      TransactionSearchSpecification specification,
       Locale locale,
-      Map<Integer, CategoryDisplay> categoryDisplayById,
-      Map<Integer, String> ruleNameById,
+      CategoryTree categoryTree,
       CategoryFilter categoryFilter) {}
 
   private record CategoryFilter(
@@ -544,6 +510,4 @@ public class TransactionViewService {
       return new CategoryFilter(null, null, Set.of(), null);
     }
   }
-
-  private record CategoryDisplay(String label, boolean defaultCategory) {}
 }
@@ -1,7 +1,15 @@
 package de.kruemelnerd.finanzapp.transactions;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -12,7 +20,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
@@ -20,13 +31,19 @@ public class TransactionsController {
   private static final int PAGE_SIZE = 10;
 
   private final TransactionViewService transactionViewService;
+  private final TransactionExportService transactionExportService;
   private final MessageSource messageSource;
+  private final Duration exportTimeout;
 
   public TransactionsController(
       TransactionViewService transactionViewService,
-      MessageSource messageSource) {
+      TransactionExportService transactionExportService,
+      MessageSource messageSource,
+      @Value("${app.transactions.export.timeout:PT10M}") Duration exportTimeout) {
     this.transactionViewService = transactionViewService;
+    this.transactionExportService = transactionExportService;
     this.messageSource = messageSource;
+    this.exportTimeout = exportTimeout;
   }
 
   @GetMapping("/transactions")
@@ -50,6 +67,50 @@ public class TransactionsController {
     return "transactions";
   }
 
+  @GetMapping("/api/transactions")
+  @ResponseBody
+  public TransactionSlice transactionsSlice(
+      @AuthenticationPrincipal UserDetails userDetails,
+      @ModelAttribute TransactionFilterRequest filter,
+      @RequestParam(name = "limit", defaultValue = "50") int limit) {
+    return transactionViewService.loadTransactionsSlice(
+        userDetails,
+        filter.getMinAmount(),
+        filter.getMaxAmount(),
+        filter.getNameContains(),
+        filter.getPurposeContains(),
+        filter.isOnlyUncategorized(),
+        filter.getSubcategoryId(),
+        filter.getParentCategoryId(),
+        filter.getAfter(),
+        filter.getBefore(),
+        limit);
+  }
+
+  @GetMapping("/transactions/export.csv")
+  public ResponseEntity<StreamingResponseBody> exportCsv(
+      @AuthenticationPrincipal UserDetails userDetails,
+      @ModelAttribute TransactionFilterRequest filter,
+      HttpServletRequest request) {
+    return exportResponse(
+        request,
+        transactionExportService.exportCsv(userDetails, filter),
+        new MediaType("text", "csv", StandardCharsets.UTF_8),
+        "transactions-export.csv");
+  }
+
+  @GetMapping("/transactions/export.json")
+  public ResponseEntity<StreamingResponseBody> exportJson(
+      @AuthenticationPrincipal UserDetails userDetails,
+      @ModelAttribute TransactionFilterRequest filter,
+      HttpServletRequest request) {
+    return exportResponse(
+        request,
+        transactionExportService.exportJson(userDetails, filter),
+        MediaType.APPLICATION_JSON,
+        "transactions-export.json");
+  }
+
   @PostMapping("/transactions/{id}/delete")
   public String delete(
       @PathVariable("id") Integer id,
@@ -111,6 +172,7 @@ public class TransactionsController {
     model.addAttribute("hasNextPage", transactionPage.hasNextPage());
     model.addAttribute("previousPage", transactionPage.previousPage());
     model.addAttribute("nextPage", transactionPage.nextPage());
+    model.addAttribute("nextCursor", transactionPage.nextCursor());
   }
 
   private TransactionPage loadTransactionPage(
@@ -138,6 +200,21 @@ public class TransactionsController {
     model.addAttribute("categoryOptions", transactionViewService.loadCategoryOptions(userDetails));
   }
 
+  private ResponseEntity<StreamingResponseBody> exportResponse(
+      HttpServletRequest request,
+      Optional<StreamingResponseBody> body,
+      MediaType contentType,
+      String filename) {
+    // Large exports outlive the default async timeout; raise it for this request only.
+    WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+    return body
+        .map(stream -> ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(stream))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
   private String msg(String key, Object... args) {
     return messageSource.getMessage(key, args, LocaleContextHolder.getLocale());
   }
@@ -0,0 +1 @@
+CREATE INDEX idx_transactions_user_id ON transactions(user_id, id);
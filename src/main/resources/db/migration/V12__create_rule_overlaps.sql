@@ -0,0 +1,15 @@
+CREATE TABLE rule_overlaps (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  user_id INTEGER NOT NULL,
+  rule_id INTEGER NOT NULL,
+  overlapping_rule_id INTEGER NOT NULL,
+  overlap_type TEXT NOT NULL CHECK (overlap_type IN ('IMPLIES', 'SHARED_TEXT')),
+  analysed_at TIMESTAMP NOT NULL,
+  CONSTRAINT fk_rule_overlaps_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+  CONSTRAINT fk_rule_overlaps_rule FOREIGN KEY (rule_id) REFERENCES rules(id) ON DELETE CASCADE,
+  CONSTRAINT fk_rule_overlaps_overlapping_rule FOREIGN KEY (overlapping_rule_id) REFERENCES rules(id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX idx_rule_overlaps_pair ON rule_overlaps(rule_id, overlapping_rule_id);
+CREATE INDEX idx_rule_overlaps_user ON rule_overlaps(user_id);
+CREATE INDEX idx_rule_overlaps_overlapping_rule ON rule_overlaps(overlapping_rule_id);
@@ -0,0 +1,17 @@
+CREATE TABLE transaction_rule_conflicts (
+  transaction_id INTEGER NOT NULL,
+  rule_id INTEGER NOT NULL,
+  PRIMARY KEY (transaction_id, rule_id),
+  CONSTRAINT fk_transaction_rule_conflicts_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE,
+  CONSTRAINT fk_transaction_rule_conflicts_rule FOREIGN KEY (rule_id) REFERENCES rules(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_transaction_rule_conflicts_rule ON transaction_rule_conflicts(rule_id, transaction_id);
+
+INSERT OR IGNORE INTO transaction_rule_conflicts (transaction_id, rule_id)
+SELECT t.id, CAST(j.value AS INTEGER)
+FROM transactions t,
+     json_each(CASE WHEN json_valid(t.rule_conflicts) AND json_type(t.rule_conflicts) = 'array' THEN t.rule_conflicts END) j
+WHERE CAST(j.value AS INTEGER) IN (SELECT id FROM rules);
+
+ALTER TABLE transactions DROP COLUMN rule_conflicts;
@@ -0,0 +1,14 @@
+CREATE TABLE rule_rerun_checkpoints (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  batch_id TEXT NOT NULL,
+  user_id INTEGER NOT NULL,
+  status TEXT NOT NULL CHECK (status IN ('DONE', 'FAILED')),
+  updated_transactions INTEGER NOT NULL DEFAULT 0,
+  scanned_transactions INTEGER NOT NULL DEFAULT 0,
+  duration_ms BIGINT NOT NULL DEFAULT 0,
+  error_message TEXT,
+  finished_at TIMESTAMP NOT NULL,
+  CONSTRAINT fk_rule_rerun_checkpoints_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX idx_rule_rerun_checkpoints_batch_user ON rule_rerun_checkpoints(batch_id, user_id);
@@ -0,0 +1,2 @@
+ALTER TABLE transactions ADD COLUMN match_booking_text TEXT;
+ALTER TABLE transactions ADD COLUMN match_partner_name TEXT;
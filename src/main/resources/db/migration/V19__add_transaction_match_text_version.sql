@@ -0,0 +1 @@
+ALTER TABLE transactions ADD COLUMN match_text_version INTEGER;
@@ -0,0 +1,2 @@
+ALTER TABLE transactions ADD COLUMN display_text_version INTEGER;
+UPDATE transactions SET display_text_version = 1 WHERE display_name IS NOT NULL;
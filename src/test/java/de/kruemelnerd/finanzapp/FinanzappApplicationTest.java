@@ -0,0 +1,27 @@
+package de.kruemelnerd.finanzapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class FinanzappApplicationTest {
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void contextStartsWithSchemaValidationNextToTextSearchIndex() {
+    Integer ftsTables = jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name = 'transactions_fts'", Integer.class);
+
+    assertThat(ftsTables).isEqualTo(1);
+    assertThat(entityManagerFactory.isOpen()).isTrue();
+  }
+}
@@ -0,0 +1,88 @@
+package de.kruemelnerd.finanzapp.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserResolverTest {
+  @Mock
+  private UserRepository userRepository;
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void resolveLoadsUserOncePerRequest() {
+    CurrentUserResolver resolver = new CurrentUserResolver(userRepository, Duration.ZERO);
+    User user = user("user@example.com");
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    assertThat(resolver.resolve(principal("user@example.com"))).containsSame(user);
+    assertThat(resolver.resolve(principal("user@example.com"))).containsSame(user);
+    verify(userRepository, times(1)).findByEmail("user@example.com");
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    resolver.resolve(principal("user@example.com"));
+    verify(userRepository, times(2)).findByEmail("user@example.com");
+  }
+
+  @Test
+  void resolveReusesUserAcrossRequestsUntilInvalidated() {
+    CurrentUserResolver resolver = new CurrentUserResolver(userRepository, Duration.ofMinutes(1));
+    User user = user("user@example.com");
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+
+    resolver.resolve(principal("user@example.com"));
+    resolver.resolve(principal("user@example.com"));
+    verify(userRepository, times(1)).findByEmail("user@example.com");
+
+    resolver.invalidate(user);
+    resolver.resolve(principal("user@example.com"));
+    verify(userRepository, times(2)).findByEmail("user@example.com");
+  }
+
+  @Test
+  void resolveDoesNotRememberMissingUsers() {
+    CurrentUserResolver resolver = new CurrentUserResolver(userRepository, Duration.ofMinutes(1));
+    when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
+
+    assertThat(resolver.resolve(principal("new@example.com"))).isEmpty();
+    assertThat(resolver.resolve(principal("new@example.com"))).isEmpty();
+    assertThat(resolver.resolve(null)).isEmpty();
+    verify(userRepository, times(2)).findByEmail("new@example.com");
+  }
+
+  private User user(String email) {
+    User user = new User();
+    user.setEmail(email);
+    user.setPasswordHash("hashed");
+    return user;
+  }
+
+  private UserDetails principal(String email) {
+    return org.springframework.security.core.userdetails.User
+        .withUsername(email)
+        .password("hashed")
+        .roles("USER")
+        .build();
+  }
+}
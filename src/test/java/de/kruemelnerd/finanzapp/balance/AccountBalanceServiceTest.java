@@ -2,6 +2,8 @@ package de.kruemelnerd.finanzapp.balance;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import de.kruemelnerd.finanzapp.domain.CsvArtifact;
@@ -9,19 +11,24 @@ import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.importcsv.CsvParser;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
+import de.kruemelnerd.finanzapp.repository.BookingSlotSum;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -54,8 +61,7 @@ class AccountBalanceServiceTest {
     Transaction tx2 = tx(user, LocalDateTime.of(2026, 1, 2, 0, 0), 3000L);
 
     when(csvArtifactRepository.findByUserAndDeletedAtIsNull(eq(user))).thenReturn(List.of(artifact));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(tx2, tx1));
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(slotSums(List.of(tx2, tx1)));
 
     Optional<Long> current = service.computeCurrentBalanceCents(user);
     List<BalancePoint> points = service.computeRange(user, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 3));
@@ -84,14 +90,13 @@ class AccountBalanceServiceTest {
     Transaction tx = tx(user, LocalDateTime.of(2026, 1, 1, 0, 0), 2000L);
 
     when(csvArtifactRepository.findByUserAndDeletedAtIsNull(eq(user))).thenReturn(List.of(artifact));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(tx));
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(slotSums(List.of(tx)));
 
     Optional<Long> current = service.computeCurrentBalanceCents(user);
     assertThat(current).contains(15000L);
 
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of());
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(List.of());
+    service.invalidate(user);
 
     Optional<Long> afterDelete = service.computeCurrentBalanceCents(user);
     assertThat(afterDelete).contains(13000L);
@@ -132,8 +137,7 @@ class AccountBalanceServiceTest {
 
     when(csvArtifactRepository.findByUserAndDeletedAtIsNull(eq(user)))
         .thenReturn(List.of(latest, middle, oldest));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(activeTransactions);
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(slotSums(activeTransactions));
 
     Optional<Long> current = service.computeCurrentBalanceCents(user);
 
@@ -172,21 +176,116 @@ class AccountBalanceServiceTest {
 
     when(csvArtifactRepository.findByUserAndDeletedAtIsNull(eq(user)))
         .thenReturn(List.of(artifact1, artifact2, artifact3));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(active);
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(slotSums(active));
 
     Optional<Long> current = service.computeCurrentBalanceCents(user);
 
     assertThat(current).contains(-198224L);
   }
 
+  @Test
+  void keepsIndexInMemoryAndAppliesImportsAndRemovalsIncrementally() {
+    AccountBalanceService service = new AccountBalanceService(transactionRepository, csvArtifactRepository);
+    User user = user(5);
+
+    CsvArtifact artifact = artifact(String.join("\n",
+        "Neuer Kontostand;150,00 EUR",
+        "Alter Kontostand;100,00 EUR",
+        "Buchungstag;Wertstellung (Valuta);Vorgang;Buchungstext;Umsatz in EUR",
+        "02.01.2026;02.01.2026;SONSTIGES;Buchungstext: Zwei;30,00",
+        "01.01.2026;01.01.2026;SONSTIGES;Buchungstext: Eins;20,00"));
+    Transaction tx1 = tx(user, LocalDateTime.of(2026, 1, 1, 0, 0), 2000L);
+    Transaction tx2 = tx(user, LocalDateTime.of(2026, 1, 2, 0, 0), 3000L);
+    when(csvArtifactRepository.findByUserAndDeletedAtIsNull(eq(user))).thenReturn(List.of(artifact));
+    when(transactionRepository.sumActiveAmountBySlot(user.getId())).thenReturn(slotSums(List.of(tx2, tx1)));
+
+    assertThat(service.computeCurrentBalanceCents(user)).contains(15000L);
+    assertThat(service.computeRange(user, LocalDate.of(2025, 12, 31), LocalDate.of(2026, 1, 2)))
+        .extracting(BalancePoint::balanceCents)
+        .containsExactly(10000L, 12000L, 15000L);
+
+    service.recordRemoval(user, tx1);
+    Transaction imported = tx(user, LocalDateTime.of(2026, 1, 5, 9, 0), -500L);
+    service.recordImport(user, List.of(imported));
+
+    assertThat(service.computeRange(user, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 5)))
+        .extracting(BalancePoint::balanceCents)
+        .containsExactly(10000L, 13000L, 13000L, 13000L, 12500L);
+    verify(transactionRepository, times(1)).sumActiveAmountBySlot(5);
+    verify(csvArtifactRepository, times(2)).findByUserAndDeletedAtIsNull(user);
+  }
+
+  @Test
+  void dailyBalanceIndexAnswersPrefixSumsAndExtendsOnDeltas() {
+    DailyBalanceIndex index = DailyBalanceIndex.of(Map.of(
+        LocalDate.of(2026, 1, 2), 100L,
+        LocalDate.of(2026, 1, 4), -30L));
+
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 1))).isZero();
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 3))).isEqualTo(100L);
+    assertThat(index.sumThrough(LocalDate.of(2027, 1, 1))).isEqualTo(70L);
+
+    DailyBalanceIndex extended = index.withDeltas(Map.of(
+        LocalDate.of(2025, 12, 31), 5L,
+        LocalDate.of(2026, 1, 6), 1L));
+
+    assertThat(extended.sumThrough(LocalDate.of(2025, 12, 31))).isEqualTo(5L);
+    assertThat(extended.sumThrough(LocalDate.of(2026, 1, 4))).isEqualTo(75L);
+    assertThat(extended.sumThrough(LocalDate.of(2026, 1, 6))).isEqualTo(76L);
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 6))).isEqualTo(70L);
+  }
+
+  @Test
+  void dailyBalanceIndexBuildsFromSortedDaySums() {
+    DailyBalanceIndex index = DailyBalanceIndex.ofSortedDays(
+        new long[] {LocalDate.of(2026, 1, 2).toEpochDay(), LocalDate.of(2026, 1, 4).toEpochDay()},
+        new long[] {100L, -30L});
+
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 1))).isZero();
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 3))).isEqualTo(100L);
+    assertThat(index.sumThrough(LocalDate.of(2026, 1, 4))).isEqualTo(70L);
+    assertThat(DailyBalanceIndex.ofSortedDays(new long[0], new long[0]).isEmpty()).isTrue();
+  }
+
   private User user() {
+    return user(1);
+  }
+
+  private User user(int id) {
     User user = new User();
     user.setEmail("user@example.com");
     user.setPasswordHash("hashed");
+    try {
+      Field idField = User.class.getDeclaredField("id");
+      idField.setAccessible(true);
+      idField.set(user, id);
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(ex);
+    }
     return user;
   }
 
+  private List<BookingSlotSum> slotSums(List<Transaction> transactions) {
+    Map<Long, Long> sums = new TreeMap<>();
+    for (Transaction tx : transactions) {
+      long slotStartMillis = Timestamp.valueOf(tx.getBookingDateTime()).getTime() / 900_000L * 900_000L;
+      sums.merge(slotStartMillis, tx.getAmountCents(), Long::sum);
+    }
+    List<BookingSlotSum> rows = new ArrayList<>();
+    sums.forEach((slotStartMillis, cents) -> rows.add(new BookingSlotSum() {
+      @Override
+      public long getSlotStartMillis() {
+        return slotStartMillis;
+      }
+
+      @Override
+      public long getAmountCents() {
+        return cents;
+      }
+    }));
+    return rows;
+  }
+
   private Transaction tx(User user, LocalDateTime dateTime, long cents) {
     Transaction tx = new Transaction();
     tx.setUser(user);
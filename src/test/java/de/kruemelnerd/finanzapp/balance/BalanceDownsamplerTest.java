@@ -0,0 +1,41 @@
+package de.kruemelnerd.finanzapp.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BalanceDownsamplerTest {
+  @Test
+  void keepsShortSeriesUnchanged() {
+    List<BalancePoint> points = series(30);
+
+    assertThat(BalanceDownsampler.largestTriangleThreeBuckets(points, 100)).isSameAs(points);
+  }
+
+  @Test
+  void reducesLongSeriesToTargetAndKeepsEndpointsAndSpikes() {
+    List<BalancePoint> points = series(3 * 365);
+    LocalDate spikeDate = points.get(400).date();
+    points.set(400, new BalancePoint(spikeDate, 1_000_000L));
+
+    List<BalancePoint> sampled = BalanceDownsampler.largestTriangleThreeBuckets(points, 200);
+
+    assertThat(sampled).hasSize(200);
+    assertThat(sampled.get(0)).isEqualTo(points.get(0));
+    assertThat(sampled.get(199)).isEqualTo(points.get(points.size() - 1));
+    assertThat(sampled).extracting(BalancePoint::date).isSorted().doesNotHaveDuplicates();
+    assertThat(sampled).contains(new BalancePoint(spikeDate, 1_000_000L));
+  }
+
+  private List<BalancePoint> series(int days) {
+    LocalDate start = LocalDate.of(2023, 1, 1);
+    List<BalancePoint> points = new ArrayList<>();
+    for (int i = 0; i < days; i++) {
+      points.add(new BalancePoint(start.plusDays(i), 10_000L + (i % 7) * 100L));
+    }
+    return points;
+  }
+}
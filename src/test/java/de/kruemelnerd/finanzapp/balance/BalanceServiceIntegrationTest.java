@@ -0,0 +1,80 @@
+package de.kruemelnerd.finanzapp.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.kruemelnerd.finanzapp.domain.BalanceDaily;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.importcsv.CsvImportService;
+import de.kruemelnerd.finanzapp.repository.BalanceDailyRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class BalanceServiceIntegrationTest {
+  @Autowired
+  private BalanceService balanceService;
+
+  @Autowired
+  private CsvImportService csvImportService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private BalanceDailyRepository balanceDailyRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void upsertedDaysCollideWithDaysWrittenThroughJpa() throws Exception {
+    User user = new User();
+    user.setEmail("balance-" + UUID.randomUUID() + "@example.com");
+    user.setPasswordHash("hashed");
+    user = userRepository.saveAndFlush(user);
+    byte[] csv;
+    try (InputStream in = getClass().getResourceAsStream("/fixtures/sample-import.csv")) {
+      csv = in.readAllBytes();
+    }
+    csvImportService.importCsv(user, "sample-import.csv", "text/csv", csv);
+    long days = ChronoUnit.DAYS.between(LocalDate.of(2026, 1, 31), LocalDate.now()) + 1;
+    assertThat(rowCount(user)).isEqualTo(days);
+
+    LocalDate day = LocalDate.of(2026, 2, 2);
+    balanceDailyRepository.deleteAll(balanceDailyRepository.findByUserAndDateBetween(user, day, day));
+    balanceDailyRepository.flush();
+    BalanceDaily written = new BalanceDaily();
+    written.setUser(user);
+    written.setDate(day);
+    written.setBalanceCentsEndOfDay(-1L);
+    balanceDailyRepository.saveAndFlush(written);
+
+    balanceService.materializeFrom(user, day);
+
+    assertThat(rowCount(user)).isEqualTo(days);
+    assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(DISTINCT typeof(date)) FROM balance_daily WHERE user_id = ?", Integer.class, user.getId()))
+        .isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject(
+            "SELECT balance_cents_end_of_day FROM balance_daily WHERE id = ?", Long.class, written.getId()))
+        .isEqualTo(38762L);
+    assertThat(balanceDailyRepository.findByUserAndDate(user, day))
+        .get()
+        .extracting(BalanceDaily::getId)
+        .isEqualTo(written.getId());
+  }
+
+  private long rowCount(User user) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM balance_daily WHERE user_id = ?", Long.class, user.getId());
+  }
+}
@@ -1,85 +1,202 @@
 package de.kruemelnerd.finanzapp.balance;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 import de.kruemelnerd.finanzapp.domain.BalanceDaily;
-import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.BalanceDailyRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import java.lang.reflect.Field;
+import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 class BalanceServiceTest {
+  private BalanceDailyRepository balanceDailyRepository;
+  private TransactionRepository transactionRepository;
+  private AccountBalanceService accountBalanceService;
+  private JdbcTemplate jdbcTemplate;
+  private BalanceService service;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    balanceDailyRepository = mock(BalanceDailyRepository.class);
+    transactionRepository = mock(TransactionRepository.class);
+    accountBalanceService = mock(AccountBalanceService.class);
+    jdbcTemplate = mock(JdbcTemplate.class);
+    service = new BalanceService(balanceDailyRepository, transactionRepository, accountBalanceService, jdbcTemplate);
+
+    user = new User();
+    user.setEmail("user@example.com");
+    user.setPasswordHash("hashed");
+  }
+
   @Test
-  void computeLast30DaysProducesDailyPoints() {
-    BalanceService service = new BalanceService(null);
+  void materializeFromUpsertsOnlyAffectedTailWhenEarlierDaysAreUnchanged() {
     LocalDate today = LocalDate.now();
+    LocalDate affected = today.minusDays(1);
+    when(transactionRepository.findFirstActiveBookingDateTime(user))
+        .thenReturn(today.minusDays(100).atStartOfDay());
+    when(balanceDailyRepository.findByUserAndDate(user, today.minusDays(2)))
+        .thenReturn(Optional.of(balanceDaily(today.minusDays(2), 500L)));
+    when(accountBalanceService.computeRange(user, today.minusDays(2), today.minusDays(2)))
+        .thenReturn(List.of(new BalancePoint(today.minusDays(2), 500L)));
+    when(accountBalanceService.computeRange(user, affected, today))
+        .thenReturn(List.of(new BalancePoint(affected, 450L), new BalancePoint(today, 400L)));
+
+    service.materializeFrom(user, affected);
+
+    ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+    assertThat(captor.getValue())
+        .extracting(row -> row[1], row -> row[2])
+        .containsExactly(
+            tuple(Date.valueOf(affected), 450L),
+            tuple(Date.valueOf(today), 400L));
+    verify(balanceDailyRepository).deleteByUserAndDateBefore(user, today.minusDays(101));
+  }
 
-    Transaction yesterday = new Transaction();
-    yesterday.setBookingDateTime(LocalDateTime.of(today.minusDays(1), java.time.LocalTime.NOON));
-    yesterday.setAmountCents(-2000L);
+  @Test
+  void materializeIfStaleSkipsWhenTodaysBalanceIsAlreadyStored() {
+    LocalDate today = LocalDate.now();
+    when(balanceDailyRepository.findByUserAndDate(user, today)).thenReturn(Optional.of(balanceDaily(today, 400L)));
+    when(accountBalanceService.computeRange(user, today, today)).thenReturn(List.of(new BalancePoint(today, 400L)));
 
-    Transaction todayTx = new Transaction();
-    todayTx.setBookingDateTime(LocalDateTime.of(today, java.time.LocalTime.of(9, 0)));
-    todayTx.setAmountCents(5000L);
+    service.materializeIfStale(user);
 
-    List<BalancePoint> points = service.computeLast30Days(10000L, List.of(yesterday, todayTx));
+    verify(transactionRepository, never()).findFirstActiveBookingDateTime(user);
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
 
-    assertThat(points).hasSize(30);
-    BalancePoint lastPoint = points.get(points.size() - 1);
-    assertThat(lastPoint.date()).isEqualTo(today);
-    assertThat(lastPoint.balanceCents()).isEqualTo(13000L);
+  @Test
+  void materializeIfStaleUpsertsTodayWhenSnapshotShiftedBalance() {
+    LocalDate today = LocalDate.now();
+    LocalDate yesterday = today.minusDays(1);
+    when(balanceDailyRepository.findByUserAndDate(user, today)).thenReturn(Optional.of(balanceDaily(today, 400L)));
+    when(accountBalanceService.computeRange(user, today, today)).thenReturn(List.of(new BalancePoint(today, 900L)));
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(today.minusDays(10).atTime(9, 0));
+    when(balanceDailyRepository.findByUserAndDate(user, yesterday))
+        .thenReturn(Optional.of(balanceDaily(yesterday, 900L)));
+    when(accountBalanceService.computeRange(user, yesterday, yesterday))
+        .thenReturn(List.of(new BalancePoint(yesterday, 900L)));
+
+    service.materializeIfStale(user);
+
+    verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+  }
 
-    BalancePoint yesterdayPoint = points.get(points.size() - 2);
-    assertThat(yesterdayPoint.date()).isEqualTo(today.minusDays(1));
-    assertThat(yesterdayPoint.balanceCents()).isEqualTo(8000L);
+  @Test
+  void materializeFromRecomputesFullHistoryWhenEarlierBalanceShifted() {
+    LocalDate today = LocalDate.now();
+    LocalDate historyStart = today.minusDays(3);
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(today.minusDays(2).atTime(9, 0));
+    when(balanceDailyRepository.findByUserAndDate(user, today.minusDays(1)))
+        .thenReturn(Optional.of(balanceDaily(today.minusDays(1), 500L)));
+    when(accountBalanceService.computeRange(user, today.minusDays(1), today.minusDays(1)))
+        .thenReturn(List.of(new BalancePoint(today.minusDays(1), 700L)));
+    when(accountBalanceService.computeRange(user, historyStart, today))
+        .thenReturn(List.of(new BalancePoint(historyStart, 100L)));
+
+    service.materializeFrom(user, today);
+
+    verify(accountBalanceService).computeRange(user, historyStart, today);
+    verify(jdbcTemplate).batchUpdate(anyString(), anyList());
   }
 
   @Test
-  void materializeLast30DaysPersistsEntries() {
-    BalanceDailyRepository repository = mock(BalanceDailyRepository.class);
-    BalanceService service = new BalanceService(repository);
+  void materializeFromClearsRowsWhenNoActiveTransactionsRemain() {
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(null);
 
-    User user = new User();
-    user.setEmail("user@example.com");
-    user.setPasswordHash("hashed");
+    service.materializeFrom(user, LocalDate.now());
+
+    verify(balanceDailyRepository).deleteByUser(user);
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
 
+  @Test
+  void loadRangeCarriesLastMaterializedBalanceAcrossMissingDays() {
     LocalDate start = LocalDate.of(2026, 2, 1);
-    LocalDate end = LocalDate.of(2026, 2, 2);
-    List<BalancePoint> points = List.of(
-        new BalancePoint(start, 100L),
-        new BalancePoint(end, 200L));
-
-    service.materializeLast30Days(user, points);
-
-    verify(repository).deleteByUserAndDateBetween(user, start, end);
-    ArgumentCaptor<List<BalanceDaily>> captor = ArgumentCaptor.forClass(List.class);
-    verify(repository).saveAll(captor.capture());
-    List<BalanceDaily> saved = captor.getValue();
-    assertThat(saved).hasSize(2);
-    assertThat(saved.get(0).getDate()).isEqualTo(start);
-    assertThat(saved.get(0).getBalanceCentsEndOfDay()).isEqualTo(100L);
-    assertThat(saved.get(1).getDate()).isEqualTo(end);
-    assertThat(saved.get(1).getBalanceCentsEndOfDay()).isEqualTo(200L);
+    LocalDate end = LocalDate.of(2026, 2, 4);
+    when(balanceDailyRepository.findFirstDateByUser(user)).thenReturn(LocalDate.of(2026, 1, 1));
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(LocalDateTime.of(2026, 1, 2, 8, 0));
+    when(balanceDailyRepository.findByUserAndDateBetweenOrderByDateAsc(user, start, end))
+        .thenReturn(List.of(balanceDaily(LocalDate.of(2026, 2, 3), 300L)));
+    when(balanceDailyRepository.findFirstByUserAndDateLessThanOrderByDateDesc(eq(user), eq(start)))
+        .thenReturn(Optional.of(balanceDaily(LocalDate.of(2026, 1, 31), 100L)));
+
+    List<BalancePoint> points = service.loadRange(user, start, end);
+
+    assertThat(points).extracting(BalancePoint::balanceCents).containsExactly(100L, 100L, 300L, 300L);
   }
 
   @Test
-  void materializeLast30DaysSkipsEmptyPoints() {
-    BalanceDailyRepository repository = mock(BalanceDailyRepository.class);
-    BalanceService service = new BalanceService(repository);
+  void loadRangeIsEmptyUntilFullHistoryIsMaterialized() {
+    when(balanceDailyRepository.findFirstDateByUser(user)).thenReturn(LocalDate.of(2026, 2, 1));
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(LocalDateTime.of(2025, 6, 1, 8, 0));
 
-    User user = new User();
-    user.setEmail("user@example.com");
-    user.setPasswordHash("hashed");
+    List<BalancePoint> points = service.loadRange(user, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 4));
 
-    service.materializeLast30Days(user, List.of());
+    assertThat(points).isEmpty();
+    verify(balanceDailyRepository, never()).findByUserAndDateBetweenOrderByDateAsc(
+        eq(user), eq(LocalDate.of(2026, 2, 1)), eq(LocalDate.of(2026, 2, 4)));
+  }
+
+  @Test
+  void resolveRangeStartSupportsFixedRangesAndFullHistory() {
+    LocalDate end = LocalDate.of(2026, 3, 31);
+    when(transactionRepository.findFirstActiveBookingDateTime(user)).thenReturn(LocalDateTime.of(2023, 5, 10, 8, 0));
+
+    assertThat(service.resolveRangeStart(user, "30d", end)).isEqualTo(LocalDate.of(2026, 3, 2));
+    assertThat(service.resolveRangeStart(user, "365d", end)).isEqualTo(LocalDate.of(2025, 4, 1));
+    assertThat(service.resolveRangeStart(user, "all", end)).isEqualTo(LocalDate.of(2023, 5, 9));
+    assertThatThrownBy(() -> service.resolveRangeStart(user, "7y", end))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void loadSeriesServesFromMemoryUntilDataVersionChanges() throws Exception {
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(user, 3);
+    LocalDate start = LocalDate.of(2026, 2, 1);
+    LocalDate end = LocalDate.of(2026, 2, 2);
+    List<BalancePoint> live = List.of(new BalancePoint(start, 100L), new BalancePoint(end, 150L));
+    when(accountBalanceService.dataVersion(user)).thenReturn(4L);
+    when(accountBalanceService.computeRange(user, start, end)).thenReturn(live);
+
+    assertThat(service.loadSeries(user, start, end)).isEqualTo(live);
+    assertThat(service.loadSeries(user, start, end)).isEqualTo(live);
+    verify(accountBalanceService, times(1)).computeRange(user, start, end);
+    verify(balanceDailyRepository, times(1)).findFirstDateByUser(user);
+
+    when(accountBalanceService.dataVersion(user)).thenReturn(6L);
+    service.loadSeries(user, start, end);
+
+    verify(accountBalanceService, times(2)).computeRange(user, start, end);
+  }
 
-    verifyNoInteractions(repository);
+  private BalanceDaily balanceDaily(LocalDate date, long cents) {
+    BalanceDaily entry = new BalanceDaily();
+    entry.setUser(user);
+    entry.setDate(date);
+    entry.setBalanceCentsEndOfDay(cents);
+    return entry;
   }
 }
@@ -0,0 +1,49 @@
+package de.kruemelnerd.finanzapp.categories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryBootstrapServiceTest {
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Test
+  void ensureDefaultUncategorizedLooksUpDefaultOnlyOncePerUser() throws Exception {
+    CategoryBootstrapService service = new CategoryBootstrapService(
+        categoryRepository, new CategoryTreeCache(categoryRepository, 2, Duration.ofMinutes(30)));
+    User user = new User();
+    setId(User.class, user, 5);
+    Category fallback = new Category();
+    fallback.setDefault(true);
+    setId(Category.class, fallback, 42);
+    when(categoryRepository.findByUserAndIsDefaultTrueAndDeletedAtIsNull(user)).thenReturn(Optional.of(fallback));
+    when(categoryRepository.getReferenceById(42)).thenReturn(fallback);
+
+    Category first = service.ensureDefaultUncategorized(user);
+    Category second = service.ensureDefaultUncategorized(user);
+
+    assertThat(first).isSameAs(fallback);
+    assertThat(second.getId()).isEqualTo(42);
+    verify(categoryRepository, times(1)).findByUserAndIsDefaultTrueAndDeletedAtIsNull(user);
+  }
+
+  private static <T> void setId(Class<T> type, T target, int id) throws Exception {
+    Field idField = type.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(target, id);
+  }
+}
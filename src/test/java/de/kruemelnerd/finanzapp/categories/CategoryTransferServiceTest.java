@@ -4,11 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,7 +36,7 @@ class CategoryTransferServiceTest {
   private RuleRepository ruleRepository;
 
   @Mock
-  private CategoryBootstrapService categoryBootstrapService;
+  private CategoryTreeCache categoryTreeCache;
 
   private User user;
   private UserDetails userDetails;
@@ -53,10 +55,10 @@ class CategoryTransferServiceTest {
   @Test
   void exportAsJsonWrapsJacksonSerializationFailure() {
     CategoryTransferService service = new CategoryTransferService(
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         categoryRepository,
         ruleRepository,
-        categoryBootstrapService,
+        categoryTreeCache,
         new FailingExportObjectMapper());
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
@@ -73,10 +75,10 @@ class CategoryTransferServiceTest {
   @Test
   void importFromJsonReturnsInvalidJsonWhenJacksonReadFails() {
     CategoryTransferService service = new CategoryTransferService(
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         categoryRepository,
         ruleRepository,
-        categoryBootstrapService,
+        categoryTreeCache,
         new FailingImportObjectMapper());
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
@@ -0,0 +1,129 @@
+package de.kruemelnerd.finanzapp.categories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeCacheTest {
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  private CategoryTreeCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new CategoryTreeCache(categoryRepository, 2, Duration.ofMinutes(30));
+  }
+
+  @Test
+  void treeIsLoadedWithOneQueryAndReusedUntilInvalidated() throws Exception {
+    User user = userWithId(1);
+    Category other = category(1, null, "Sonstiges", false);
+    Category living = category(2, null, "Wohnen", false);
+    Category uncategorized = category(3, other, "Unkategorisiert", true);
+    Category rent = category(4, living, "Miete", false);
+    Category internet = category(5, living, "Internet", false);
+    when(categoryRepository.findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(other, living, uncategorized, rent, internet));
+
+    CategoryTree first = cache.tree(user);
+    CategoryTree second = cache.tree(user);
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.subcategories())
+        .extracting(CategoryTree.Node::label)
+        .containsExactly("Sonstiges -> Unkategorisiert", "Wohnen -> Miete", "Wohnen -> Internet");
+    assertThat(first.subcategory(3)).get().extracting(CategoryTree.Node::defaultCategory).isEqualTo(true);
+    assertThat(first.childIds(2)).containsExactly(4, 5);
+    assertThat(first.parent(2)).get().extracting(CategoryTree.Node::name).isEqualTo("Wohnen");
+    assertThat(first.parent(4)).isEmpty();
+    assertThat(first.subcategory(2)).isEmpty();
+    verify(categoryRepository, times(1)).findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
+
+    cache.invalidate(user);
+    CategoryTree reloaded = cache.tree(user);
+
+    assertThat(reloaded).isNotSameAs(first);
+    verify(categoryRepository, times(2)).findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
+  }
+
+  @Test
+  void defaultCategoryIdIsRememberedOnlyAfterCommitAndDroppedOnInvalidate() throws Exception {
+    User user = userWithId(1);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.rememberDefaultCategoryId(user, 42);
+      assertThat(cache.defaultCategoryId(user)).isEmpty();
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    assertThat(cache.defaultCategoryId(user)).isEmpty();
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.rememberDefaultCategoryId(user, 42);
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    assertThat(cache.defaultCategoryId(user)).contains(42);
+
+    cache.invalidate(user);
+
+    assertThat(cache.defaultCategoryId(user)).isEmpty();
+  }
+
+  @Test
+  void subcategoriesOfDeletedParentsAreLeftOut() throws Exception {
+    User user = userWithId(1);
+    Category living = category(2, null, "Wohnen", false);
+    Category removedParent = category(6, null, "Alt", false);
+    Category orphan = category(7, removedParent, "Verwaist", false);
+    when(categoryRepository.findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(living, orphan));
+
+    CategoryTree tree = cache.tree(user);
+
+    assertThat(tree.subcategories()).isEmpty();
+    assertThat(tree.subcategory(7)).isEmpty();
+    assertThat(tree.childIds(2)).isEmpty();
+  }
+
+  private Category category(int id, Category parent, String name, boolean isDefault) throws Exception {
+    Category category = new Category();
+    category.setParent(parent);
+    category.setName(name);
+    category.setDefault(isDefault);
+    Field idField = Category.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(category, id);
+    return category;
+  }
+
+  private User userWithId(int id) throws Exception {
+    User user = new User();
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(user, id);
+    return user;
+  }
+}
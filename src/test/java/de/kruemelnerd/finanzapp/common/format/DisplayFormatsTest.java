@@ -0,0 +1,37 @@
+package de.kruemelnerd.finanzapp.common.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+class DisplayFormatsTest {
+  @Test
+  void moneyMatchesDecimalFormatForBothLocales() {
+    long[] samples = {0L, 5L, -5L, 99L, 100L, -100L, 123_456L, -123_456_789L, 100_000_000_00L};
+    for (Locale locale : new Locale[] {Locale.ENGLISH, Locale.GERMANY}) {
+      DecimalFormat reference = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(locale));
+      for (long cents : samples) {
+        assertThat(DisplayFormats.money(cents, locale))
+            .isEqualTo(reference.format(cents / 100.0d) + " EUR");
+      }
+    }
+  }
+
+  @Test
+  void moneyGroupsThousands() {
+    assertThat(DisplayFormats.money(-123_456_789L, Locale.GERMANY)).isEqualTo("-1.234.567,89 EUR");
+    assertThat(DisplayFormats.money(123_456_789L, Locale.ENGLISH)).isEqualTo("1,234,567.89 EUR");
+  }
+
+  @Test
+  void dateUsesGermanPatternOnlyForGerman() {
+    LocalDate date = LocalDate.of(2026, 2, 6);
+
+    assertThat(DisplayFormats.date(Locale.GERMANY).format(date)).isEqualTo("06.02.2026");
+    assertThat(DisplayFormats.date(Locale.ENGLISH).format(date)).isEqualTo("2026-02-06");
+  }
+}
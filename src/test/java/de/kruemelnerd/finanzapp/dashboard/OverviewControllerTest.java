@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.CsvArtifact;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.importcsv.CsvImportFlashService;
@@ -12,6 +13,7 @@ import de.kruemelnerd.finanzapp.transactions.TransactionViewService;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,7 +53,7 @@ class OverviewControllerTest {
   void setUp() {
     when(messageSource.getMessage(eq("common.userFallback"), any(), any())).thenReturn("User");
     controller = new OverviewController(
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         transactionRepository,
         csvArtifactRepository,
         csvImportFlashService,
@@ -0,0 +1,48 @@
+package de.kruemelnerd.finanzapp.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionDisplayTextTest {
+  @Test
+  void nameCutsAtFirstMarkerIgnoringCase() {
+    assertThat(TransactionDisplayText.name("  Sport Shop Buchungstext: Laufschuhe  ")).isEqualTo("Sport Shop");
+    assertThat(TransactionDisplayText.name("REWE Markt KARTE NR. 1234")).isEqualTo("REWE Markt");
+    assertThat(TransactionDisplayText.name("Stadtwerke ref. 2026-01")).isEqualTo("Stadtwerke");
+    assertThat(TransactionDisplayText.name("Bäcker Ref. 1 Karte Nr. 2")).isEqualTo("Bäcker");
+  }
+
+  @Test
+  void nameKeepsTrimmedTextWithoutMarkers() {
+    assertThat(TransactionDisplayText.name("  Book Store ")).isEqualTo("Book Store");
+    assertThat(TransactionDisplayText.name("Refill Station")).isEqualTo("Refill Station");
+  }
+
+  @Test
+  void purposeKeepsTextAfterBookingTextAndCutsAtCard() {
+    assertThat(TransactionDisplayText.purpose("Lastschrift buchungstext: Laufschuhe Karte Nr. 4711"))
+        .isEqualTo("Laufschuhe");
+    assertThat(TransactionDisplayText.purpose("Kartenzahlung Karte Nr. 4711")).isEqualTo("Kartenzahlung");
+    assertThat(TransactionDisplayText.purpose("Miete Ref. 12")).isEqualTo("Miete Ref. 12");
+  }
+
+  @Test
+  void nullOrBlankTextBecomesEmpty() {
+    assertThat(TransactionDisplayText.name(null)).isEmpty();
+    assertThat(TransactionDisplayText.purpose(null)).isEmpty();
+    assertThat(TransactionDisplayText.name("   ")).isEmpty();
+    assertThat(TransactionDisplayText.purpose("Buchungstext:")).isEmpty();
+  }
+
+  @Test
+  void transactionSettersStoreDisplayTextWithCurrentVersion() {
+    Transaction transaction = new Transaction();
+    transaction.setPartnerName("Sport Shop Buchungstext: Laufschuhe");
+    transaction.setPurposeText("Buchungstext: Laufschuhe Karte Nr. 1");
+
+    assertThat(transaction.getDisplayName()).isEqualTo("Sport Shop");
+    assertThat(transaction.getDisplayPurpose()).isEqualTo("Laufschuhe");
+    assertThat(transaction.getDisplayTextVersion()).isEqualTo(TransactionDisplayText.VERSION);
+  }
+}
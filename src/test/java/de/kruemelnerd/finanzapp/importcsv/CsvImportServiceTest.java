@@ -4,15 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
 import de.kruemelnerd.finanzapp.balance.BalanceService;
-import de.kruemelnerd.finanzapp.balance.BalancePoint;
 import de.kruemelnerd.finanzapp.domain.CsvArtifact;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
@@ -43,6 +41,9 @@ class CsvImportServiceTest {
   @Mock
   private CategoryAssignmentService categoryAssignmentService;
 
+  @Mock
+  private AccountBalanceService accountBalanceService;
+
   private CsvImportService csvImportService;
 
   @BeforeEach
@@ -51,7 +52,8 @@ class CsvImportServiceTest {
         csvArtifactRepository,
         transactionRepository,
         balanceService,
-        categoryAssignmentService);
+        categoryAssignmentService,
+        accountBalanceService);
   }
 
   @Test
@@ -82,9 +84,7 @@ class CsvImportServiceTest {
     user.setPasswordHash("hashed");
     user.setLanguage("EN");
 
-    List<BalancePoint> points = List.of(new BalancePoint(LocalDate.now(), 1000L));
-    when(balanceService.computeLast30Days(eq(1000L), anyList())).thenReturn(points);
-    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(categoryAssignmentService.assignAndSaveForImport(eq(user), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of());
 
@@ -102,7 +102,7 @@ class CsvImportServiceTest {
     assertThat(artifact.getSizeBytes()).isEqualTo(bytes.length);
 
     ArgumentCaptor<List<Transaction>> txCaptor = ArgumentCaptor.forClass(List.class);
-    verify(transactionRepository).saveAll(txCaptor.capture());
+    verify(categoryAssignmentService).assignAndSaveForImport(eq(user), txCaptor.capture());
     List<Transaction> saved = txCaptor.getValue();
     assertThat(saved).hasSize(1);
     assertThat(saved.get(0).getUser()).isEqualTo(user);
@@ -112,13 +112,12 @@ class CsvImportServiceTest {
     assertThat(saved.get(0).getCardPaymentText()).isNull();
     assertThat(saved.get(0).getReferenceText()).isNull();
 
-    verify(balanceService).computeLast30Days(eq(1000L), anyList());
-    verify(balanceService).materializeLast30Days(user, points);
-    verify(categoryAssignmentService).assignForImport(eq(user), anyList());
+    verify(accountBalanceService).recordImport(user, saved);
+    verify(balanceService).materializeFrom(user, LocalDate.of(2026, 2, 1));
   }
 
   @Test
-  void importSkipsBalanceWhenStartBalanceMissing() {
+  void importMaterializesBalanceWhenStartBalanceMissing() {
     String csv = String.join("\n",
         "Buchungstag;Wertstellung (Valuta);Vorgang;Buchungstext;Umsatz in EUR",
         "01.02.2026;01.02.2026;SONSTIGES;Buchungstext: Test;1,00");
@@ -128,15 +127,14 @@ class CsvImportServiceTest {
     user.setEmail("user@example.com");
     user.setPasswordHash("hashed");
 
-    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(categoryAssignmentService.assignAndSaveForImport(eq(user), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of());
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
     assertThat(result.importedCount()).isEqualTo(1);
-    verify(balanceService, never()).computeLast30Days(anyLong(), anyList());
-    verifyNoInteractions(balanceService);
+    verify(balanceService).materializeFrom(user, LocalDate.of(2026, 2, 1));
   }
 
   @Test
@@ -161,13 +159,14 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(existing));
-    when(balanceService.computeLast30Days(eq(1000L), anyList())).thenReturn(List.of());
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
     assertThat(result.importedCount()).isEqualTo(0);
     assertThat(result.duplicateCount()).isEqualTo(1);
-    verify(categoryAssignmentService, never()).assignForImport(eq(user), anyList());
+    verify(categoryAssignmentService, never()).assignAndSaveForImport(eq(user), anyList());
+    verify(balanceService).materializeIfStale(user);
+    verify(balanceService, never()).materializeFrom(eq(user), any());
   }
 
   @Test
@@ -211,7 +210,6 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(first, second, third));
-    when(balanceService.computeLast30Days(eq(1000L), anyList())).thenReturn(List.of());
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
@@ -248,7 +246,6 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(existing));
-    when(balanceService.computeLast30Days(eq(1000L), anyList())).thenReturn(List.of());
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
@@ -280,7 +277,6 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(existing));
-    when(balanceService.computeLast30Days(eq(1000L), anyList())).thenReturn(List.of());
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
@@ -310,7 +306,7 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(existing));
-    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(categoryAssignmentService.assignAndSaveForImport(eq(user), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
@@ -513,7 +509,7 @@ class CsvImportServiceTest {
 
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of(existing));
-    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(categoryAssignmentService.assignAndSaveForImport(eq(user), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
 
     CsvImportResult result = csvImportService.importCsv(user, "file.csv", "text/csv", bytes);
 
@@ -533,7 +529,7 @@ class CsvImportServiceTest {
     user.setEmail("user@example.com");
     user.setPasswordHash("hashed");
 
-    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(categoryAssignmentService.assignAndSaveForImport(eq(user), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
     when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(user))
         .thenReturn(List.of());
 
@@ -542,7 +538,7 @@ class CsvImportServiceTest {
     assertThat(result.importedCount()).isEqualTo(1);
 
     ArgumentCaptor<List<Transaction>> txCaptor = ArgumentCaptor.forClass(List.class);
-    verify(transactionRepository).saveAll(txCaptor.capture());
+    verify(categoryAssignmentService).assignAndSaveForImport(eq(user), txCaptor.capture());
     Transaction saved = txCaptor.getValue().get(0);
     assertThat(saved.getPayerName()).isEqualTo("PayPal Europe S.a.r.l. et Cie S.C.A");
     assertThat(saved.getBookingText()).isEqualTo("PayPal Europe S.a.r.l. et Cie S.C.A, Luxembourg DE");
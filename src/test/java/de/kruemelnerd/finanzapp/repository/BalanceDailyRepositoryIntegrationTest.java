@@ -50,4 +50,33 @@ class BalanceDailyRepositoryIntegrationTest extends RepositoryIntegrationTestBas
         .contains(end, mid)
         .doesNotContain(start);
   }
+
+  @Test
+  void rangeHelpersFindCarryInRowAndTrimHistoryStart() {
+    User user = saveUser("user@example.com");
+    User other = saveUser("other@example.com");
+
+    LocalDate first = LocalDate.of(2026, 1, 30);
+    LocalDate second = LocalDate.of(2026, 2, 1);
+    LocalDate third = LocalDate.of(2026, 2, 4);
+
+    saveBalanceDaily(user, first, 100L);
+    saveBalanceDaily(user, second, 200L);
+    saveBalanceDaily(user, third, 300L);
+    saveBalanceDaily(other, LocalDate.of(2026, 1, 1), 999L);
+
+    assertThat(balanceDailyRepository.findFirstDateByUser(user)).isEqualTo(first);
+    assertThat(balanceDailyRepository.findFirstByUserAndDateLessThanOrderByDateDesc(user, LocalDate.of(2026, 2, 3)))
+        .map(BalanceDaily::getBalanceCentsEndOfDay)
+        .contains(200L);
+    assertThat(balanceDailyRepository.findByUserAndDateBetweenOrderByDateAsc(user, second, third))
+        .extracting(BalanceDaily::getDate)
+        .containsExactly(second, third);
+
+    balanceDailyRepository.deleteByUserAndDateBefore(user, second);
+
+    assertThat(balanceDailyRepository.findAll())
+        .extracting(BalanceDaily::getDate)
+        .containsExactlyInAnyOrder(second, third, LocalDate.of(2026, 1, 1));
+  }
 }
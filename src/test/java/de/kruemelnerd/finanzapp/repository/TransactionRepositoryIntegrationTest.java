@@ -1,12 +1,21 @@
 package de.kruemelnerd.finanzapp.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.TimeZone;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 class TransactionRepositoryIntegrationTest extends RepositoryIntegrationTestBase {
   @Test
@@ -48,4 +57,243 @@ class TransactionRepositoryIntegrationTest extends RepositoryIntegrationTestBase
     assertThat(result).hasSize(1);
     assertThat(result.get(0).getBookingDateTime()).isEqualTo(early);
   }
+
+  @Test
+  void sumActiveAmountBySlotGroupsActiveTransactionsPerQuarterHour() {
+    User user = saveUser("user@example.com");
+    User other = saveUser("other@example.com");
+
+    saveTransaction(user, LocalDateTime.of(2026, 2, 1, 0, 30), 1000L);
+    saveTransaction(user, LocalDateTime.of(2026, 2, 1, 0, 40), 500L);
+    saveTransaction(user, LocalDateTime.of(2026, 2, 1, 23, 30), -250L);
+    saveDeletedTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), 2000L);
+    saveTransaction(user, LocalDateTime.of(2026, 2, 3, 8, 0), 3000L);
+    saveTransaction(other, LocalDateTime.of(2026, 2, 3, 8, 0), 999L);
+
+    List<BookingSlotSum> result = transactionRepository.sumActiveAmountBySlot(user.getId());
+
+    assertThat(result)
+        .extracting(BookingSlotSum::day, BookingSlotSum::getAmountCents)
+        .containsExactly(
+            tuple(LocalDate.of(2026, 2, 1), 1500L),
+            tuple(LocalDate.of(2026, 2, 1), -250L),
+            tuple(LocalDate.of(2026, 2, 3), 3000L));
+  }
+
+  @Test
+  void sumActiveAmountBySlotAssignsDaysInJvmZoneRatherThanDatabaseZone() {
+    TimeZone previous = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+    try {
+      User user = saveUser("user@example.com");
+      saveTransaction(user, LocalDateTime.of(2026, 2, 1, 0, 15), 1000L);
+      saveTransaction(user, LocalDateTime.of(2026, 2, 1, 23, 45), -250L);
+
+      assertThat(transactionRepository.sumActiveAmountBySlot(user.getId()))
+          .extracting(BookingSlotSum::day)
+          .containsExactly(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 1));
+    } finally {
+      TimeZone.setDefault(previous);
+    }
+  }
+
+  @Test
+  void searchSpecificationFiltersAndPagesInDatabase() {
+    User user = saveUser("user@example.com");
+
+    Transaction low = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -2000L);
+    low.setPartnerName("Alex");
+    low.setPurposeText("Space Marine 2");
+    transactionRepository.save(low);
+    Transaction mid = saveTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -7500L);
+    mid.setPartnerName("ALEXA Store");
+    mid.setPurposeText("100% Refund");
+    mid.setCategoryAssignedBy(CategoryAssignedBy.DEFAULT);
+    transactionRepository.save(mid);
+    saveTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -12000L);
+    saveDeletedTransaction(user, LocalDateTime.of(2026, 2, 4, 9, 0), -7000L);
+
+    Sort newestFirst = Sort.by(Sort.Order.desc("bookingDateTime"), Sort.Order.desc("id"));
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, 5000L, 10000L, null, null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(mid.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, " alex ", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(mid.getId(), low.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, "0%", false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(mid.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, null, true, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(mid.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, null, false, List.of()), newestFirst))
+        .isEmpty();
+
+    Page<Transaction> secondPage = transactionRepository.findAll(
+        new TransactionSearchSpecification(user, null, null, null, null, false, null),
+        PageRequest.of(1, 2, newestFirst));
+    assertThat(secondPage.getTotalElements()).isEqualTo(3);
+    assertThat(secondPage.getContent()).extracting(Transaction::getId).containsExactly(low.getId());
+  }
+
+  @Test
+  void keysetSpecificationContinuesAfterCursorWithIdTieBreak() {
+    User user = saveUser("user@example.com");
+    LocalDateTime sameTime = LocalDateTime.of(2026, 2, 2, 9, 0);
+
+    Transaction oldest = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -100L);
+    Transaction tieLow = saveTransaction(user, sameTime, -200L);
+    Transaction tieHigh = saveTransaction(user, sameTime, -300L);
+    Transaction newest = saveTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -400L);
+
+    Specification<Transaction> active = new TransactionSearchSpecification(user, null, null, null, null, false, null);
+    Sort newestFirst = Sort.by(Sort.Order.desc("bookingDateTime"), Sort.Order.desc("id"));
+    Sort oldestFirst = Sort.by(Sort.Order.asc("bookingDateTime"), Sort.Order.asc("id"));
+
+    List<Transaction> older = transactionRepository.findBy(
+        active.and(TransactionKeysetSpecification.olderThan(sameTime, tieHigh.getId())),
+        query -> query.sortBy(newestFirst).limit(2).all());
+    List<Transaction> newer = transactionRepository.findBy(
+        active.and(TransactionKeysetSpecification.newerThan(sameTime, tieLow.getId())),
+        query -> query.sortBy(oldestFirst).limit(5).all());
+
+    assertThat(older).extracting(Transaction::getId).containsExactly(tieLow.getId(), oldest.getId());
+    assertThat(newer).extracting(Transaction::getId).containsExactly(tieHigh.getId(), newest.getId());
+  }
+
+  @Test
+  void searchSpecificationUsesTrigramIndexKeptInSyncByTriggers() {
+    User user = saveUser("user@example.com");
+
+    Transaction bakery = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -450L);
+    bakery.setPartnerName("BÄCKEREI MÜLLER");
+    bakery.setPurposeText("Kartenzahlung");
+    bakery.setReferenceText("REF 99ABC");
+    transactionRepository.save(bakery);
+    Transaction rent = saveTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -90000L);
+    rent.setPartnerName("Hausverwaltung");
+    transactionRepository.save(rent);
+
+    Sort newestFirst = Sort.by(Sort.Order.desc("bookingDateTime"), Sort.Order.desc("id"));
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "müller", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(bakery.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, "99abc", false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(bakery.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, "9a", false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(bakery.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, null, "99' \"abc", false, null), newestFirst))
+        .isEmpty();
+
+    rent.setPartnerName("Müllerstraße Immobilien");
+    transactionRepository.save(rent);
+    transactionRepository.delete(bakery);
+
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "MÜLLER", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(rent.getId());
+
+    rent.setAmountCents(-95000L);
+    transactionRepository.save(rent);
+
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "straße", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(rent.getId());
+  }
+
+  @Test
+  void shortSearchNeedlesMatchNonAsciiLettersInEitherCase() {
+    User user = saveUser("user@example.com");
+
+    Transaction bakery = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -450L);
+    bakery.setPartnerName("BÄCKEREI");
+    transactionRepository.save(bakery);
+    Transaction doctor = saveTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -3000L);
+    doctor.setPartnerName("Hausärztin");
+    transactionRepository.save(doctor);
+    saveTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -100L);
+
+    Sort newestFirst = Sort.by(Sort.Order.desc("bookingDateTime"), Sort.Order.desc("id"));
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "ä", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(doctor.getId(), bakery.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "Äc", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(bakery.getId());
+    assertThat(transactionRepository.findAll(
+            new TransactionSearchSpecification(user, null, null, "Är", null, false, null), newestFirst))
+        .extracting(Transaction::getId)
+        .containsExactly(doctor.getId());
+  }
+
+  @Test
+  void revisionIsBumpedByTriggersOnInsertLockChangeAndDelete() {
+    User user = saveUser("user@example.com");
+    assertThat(transactionRepository.findRevisionByUserId(user.getId())).isNull();
+
+    Transaction locked = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -100L);
+    Transaction unlocked = saveTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -200L);
+    locked.setCategoryLocked(true);
+    transactionRepository.save(locked);
+    Long beforeSwap = transactionRepository.findRevisionByUserId(user.getId());
+
+    locked.setCategoryLocked(false);
+    transactionRepository.save(locked);
+    unlocked.setCategoryLocked(true);
+    transactionRepository.save(unlocked);
+    Long afterSwap = transactionRepository.findRevisionByUserId(user.getId());
+    transactionRepository.delete(unlocked);
+
+    assertThat(beforeSwap).isEqualTo(3L);
+    assertThat(afterSwap).isEqualTo(5L);
+    assertThat(transactionRepository.findRevisionByUserId(user.getId())).isEqualTo(6L);
+  }
+
+  @Test
+  void revisionIgnoresUpdatesThatLeaveTrackedColumnsUnchanged() {
+    User user = saveUser("user@example.com");
+    Transaction tx = saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -100L);
+
+    tx.setCategoryAssignedBy(CategoryAssignedBy.RULE);
+    transactionRepository.save(tx);
+    tx.setCategoryAssignedBy(CategoryAssignedBy.DEFAULT);
+    transactionRepository.save(tx);
+
+    assertThat(transactionRepository.findRevisionByUserId(user.getId())).isEqualTo(1L);
+
+    tx.setAmountCents(-150L);
+    transactionRepository.save(tx);
+
+    assertThat(transactionRepository.findRevisionByUserId(user.getId())).isEqualTo(2L);
+  }
+
+  @Test
+  void findRecentReturnsOnlyNewestActiveRowsUpToLimit() {
+    User user = saveUser("user@example.com");
+
+    saveTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -100L);
+    Transaction middle = saveTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -200L);
+    saveDeletedTransaction(user, LocalDateTime.of(2026, 2, 4, 9, 0), -400L);
+    Transaction newest = saveTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -300L);
+
+    List<Transaction> result =
+        transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDescIdDesc(user, Limit.of(2));
+
+    assertThat(result).extracting(Transaction::getId).containsExactly(newest.getId(), middle.getId());
+  }
 }
@@ -1,9 +1,14 @@
 package de.kruemelnerd.finanzapp.rules;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -13,17 +18,26 @@ import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
 import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.domain.TransactionRuleConflict;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
+import jakarta.persistence.EntityManager;
 import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 @ExtendWith(MockitoExtension.class)
 class CategoryAssignmentServiceTest {
@@ -36,40 +50,48 @@ class CategoryAssignmentServiceTest {
   @Mock
   private TransactionRepository transactionRepository;
 
+  @Mock
+  private TransactionRuleConflictRepository transactionRuleConflictRepository;
+
+  @Mock
+  private RuleSqlPushdown ruleSqlPushdown;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Captor
+  private ArgumentCaptor<List<TransactionRuleConflict>> conflictsCaptor;
+
   private CategoryAssignmentService service;
 
   @BeforeEach
   void setUp() {
-    service = new CategoryAssignmentService(
-        categoryBootstrapService,
-        ruleRepository,
-        transactionRepository,
-        new RuleEngine(new RuleTextNormalizer()));
+    service = serviceWithChunkSize(16);
   }
 
   @Test
-  void assignForImportSetsDefaultCategoryWhenNoRuleMatches() {
+  void assignAndSaveForImportSetsDefaultCategoryWhenNoRuleMatches() throws Exception {
     User user = new User();
     Category defaultCategory = new Category();
 
-    Transaction transaction = new Transaction();
-    transaction.setUser(user);
-    transaction.setPartnerName("Unknown merchant");
+    Transaction transaction = transactionWith(1, user, "Unknown merchant");
 
     when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
     when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
         .thenReturn(List.of());
+    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-    service.assignForImport(user, List.of(transaction));
+    service.assignAndSaveForImport(user, List.of(transaction));
 
     assertThat(transaction.getCategory()).isEqualTo(defaultCategory);
     assertThat(transaction.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.DEFAULT);
     assertThat(transaction.isCategoryLocked()).isFalse();
-    assertThat(transaction.getRuleConflicts()).isNull();
+    verify(transactionRepository).saveAll(List.of(transaction));
+    verify(transactionRuleConflictRepository, never()).saveAll(any());
   }
 
   @Test
-  void assignForImportAppliesFirstMatchingRuleAndStoresConflicts() throws Exception {
+  void assignAndSaveForImportAppliesFirstMatchingRuleAndStoresConflicts() throws Exception {
     User user = new User();
     Category defaultCategory = new Category();
     Category fastFood = new Category();
@@ -77,24 +99,26 @@ class CategoryAssignmentServiceTest {
     Rule first = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
     Rule second = ruleWith(200, "Contains Don", "donald", RuleMatchField.BOTH, defaultCategory);
 
-    Transaction transaction = new Transaction();
-    transaction.setUser(user);
-    transaction.setPartnerName("McDonald’s Berlin");
+    Transaction transaction = transactionWith(1, user, "McDonald’s Berlin");
     transaction.setPurposeText("Lunch");
 
     when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
     when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
         .thenReturn(List.of(first, second));
+    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-    service.assignForImport(user, List.of(transaction));
+    service.assignAndSaveForImport(user, List.of(transaction));
 
     assertThat(transaction.getCategory()).isEqualTo(fastFood);
     assertThat(transaction.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.RULE);
-    assertThat(transaction.getRuleConflicts()).isEqualTo("[200]");
+    verify(transactionRuleConflictRepository).saveAll(conflictsCaptor.capture());
+    assertThat(conflictsCaptor.getValue())
+        .extracting(TransactionRuleConflict::getTransactionId, TransactionRuleConflict::getRuleId)
+        .containsExactly(tuple(1, 200));
   }
 
   @Test
-  void assignForImportDoesNotStoreConflictWhenFurtherMatchesUseSameCategory() throws Exception {
+  void assignAndSaveForImportDoesNotStoreConflictWhenFurtherMatchesUseSameCategory() throws Exception {
     User user = new User();
     Category defaultCategory = new Category();
     Category fastFood = new Category();
@@ -102,95 +126,290 @@ class CategoryAssignmentServiceTest {
     Rule first = ruleWith(100, "FastFood 1", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
     Rule second = ruleWith(200, "FastFood 2", "donald", RuleMatchField.BOTH, fastFood);
 
-    Transaction transaction = new Transaction();
-    transaction.setUser(user);
-    transaction.setPartnerName("McDonald’s Berlin");
+    Transaction transaction = transactionWith(1, user, "McDonald’s Berlin");
     transaction.setPurposeText("Lunch");
 
     when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
     when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
         .thenReturn(List.of(first, second));
+    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-    service.assignForImport(user, List.of(transaction));
+    service.assignAndSaveForImport(user, List.of(transaction));
 
     assertThat(transaction.getCategory()).isEqualTo(fastFood);
     assertThat(transaction.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.RULE);
-    assertThat(transaction.getRuleConflicts()).isNull();
+    verify(transactionRuleConflictRepository, never()).saveAll(any());
   }
 
   @Test
-  void assignForImportDoesNotOverrideManualLockedTransaction() {
+  void assignAndSaveForImportDoesNotOverrideManualLockedTransaction() throws Exception {
     User user = new User();
     Category manualCategory = new Category();
     Category defaultCategory = new Category();
 
-    Transaction transaction = new Transaction();
-    transaction.setUser(user);
-    transaction.setPartnerName("McDonald’s Berlin");
+    Transaction transaction = transactionWith(1, user, "McDonald’s Berlin");
     transaction.setCategory(manualCategory);
     transaction.setCategoryAssignedBy(CategoryAssignedBy.MANUAL);
     transaction.setCategoryLocked(true);
-    transaction.setRuleConflicts("[123]");
 
     when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
     when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
         .thenReturn(List.of());
+    when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-    service.assignForImport(user, List.of(transaction));
+    service.assignAndSaveForImport(user, List.of(transaction));
 
     assertThat(transaction.getCategory()).isEqualTo(manualCategory);
     assertThat(transaction.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.MANUAL);
     assertThat(transaction.isCategoryLocked()).isTrue();
-    assertThat(transaction.getRuleConflicts()).isEqualTo("[123]");
+    verify(transactionRuleConflictRepository, never()).saveAll(any());
   }
 
   @Test
-  void runSingleRuleUpdatesMetadataAndSavesMatchingTransactions() throws Exception {
+  void runSingleRuleUpdatesMetadataAndWritesOnlyMatchingTransactions() throws Exception {
     User user = new User();
-    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, new Category());
-
-    Transaction matching = new Transaction();
-    matching.setUser(user);
-    matching.setPartnerName("McDonald’s Berlin");
+    Category fastFood = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
 
-    Transaction nonMatching = new Transaction();
-    nonMatching.setUser(user);
-    nonMatching.setPartnerName("Other Store");
+    Transaction matching = transactionWith(1, user, "McDonald’s Berlin");
+    Transaction nonMatching = transactionWith(2, user, "Other Store");
 
     when(ruleRepository.findByIdAndUserAndDeletedAtIsNull(100, user)).thenReturn(Optional.of(rule));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(user))
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
         .thenReturn(List.of(matching, nonMatching));
 
     CategoryAssignmentService.RuleRunStats result = service.runSingleRule(user, 100);
 
     assertThat(result.updatedTransactions()).isEqualTo(1);
     assertThat(result.scannedTransactions()).isEqualTo(2);
-    assertThat(matching.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.RULE);
-    verify(transactionRepository).saveAll(anyList());
-    verify(ruleRepository).save(rule);
-    assertThat(rule.getLastRunAt()).isNotNull();
-    assertThat(rule.getLastMatchCount()).isEqualTo(1);
+    verify(transactionRepository).updateCategoryAssignment(List.of(1), fastFood, CategoryAssignedBy.RULE);
+    verify(transactionRepository, never()).saveAll(any());
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(1));
+    verify(ruleRepository, never()).save(any());
   }
 
   @Test
-  void runSingleRuleSkipsSaveWhenNothingChanges() throws Exception {
+  void runSingleRuleUsesSqlPushdownInsteadOfScanningEntities() throws Exception {
     User user = new User();
+    Field userIdField = User.class.getDeclaredField("id");
+    userIdField.setAccessible(true);
+    userIdField.set(user, 7);
     Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, new Category());
 
-    Transaction nonMatching = new Transaction();
-    nonMatching.setUser(user);
-    nonMatching.setPartnerName("Other Store");
+    when(ruleRepository.findByIdAndUserAndDeletedAtIsNull(100, user)).thenReturn(Optional.of(rule));
+    when(ruleSqlPushdown.supports(any(PreparedRuleSet.class))).thenReturn(true);
+    when(ruleSqlPushdown.run(eq(user), any(PreparedRuleSet.class)))
+        .thenReturn(new RuleSqlPushdown.PushdownResult(3, 2, 10));
+
+    CategoryAssignmentService.RuleRunStats result = service.runSingleRule(user, 100);
+
+    assertThat(result.updatedTransactions()).isEqualTo(2);
+    assertThat(result.scannedTransactions()).isEqualTo(10);
+    verify(transactionRepository, never())
+        .findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(any(), any(), any(Pageable.class));
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), any(), any());
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(3));
+  }
+
+  @Test
+  void runSingleRuleSkipsWritesWhenNothingChanges() throws Exception {
+    User user = new User();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, new Category());
+
+    Transaction nonMatching = transactionWith(2, user, "Other Store");
 
     when(ruleRepository.findByIdAndUserAndDeletedAtIsNull(100, user)).thenReturn(Optional.of(rule));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeAsc(user))
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
         .thenReturn(List.of(nonMatching));
 
     CategoryAssignmentService.RuleRunStats result = service.runSingleRule(user, 100);
 
     assertThat(result.updatedTransactions()).isZero();
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), any(), any());
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(0));
+  }
+
+  @Test
+  void runAllRulesGroupsChangedTransactionsAndSkipsUnchangedOnes() throws Exception {
+    User user = new User();
+    Category defaultCategory = new Category();
+    Category fastFood = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
+    Rule unused = ruleWith(200, "Sport", "intersport", RuleMatchField.BOTH, new Category());
+
+    Transaction first = transactionWith(1, user, "McDonald’s Berlin");
+    Transaction second = transactionWith(2, user, "McDonald’s Hamburg");
+    Transaction alreadyAssigned = transactionWith(3, user, "McDonald’s Köln");
+    alreadyAssigned.setCategory(fastFood);
+    alreadyAssigned.setCategoryAssignedBy(CategoryAssignedBy.RULE);
+    Transaction unmatched = transactionWith(4, user, "Other Store");
+
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule, unused));
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
+        .thenReturn(List.of(first, second, alreadyAssigned, unmatched));
+
+    CategoryAssignmentService.RuleRunStats result = service.runAllRules(user);
+
+    assertThat(result.updatedTransactions()).isEqualTo(3);
+    assertThat(result.scannedTransactions()).isEqualTo(4);
+    verify(transactionRepository).updateCategoryAssignment(List.of(1, 2), fastFood, CategoryAssignedBy.RULE);
+    verify(transactionRepository)
+        .updateCategoryAssignment(List.of(4), defaultCategory, CategoryAssignedBy.DEFAULT);
     verify(transactionRepository, never()).saveAll(any());
-    verify(ruleRepository).save(rule);
-    assertThat(rule.getLastMatchCount()).isZero();
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(3));
+    verify(ruleRepository).updateRunStats(eq(List.of(200)), any(Instant.class), eq(0));
+    verify(ruleRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void runAllRulesPagesThroughTransactionsInChunksAndClearsPersistenceContext() throws Exception {
+    service = serviceWithChunkSize(2);
+    User user = new User();
+    Category defaultCategory = new Category();
+    Category fastFood = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
+
+    Transaction first = transactionWith(1, user, "McDonald’s Berlin");
+    Transaction second = transactionWith(2, user, "Other Store");
+    Transaction third = transactionWith(5, user, "McDonald’s Hamburg");
+
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule));
+    when(transactionRepository.countByUserAndDeletedAtIsNull(user)).thenReturn(3L);
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
+        .thenReturn(List.of(first, second));
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(2), any(Pageable.class)))
+        .thenReturn(List.of(third));
+    List<Integer> progress = new ArrayList<>();
+
+    CategoryAssignmentService.RuleRunStats result =
+        service.runAllRules(user, (processed, total) -> progress.add(processed));
+
+    assertThat(result.updatedTransactions()).isEqualTo(3);
+    assertThat(result.scannedTransactions()).isEqualTo(3);
+    assertThat(progress).containsExactly(2, 3);
+    verify(transactionRepository).updateCategoryAssignment(List.of(1), fastFood, CategoryAssignedBy.RULE);
+    verify(transactionRepository).updateCategoryAssignment(List.of(5), fastFood, CategoryAssignedBy.RULE);
+    verify(entityManager, times(2)).clear();
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(2));
+  }
+
+  @Test
+  void runAllRulesReplacesStaleConflictRowsWithoutTouchingUnchangedAssignments() throws Exception {
+    User user = new User();
+    Category defaultCategory = new Category();
+    Category fastFood = new Category();
+    Category sport = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
+    Rule other = ruleWith(200, "Sport", "intersport", RuleMatchField.BOTH, sport);
+
+    Transaction assigned = transactionWith(1, user, "McDonald’s Berlin");
+    assigned.setCategory(fastFood);
+    assigned.setCategoryAssignedBy(CategoryAssignedBy.RULE);
+
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule, other));
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
+        .thenReturn(List.of(assigned));
+    when(transactionRuleConflictRepository.findByIdTransactionIdIn(List.of(1)))
+        .thenReturn(List.of(new TransactionRuleConflict(1, 300)));
+
+    CategoryAssignmentService.RuleRunStats result = service.runAllRules(user);
+
+    assertThat(result.updatedTransactions()).isEqualTo(1);
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), any(), any());
+    verify(transactionRuleConflictRepository).deleteByTransactionIds(List.of(1));
+    verify(transactionRuleConflictRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void planAllRulesDefersWritesUntilPlanIsApplied() throws Exception {
+    User user = new User();
+    Category defaultCategory = new Category();
+    Category fastFood = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
+
+    Transaction matched = transactionWith(1, user, "McDonald’s Berlin");
+    Transaction unmatched = transactionWith(2, user, "Other Store");
+
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule));
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
+        .thenReturn(List.of(matched, unmatched));
+
+    CategoryAssignmentService.RuleRunPlan plan = service.planAllRules(user, defaultCategory, RuleRunProgress.NONE);
+
+    assertThat(plan.changedTransactions()).isEqualTo(2);
+    assertThat(plan.scannedTransactions()).isEqualTo(2);
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), any(), any());
+    verify(ruleRepository, never()).updateRunStats(anyList(), any(), anyInt());
+
+    CategoryAssignmentService.RuleRunStats result = service.applyPlan(plan);
+
+    assertThat(result.updatedTransactions()).isEqualTo(2);
+    verify(transactionRepository).updateCategoryAssignment(List.of(1), fastFood, CategoryAssignedBy.RULE);
+    verify(transactionRepository).updateCategoryAssignment(List.of(2), defaultCategory, CategoryAssignedBy.DEFAULT);
+    verify(ruleRepository).updateRunStats(eq(List.of(100)), any(Instant.class), eq(1));
+    verify(categoryBootstrapService, never()).ensureDefaultUncategorized(any());
+  }
+
+  @Test
+  void applyPlanSkipsTransactionsLockedAfterPlanning() throws Exception {
+    User user = new User();
+    Category defaultCategory = new Category();
+    Category fastFood = new Category();
+    Rule rule = ruleWith(100, "FastFood", "mcdonalds", RuleMatchField.PARTNER_NAME, fastFood);
+
+    Transaction matched = transactionWith(1, user, "McDonald’s Berlin");
+    Transaction lockedLater = transactionWith(2, user, "Other Store");
+
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule));
+    when(transactionRepository.findByUserAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(user), eq(0), any(Pageable.class)))
+        .thenReturn(List.of(matched, lockedLater));
+    when(transactionRuleConflictRepository.findByIdTransactionIdIn(List.of(1, 2)))
+        .thenReturn(List.of(new TransactionRuleConflict(2, 100)));
+
+    CategoryAssignmentService.RuleRunPlan plan = service.planAllRules(user, defaultCategory, RuleRunProgress.NONE);
+    assertThat(plan.changedTransactions()).isEqualTo(2);
+
+    when(transactionRepository.findLockedIdsIn(anyCollection())).thenReturn(List.of(2));
+    CategoryAssignmentService.RuleRunStats result = service.applyPlan(plan);
+
+    assertThat(result.updatedTransactions()).isEqualTo(1);
+    verify(transactionRepository).updateCategoryAssignment(List.of(1), fastFood, CategoryAssignedBy.RULE);
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), eq(defaultCategory), any());
+    verify(transactionRuleConflictRepository, never()).deleteByTransactionIds(any());
+    verify(transactionRuleConflictRepository, never()).saveAll(any());
+  }
+
+  private CategoryAssignmentService serviceWithChunkSize(int chunkSize) {
+    RuleEngine ruleEngine = new RuleEngine(new RuleTextNormalizer());
+    return new CategoryAssignmentService(
+        categoryBootstrapService,
+        ruleRepository,
+        transactionRepository,
+        transactionRuleConflictRepository,
+        ruleEngine,
+        new RuleSetCache(ruleRepository, ruleEngine, 16, Duration.ofMinutes(30)),
+        ruleSqlPushdown,
+        entityManager,
+        chunkSize);
+  }
+
+  private Transaction transactionWith(int id, User user, String partnerName) throws Exception {
+    Transaction transaction = new Transaction();
+    transaction.setUser(user);
+    transaction.setPartnerName(partnerName);
+
+    Field idField = Transaction.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(transaction, id);
+    return transaction;
   }
 
   private Rule ruleWith(
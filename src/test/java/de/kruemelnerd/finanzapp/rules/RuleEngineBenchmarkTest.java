@@ -0,0 +1,94 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RuleEngineBenchmarkTest {
+  private static final int RULES = 5_000;
+  private static final int TRANSACTIONS = 20_000;
+  private static final int ROUNDS = 5;
+
+  @Test
+  void tokenIndexedMatchingAgainstSubstringScanAtFiveThousandRules() throws Exception {
+    RuleTextNormalizer normalizer = new RuleTextNormalizer();
+    RuleEngine substringEngine = new RuleEngine(normalizer, false);
+    RuleEngine tokenEngine = new RuleEngine(normalizer, true);
+
+    List<Rule> rules = new ArrayList<>();
+    for (int i = 0; i < RULES; i++) {
+      rules.add(ruleWith(i + 1, merchant(i), categoryWithId(i % 50 + 1)));
+    }
+    Random random = new Random(42);
+    List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < TRANSACTIONS; i++) {
+      Transaction transaction = new Transaction();
+      transaction.setPartnerName(merchant(random.nextInt(RULES * 2)) + " Filiale " + random.nextInt(500));
+      transaction.setPurposeText("Kartenzahlung " + merchant(random.nextInt(RULES * 2)) + " Ref " + i);
+      transactions.add(transaction);
+    }
+
+    PreparedRuleSet substringRules = substringEngine.prepare(rules);
+    PreparedRuleSet tokenRules = tokenEngine.prepare(rules);
+    RuleEngine.RuleEvaluationBatch expected = substringEngine.evaluateAll(transactions, substringRules);
+    RuleEngine.RuleEvaluationBatch actual = tokenEngine.evaluateAll(transactions, tokenRules);
+    assertThat(actual.evaluations()).isEqualTo(expected.evaluations());
+
+    long substringNanos = time(() -> substringEngine.evaluateAll(transactions, substringRules));
+    long tokenNanos = time(() -> tokenEngine.evaluateAll(transactions, tokenRules));
+    System.out.printf(
+        "rules=%d transactions=%d substring=%dms token-index=%dms speedup=%.1fx%n",
+        RULES,
+        TRANSACTIONS,
+        substringNanos / 1_000_000,
+        tokenNanos / 1_000_000,
+        substringNanos / (double) Math.max(1, tokenNanos));
+  }
+
+  private long time(Runnable run) {
+    run.run();
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      run.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private String merchant(int index) {
+    return String.format("merchant%05d", index);
+  }
+
+  private Rule ruleWith(int id, String matchText, Category category) throws Exception {
+    Rule rule = new Rule();
+    rule.setName("rule-" + id);
+    rule.setMatchText(matchText);
+    rule.setMatchField(RuleMatchField.BOTH);
+    rule.setActive(true);
+    rule.setCategory(category);
+
+    Field idField = Rule.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(rule, id);
+    return rule;
+  }
+
+  private Category categoryWithId(int id) throws Exception {
+    Category category = new Category();
+    Field idField = Category.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(category, id);
+    return category;
+  }
+}
@@ -7,6 +7,7 @@ import de.kruemelnerd.finanzapp.domain.Rule;
 import de.kruemelnerd.finanzapp.domain.RuleMatchField;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
@@ -74,6 +75,109 @@ class RuleEngineTest {
     assertThat(evaluation.conflictRuleIds()).isEmpty();
   }
 
+  @Test
+  void evaluateAllMatchesSequentialEvaluationAndCountsWinners() throws Exception {
+    Category fastFood = categoryWithId(8);
+    Category sport = categoryWithId(9);
+    Rule burger = ruleWith(41, "FastFood", "burger", RuleMatchField.BOTH, fastFood);
+    Rule king = ruleWith(42, "Sport King", "king", RuleMatchField.PARTNER_NAME, sport);
+    List<Rule> rules = List.of(burger, king);
+
+    List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < RuleEngine.PARALLEL_THRESHOLD + 100; i++) {
+      Transaction transaction = new Transaction();
+      transaction.setPartnerName(switch (i % 3) {
+        case 0 -> "Burger King " + i;
+        case 1 -> "Sport King " + i;
+        default -> "Bakery " + i;
+      });
+      transaction.setPurposeText("Kauf");
+      transactions.add(transaction);
+    }
+
+    RuleEngine.RuleEvaluationBatch batch = ruleEngine.evaluateAll(transactions, ruleEngine.prepare(rules));
+
+    assertThat(batch.evaluations()).hasSize(transactions.size());
+    for (int i = 0; i < transactions.size(); i++) {
+      assertThat(batch.evaluations().get(i)).isEqualTo(ruleEngine.evaluate(transactions.get(i), rules));
+    }
+    long burgerWins = transactions.stream().filter(tx -> tx.getPartnerName().startsWith("Burger")).count();
+    long kingWins = transactions.stream().filter(tx -> tx.getPartnerName().startsWith("Sport")).count();
+    assertThat(batch.matchCountByRuleId()).containsEntry(41, (int) burgerWins).containsEntry(42, (int) kingWins);
+  }
+
+  @Test
+  void tokenModeIsChosenPerRuleAndMatchesWholeTokensOnly() throws Exception {
+    RuleEngine tokenEngine = new RuleEngine(new RuleTextNormalizer(), true);
+    Category groceries = categoryWithId(5);
+    Category fastFood = categoryWithId(6);
+    Rule rewe = ruleWith(51, "Groceries", "Rewe", RuleMatchField.BOTH, groceries);
+    Rule toGo = ruleWith(52, "To go", "to go", RuleMatchField.PARTNER_NAME, fastFood);
+    Rule sarl = ruleWith(53, "PayPal", "s.a.r.l", RuleMatchField.BOTH, fastFood);
+
+    PreparedRuleSet ruleSet = tokenEngine.prepare(List.of(rewe, toGo, sarl));
+
+    assertThat(ruleSet.rules())
+        .extracting(PreparedRuleSet.PreparedRule::matchMode)
+        .containsExactly(RuleMatchMode.TOKEN, RuleMatchMode.TOKEN, RuleMatchMode.SUBSTRING);
+    assertThat(tokenEngine.evaluate(transactionWithPartner("REWE To Go Berlin"), ruleSet).conflictRuleIds())
+        .containsExactly(52);
+    assertThat(tokenEngine.evaluate(transactionWithPartner("Brewery"), ruleSet).winningRule()).isNull();
+    assertThat(tokenEngine.evaluate(transactionWithPartner("Rewe-Markt"), ruleSet).winningRule()).isEqualTo(rewe);
+    assertThat(tokenEngine.evaluate(transactionWithPartner("Shop to-go"), ruleSet).winningRule()).isNull();
+    assertThat(tokenEngine.evaluate(transactionWithPartner("PayPal Europe S.a.r.l. et Cie"), ruleSet).winningRule())
+        .isEqualTo(sarl);
+  }
+
+  @Test
+  void tokenIndexAgreesWithTokenBoundaryScan() throws Exception {
+    RuleEngine tokenEngine = new RuleEngine(new RuleTextNormalizer(), true);
+    Rule booking = ruleWith(61, "Rent", "miete", RuleMatchField.BOOKING_TEXT, categoryWithId(7));
+    Rule partner = ruleWith(62, "Landlord", "haus verwaltung", RuleMatchField.PARTNER_NAME, categoryWithId(8));
+    PreparedRuleSet ruleSet = tokenEngine.prepare(List.of(booking, partner));
+
+    List<String[]> samples = List.of(
+        new String[] {"Miete Januar", "Haus Verwaltung GmbH"},
+        new String[] {"Mieterhoehung", "Haus  Verwaltung"},
+        new String[] {"Haus Verwaltung", "Miete"},
+        new String[] {"Zahlung: Miete.", "Haus-Verwaltung"});
+    for (String[] sample : samples) {
+      Transaction transaction = new Transaction();
+      transaction.setPurposeText(sample[0]);
+      transaction.setPartnerName(sample[1]);
+      RuleEngine.MatchText text = tokenEngine.normalize(transaction);
+
+      for (PreparedRuleSet.PreparedRule rule : ruleSet.rules()) {
+        assertThat(ruleSet.tokenIndex().matches(text).get(rule.index()))
+            .as("%s on %s / %s", rule.needle(), sample[0], sample[1])
+            .isEqualTo(tokenEngine.matches(rule, text));
+      }
+    }
+  }
+
+  @Test
+  void tokenIndexResolvesManyTokensAcrossTableGrowth() throws Exception {
+    RuleEngine tokenEngine = new RuleEngine(new RuleTextNormalizer(), true);
+    List<Rule> rules = new ArrayList<>();
+    rules.add(ruleWith(1, "Long", "a b c d e f g h i j k l", RuleMatchField.BOTH, categoryWithId(1)));
+    for (int i = 2; i <= 40; i++) {
+      rules.add(ruleWith(i, "Shop " + i, "shop" + i + " filiale", RuleMatchField.PARTNER_NAME, categoryWithId(i)));
+    }
+    PreparedRuleSet ruleSet = tokenEngine.prepare(rules);
+
+    Transaction transaction = transactionWithPartner("SHOP37 Filiale Nord");
+    RuleEngine.MatchText text = tokenEngine.normalize(transaction);
+
+    assertThat(ruleSet.tokenIndex().matches(text).stream().toArray()).containsExactly(36);
+    assertThat(tokenEngine.evaluate(transaction, ruleSet).winningRule()).isEqualTo(rules.get(36));
+  }
+
+  private Transaction transactionWithPartner(String partnerName) {
+    Transaction transaction = new Transaction();
+    transaction.setPartnerName(partnerName);
+    return transaction;
+  }
+
   private Rule ruleWith(int id, String name, String matchText, RuleMatchField field, Category category) throws Exception {
     Rule rule = new Rule();
     rule.setName(name);
@@ -0,0 +1,107 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.RuleOverlap;
+import de.kruemelnerd.finanzapp.domain.RuleOverlapType;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleOverlapRepository;
+import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import java.lang.reflect.Field;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RuleOverlapServiceTest {
+  @Mock
+  private RuleRepository ruleRepository;
+
+  @Mock
+  private RuleOverlapRepository ruleOverlapRepository;
+
+  @Captor
+  private ArgumentCaptor<List<RuleOverlap>> overlapsCaptor;
+
+  private RuleOverlapService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new RuleOverlapService(ruleRepository, ruleOverlapRepository, new RuleEngine(new RuleTextNormalizer()));
+  }
+
+  @Test
+  void refreshStoresCrossCategoryNeedleContainment() throws Exception {
+    User user = new User();
+    Category groceries = category(10, "Groceries");
+    Category fastFood = category(20, "Fast Food");
+    Rule rewe = rule(100, "REWE", RuleMatchField.BOTH, groceries);
+    Rule toGo = rule(101, "to go", RuleMatchField.BOOKING_TEXT, groceries);
+    Rule reweToGo = rule(200, "Rewe To Go", RuleMatchField.PARTNER_NAME, fastFood);
+    Rule reweCity = rule(102, "rewe city", RuleMatchField.BOTH, groceries);
+
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rewe, toGo, reweToGo, reweCity));
+
+    int stored = service.refresh(user);
+
+    verify(ruleOverlapRepository).deleteByUser(user);
+    verify(ruleOverlapRepository).saveAll(overlapsCaptor.capture());
+    assertThat(stored).isEqualTo(2);
+    assertThat(overlapsCaptor.getValue())
+        .extracting(overlap -> overlap.getRule().getId(), overlap -> overlap.getOverlappingRule().getId(), RuleOverlap::getOverlapType)
+        .containsExactlyInAnyOrder(
+            tuple(200, 100, RuleOverlapType.IMPLIES),
+            tuple(200, 101, RuleOverlapType.SHARED_TEXT));
+  }
+
+  @Test
+  void preparedRuleSetMarksOnlyImpliedPairs() throws Exception {
+    Category groceries = category(10, "Groceries");
+    Category fastFood = category(20, "Fast Food");
+    PreparedRuleSet ruleSet = new RuleEngine(new RuleTextNormalizer()).prepare(List.of(
+        rule(200, "rewe to go", RuleMatchField.PARTNER_NAME, fastFood),
+        rule(100, "rewe", RuleMatchField.BOTH, groceries),
+        rule(101, "to go", RuleMatchField.BOOKING_TEXT, groceries)));
+
+    List<PreparedRuleSet.PreparedRule> rules = ruleSet.rules();
+    assertThat(ruleSet.implies(rules.get(0), rules.get(1))).isTrue();
+    assertThat(ruleSet.implies(rules.get(0), rules.get(2))).isFalse();
+    assertThat(ruleSet.implies(rules.get(1), rules.get(0))).isFalse();
+  }
+
+  private Rule rule(int id, String matchText, RuleMatchField field, Category category) throws Exception {
+    Rule rule = new Rule();
+    rule.setName("rule-" + id);
+    rule.setMatchText(matchText);
+    rule.setMatchField(field);
+    rule.setCategory(category);
+    rule.setActive(true);
+    setId(Rule.class, rule, id);
+    return rule;
+  }
+
+  private Category category(int id, String name) throws Exception {
+    Category category = new Category();
+    category.setName(name);
+    setId(Category.class, category, id);
+    return category;
+  }
+
+  private void setId(Class<?> type, Object target, int id) throws Exception {
+    Field idField = type.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(target, id);
+  }
+}
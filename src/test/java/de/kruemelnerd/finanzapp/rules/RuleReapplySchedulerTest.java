@@ -0,0 +1,239 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RuleReapplySchedulerTest {
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private CategoryBootstrapService categoryBootstrapService;
+
+  @Mock
+  private CategoryAssignmentService categoryAssignmentService;
+
+  @Mock
+  private CategoryAssignmentService.RuleRunPlan plan;
+
+  private ScheduledExecutorService executor;
+  private User user;
+  private Category defaultCategory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    defaultCategory = new Category();
+    user = new User();
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(user, 7);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void scheduleCoalescesBurstIntoSingleRun() {
+    RuleReapplyScheduler scheduler = scheduler(true);
+    when(userRepository.findById(7)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(eq(user), eq(defaultCategory), any(RuleRunProgress.class)))
+        .thenReturn(plan);
+    when(categoryAssignmentService.applyPlan(plan)).thenReturn(new CategoryAssignmentService.RuleRunStats(3, 10));
+
+    for (int i = 0; i < 20; i++) {
+      scheduler.schedule(user);
+    }
+
+    assertThat(scheduler.status(user).state()).isEqualTo(RuleReapplyScheduler.ReapplyState.QUEUED);
+    verify(categoryAssignmentService, timeout(2_000).times(1)).applyPlan(plan);
+    awaitState(scheduler, RuleReapplyScheduler.ReapplyState.DONE);
+    assertThat(scheduler.status(user).updatedTransactions()).isEqualTo(3);
+    verify(categoryAssignmentService, times(1)).planAllRules(eq(user), eq(defaultCategory), any(RuleRunProgress.class));
+    verify(categoryAssignmentService, never()).runAllRules(any(), any(RuleRunProgress.class));
+  }
+
+  @Test
+  void changesDuringRunQueueExactlyOneFollowUpRun() throws Exception {
+    RuleReapplyScheduler scheduler = scheduler(true);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(userRepository.findById(7)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(eq(user), eq(defaultCategory), any(RuleRunProgress.class)))
+        .thenAnswer(invocation -> {
+          started.countDown();
+          release.await(2, TimeUnit.SECONDS);
+          return plan;
+        });
+    when(categoryAssignmentService.applyPlan(plan)).thenReturn(new CategoryAssignmentService.RuleRunStats(1, 1));
+
+    scheduler.schedule(user);
+    assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(scheduler.status(user).state()).isEqualTo(RuleReapplyScheduler.ReapplyState.RUNNING);
+    scheduler.schedule(user);
+    scheduler.schedule(user);
+    release.countDown();
+
+    verify(categoryAssignmentService, timeout(2_000).times(2)).applyPlan(plan);
+    awaitState(scheduler, RuleReapplyScheduler.ReapplyState.DONE);
+  }
+
+  @Test
+  void manualRunWaitsForRunningBackgroundReapplication() throws Exception {
+    RuleReapplyScheduler scheduler = scheduler(true);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(userRepository.findById(7)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(eq(user), eq(defaultCategory), any(RuleRunProgress.class)))
+        .thenAnswer(invocation -> {
+          started.countDown();
+          release.await(2, TimeUnit.SECONDS);
+          return plan;
+        });
+    when(categoryAssignmentService.applyPlan(plan)).thenReturn(new CategoryAssignmentService.RuleRunStats(1, 1));
+
+    scheduler.schedule(user);
+    assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> manual = CompletableFuture.supplyAsync(() -> scheduler.runExclusively(user, () -> "manual"));
+    Thread.sleep(100);
+    assertThat(manual).isNotDone();
+
+    release.countDown();
+
+    assertThat(manual.get(2, TimeUnit.SECONDS)).isEqualTo("manual");
+    awaitState(scheduler, RuleReapplyScheduler.ReapplyState.DONE);
+  }
+
+  @Test
+  void finishedRunsArePrunedOnceNoLongerVisible() throws Exception {
+    MutableClock clock = new MutableClock(Instant.parse("2026-03-01T10:00:00Z"));
+    RuleReapplyScheduler scheduler = new RuleReapplyScheduler(
+        userRepository,
+        categoryBootstrapService,
+        categoryAssignmentService,
+        executor,
+        Duration.ofMillis(10),
+        true,
+        clock);
+    User other = new User();
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(other, 8);
+    when(userRepository.findById(7)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(eq(user), eq(defaultCategory), any(RuleRunProgress.class)))
+        .thenReturn(plan);
+    when(categoryAssignmentService.applyPlan(plan)).thenReturn(new CategoryAssignmentService.RuleRunStats(1, 1));
+    scheduler.schedule(user);
+    awaitState(scheduler, RuleReapplyScheduler.ReapplyState.DONE);
+    scheduler.runExclusively(other, () -> null);
+
+    assertThat(runs(scheduler)).containsOnlyKeys(7, 8);
+
+    clock.advance(Duration.ofMinutes(6));
+    scheduler.schedule(other);
+
+    assertThat(runs(scheduler)).containsOnlyKeys(8);
+    verify(userRepository, timeout(2_000)).findById(8);
+  }
+
+  @Test
+  void scheduleDoesNothingWhenDisabled() throws Exception {
+    RuleReapplyScheduler scheduler = scheduler(false);
+
+    scheduler.schedule(user);
+    Thread.sleep(100);
+
+    assertThat(scheduler.status(user).state()).isEqualTo(RuleReapplyScheduler.ReapplyState.IDLE);
+    verify(categoryAssignmentService, never()).planAllRules(any(), any(), any(RuleRunProgress.class));
+  }
+
+  private RuleReapplyScheduler scheduler(boolean enabled) {
+    return new RuleReapplyScheduler(
+        userRepository,
+        categoryBootstrapService,
+        categoryAssignmentService,
+        executor,
+        Duration.ofMillis(50),
+        enabled,
+        Clock.systemUTC());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Integer, ?> runs(RuleReapplyScheduler scheduler) throws Exception {
+    Field runs = RuleReapplyScheduler.class.getDeclaredField("runs");
+    runs.setAccessible(true);
+    return (Map<Integer, ?>) runs.get(scheduler);
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  private void awaitState(RuleReapplyScheduler scheduler, RuleReapplyScheduler.ReapplyState state) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (scheduler.status(user).state() != state && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertThat(scheduler.status(user).state()).isEqualTo(state);
+  }
+}
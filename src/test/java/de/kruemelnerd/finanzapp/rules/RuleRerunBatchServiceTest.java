@@ -0,0 +1,142 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.RuleRerunCheckpoint;
+import de.kruemelnerd.finanzapp.domain.RuleRerunStatus;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleRerunCheckpointRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class RuleRerunBatchServiceTest {
+  private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private CategoryBootstrapService categoryBootstrapService;
+
+  @Mock
+  private CategoryAssignmentService categoryAssignmentService;
+
+  @Mock
+  private RuleRerunCheckpointRepository checkpointRepository;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private CategoryAssignmentService.RuleRunPlan plan;
+
+  @Captor
+  private ArgumentCaptor<RuleRerunCheckpoint> checkpointCaptor;
+
+  private RuleRerunBatchService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new RuleRerunBatchService(
+        userRepository,
+        categoryBootstrapService,
+        categoryAssignmentService,
+        checkpointRepository,
+        jdbcTemplate,
+        Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void rerunAllSkipsUsersAlreadyDoneInBatchAndCheckpointsTheRest() throws Exception {
+    User user = userWithId(2);
+    Category defaultCategory = new Category();
+    when(checkpointRepository.findUserIdsByBatchIdAndStatus("nightly", RuleRerunStatus.DONE)).thenReturn(List.of(1));
+    when(userRepository.findAllIds()).thenReturn(List.of(1, 2));
+    when(userRepository.findById(2)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(user, defaultCategory, RuleRunProgress.NONE)).thenReturn(plan);
+    when(categoryAssignmentService.applyPlan(plan)).thenReturn(new CategoryAssignmentService.RuleRunStats(4, 10));
+    when(checkpointRepository.findByBatchIdAndUserId("nightly", 2)).thenReturn(Optional.empty());
+
+    RuleRerunBatchService.BatchResult result = service.rerunAll("nightly", 1);
+
+    assertThat(result.succeededUsers()).isEqualTo(1);
+    assertThat(result.skippedUsers()).isEqualTo(1);
+    assertThat(result.updatedTransactions()).isEqualTo(4);
+    verify(userRepository, never()).findById(1);
+    verify(checkpointRepository).save(checkpointCaptor.capture());
+    RuleRerunCheckpoint checkpoint = checkpointCaptor.getValue();
+    assertThat(checkpoint.getBatchId()).isEqualTo("nightly");
+    assertThat(checkpoint.getUserId()).isEqualTo(2);
+    assertThat(checkpoint.getStatus()).isEqualTo(RuleRerunStatus.DONE);
+    assertThat(checkpoint.getUpdatedTransactions()).isEqualTo(4);
+    assertThat(checkpoint.getScannedTransactions()).isEqualTo(10);
+    assertThat(checkpoint.getFinishedAt()).isEqualTo(NOW);
+  }
+
+  @Test
+  void failedUserIsCheckpointedAsFailedAndOverwrittenOnResume() throws Exception {
+    User user = userWithId(3);
+    Category defaultCategory = new Category();
+    RuleRerunCheckpoint previous = new RuleRerunCheckpoint();
+    previous.setStatus(RuleRerunStatus.FAILED);
+    when(userRepository.findById(3)).thenReturn(Optional.of(user));
+    when(categoryBootstrapService.ensureDefaultUncategorized(user)).thenReturn(defaultCategory);
+    when(categoryAssignmentService.planAllRules(user, defaultCategory, RuleRunProgress.NONE))
+        .thenThrow(new IllegalStateException("database is locked"));
+    when(checkpointRepository.findByBatchIdAndUserId("nightly", 3)).thenReturn(Optional.of(previous));
+
+    RuleRerunBatchService.UserResult result = service.rerunUser("nightly", 3);
+
+    assertThat(result.status()).isEqualTo(RuleRerunStatus.FAILED);
+    verify(categoryAssignmentService, never()).applyPlan(any());
+    verify(checkpointRepository).save(checkpointCaptor.capture());
+    assertThat(checkpointCaptor.getValue()).isSameAs(previous);
+    assertThat(previous.getStatus()).isEqualTo(RuleRerunStatus.FAILED);
+    assertThat(previous.getErrorMessage()).isEqualTo("database is locked");
+  }
+
+  @Test
+  void parallelismFallsBackToOneWithoutWriteAheadLog() {
+    when(jdbcTemplate.queryForObject(eq("PRAGMA journal_mode"), eq(String.class))).thenReturn("delete");
+
+    assertThat(service.effectiveParallelism(4)).isEqualTo(1);
+  }
+
+  @Test
+  void parallelismIsKeptWithWriteAheadLog() {
+    when(jdbcTemplate.queryForObject(eq("PRAGMA journal_mode"), eq(String.class))).thenReturn("wal");
+
+    assertThat(service.effectiveParallelism(4)).isEqualTo(4);
+    assertThat(service.effectiveParallelism(0)).isEqualTo(1);
+  }
+
+  private User userWithId(int id) throws Exception {
+    User user = new User();
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(user, id);
+    return user;
+  }
+}
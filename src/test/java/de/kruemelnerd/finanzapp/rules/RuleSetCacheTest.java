@@ -0,0 +1,94 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RuleSetCacheTest {
+  @Mock
+  private RuleRepository ruleRepository;
+
+  private RuleSetCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new RuleSetCache(ruleRepository, new RuleEngine(new RuleTextNormalizer()), 2, Duration.ofMinutes(30));
+  }
+
+  @Test
+  void activeRulesAreLoadedOncePerUserUntilInvalidated() throws Exception {
+    User user = userWithId(1);
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule("rewe")));
+
+    PreparedRuleSet first = cache.activeRules(user);
+    PreparedRuleSet second = cache.activeRules(user);
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.rules()).extracting(PreparedRuleSet.PreparedRule::needle).containsExactly("rewe");
+    verify(ruleRepository, times(1)).findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
+
+    cache.invalidate(user);
+    PreparedRuleSet reloaded = cache.activeRules(user);
+
+    assertThat(reloaded).isNotSameAs(first);
+    verify(ruleRepository, times(2)).findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user);
+  }
+
+  @Test
+  void leastRecentlyUsedUserIsEvictedWhenCacheIsFull() throws Exception {
+    User first = userWithId(1);
+    User second = userWithId(2);
+    User third = userWithId(3);
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(first))
+        .thenReturn(List.of());
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(second))
+        .thenReturn(List.of());
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(third))
+        .thenReturn(List.of());
+
+    cache.activeRules(first);
+    cache.activeRules(second);
+    cache.activeRules(first);
+    cache.activeRules(third);
+    cache.activeRules(first);
+    cache.activeRules(second);
+
+    verify(ruleRepository, times(1)).findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(first);
+    verify(ruleRepository, times(2)).findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(second);
+  }
+
+  private Rule rule(String matchText) {
+    Rule rule = new Rule();
+    rule.setName("rule-" + matchText);
+    rule.setMatchText(matchText);
+    rule.setMatchField(RuleMatchField.BOTH);
+    rule.setCategory(new Category());
+    rule.setActive(true);
+    return rule;
+  }
+
+  private User userWithId(int id) throws Exception {
+    User user = new User();
+    Field idField = User.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(user, id);
+    return user;
+  }
+}
@@ -0,0 +1,212 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionMatchRow;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+
+@ExtendWith(MockitoExtension.class)
+class RuleSimulationServiceTest {
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Mock
+  private TransactionRepository transactionRepository;
+
+  @Mock
+  private RuleRepository ruleRepository;
+
+  private RuleSimulationService service;
+  private User user;
+  private UserDetails principal;
+  private Category fastFood;
+  private Category groceries;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    service = service(1000);
+
+    user = new User();
+    user.setEmail("user@example.com");
+    setId(User.class, user, 1);
+    principal = org.springframework.security.core.userdetails.User
+        .withUsername("user@example.com")
+        .password("hashed")
+        .roles("USER")
+        .build();
+
+    Category food = category(1, "Food", null);
+    fastFood = category(10, "Fast Food", food);
+    groceries = category(20, "Groceries", food);
+  }
+
+  @Test
+  void simulateReportsMatchesConflictsAndSamplesWithoutWriting() throws Exception {
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryRepository.findByIdAndUserAndDeletedAtIsNull(10, user)).thenReturn(Optional.of(fastFood));
+    when(categoryRepository.findByUserAndDeletedAtIsNullAndParentIsNotNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(fastFood, groceries));
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of(rule(100, "burger", fastFood), rule(200, "rewe", groceries)));
+    when(transactionRepository.findMatchRowsByUser(user)).thenReturn(List.of(
+        row(3, "REWE To Go"),
+        row(2, "Burger King"),
+        row(1, "Edeka")));
+
+    Optional<RuleSimulationService.RuleSimulationResult> result =
+        service.simulate(principal, 10, "Burger King\nto go\nkebab");
+
+    assertThat(result).isPresent();
+    assertThat(result.get().scannedTransactions()).isEqualTo(3);
+    assertThat(result.get().matchedTransactions()).isEqualTo(2);
+    assertThat(result.get().winningTransactions()).isEqualTo(2);
+    assertThat(result.get().fragments())
+        .extracting(RuleSimulationService.FragmentMatch::matchCount)
+        .containsExactly(1, 1, 0);
+    assertThat(result.get().newConflicts()).containsExactly(
+        new RuleSimulationService.ConflictingRule(200, 20, "Food -> Groceries", "rewe", 1));
+    assertThat(result.get().samples())
+        .extracting(RuleSimulationService.SampleTransaction::id)
+        .containsExactly(3, 2);
+    verify(transactionRepository, never()).updateCategoryAssignment(anyList(), any(), any());
+    verify(ruleRepository, never()).updateRunStats(anyList(), any(), anyInt());
+  }
+
+  @Test
+  void simulateReusesNormalizedHistoryWhileTransactionsAreUnchanged() {
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryRepository.findByIdAndUserAndDeletedAtIsNull(10, user)).thenReturn(Optional.of(fastFood));
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of());
+    when(transactionRepository.findRevisionByUserId(1)).thenReturn(1L);
+    when(transactionRepository.findMatchRowsByUser(user)).thenReturn(List.of(row(1, "Burger King")));
+
+    service.simulate(principal, 10, "burger");
+    Optional<RuleSimulationService.RuleSimulationResult> second = service.simulate(principal, 10, "king");
+
+    assertThat(second).isPresent();
+    assertThat(second.get().matchedTransactions()).isEqualTo(1);
+    verify(transactionRepository, times(1)).findMatchRowsByUser(user);
+  }
+
+  @Test
+  void simulateReloadsHistoryWhenRevisionChangesWithoutCountChange() {
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryRepository.findByIdAndUserAndDeletedAtIsNull(10, user)).thenReturn(Optional.of(fastFood));
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of());
+    when(transactionRepository.findRevisionByUserId(1)).thenReturn(4L, 6L);
+    when(transactionRepository.findMatchRowsByUser(user)).thenReturn(
+        List.of(row(2, "Burger King", true), row(1, "Burger Queen", false)),
+        List.of(row(2, "Burger King", false), row(1, "Burger Queen", true)));
+
+    service.simulate(principal, 10, "burger king");
+    Optional<RuleSimulationService.RuleSimulationResult> second = service.simulate(principal, 10, "burger king");
+
+    assertThat(second).isPresent();
+    assertThat(second.get().lockedTransactions()).isZero();
+    verify(transactionRepository, times(2)).findMatchRowsByUser(user);
+  }
+
+  @Test
+  void simulateDoesNotCacheHistoryLargerThanRowBudget() {
+    service = service(1);
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryRepository.findByIdAndUserAndDeletedAtIsNull(10, user)).thenReturn(Optional.of(fastFood));
+    when(ruleRepository.findByUserAndIsActiveTrueAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user))
+        .thenReturn(List.of());
+    when(transactionRepository.findRevisionByUserId(1)).thenReturn(1L);
+    when(transactionRepository.findMatchRowsByUser(user)).thenReturn(List.of(row(2, "Burger King"), row(1, "Edeka")));
+
+    service.simulate(principal, 10, "burger");
+    service.simulate(principal, 10, "king");
+
+    verify(transactionRepository, times(2)).findMatchRowsByUser(user);
+  }
+
+  @Test
+  void simulateRejectsTopLevelCategory() throws Exception {
+    Category topLevel = category(30, "Living", null);
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryRepository.findByIdAndUserAndDeletedAtIsNull(30, user)).thenReturn(Optional.of(topLevel));
+
+    assertThat(service.simulate(principal, 30, "rent")).isEmpty();
+  }
+
+  private RuleSimulationService service(int maxCachedRows) {
+    RuleTextNormalizer normalizer = new RuleTextNormalizer();
+    RuleEngine ruleEngine = new RuleEngine(normalizer);
+    return new RuleSimulationService(
+        new CurrentUserResolver(userRepository, Duration.ZERO),
+        categoryRepository,
+        transactionRepository,
+        ruleEngine,
+        normalizer,
+        new RuleSetCache(ruleRepository, ruleEngine, 16, Duration.ofMinutes(30)),
+        maxCachedRows,
+        Duration.ofMinutes(10));
+  }
+
+  private TransactionMatchRow row(int id, String partnerName) {
+    return row(id, partnerName, false);
+  }
+
+  private TransactionMatchRow row(int id, String partnerName, boolean categoryLocked) {
+    return new TransactionMatchRow(
+        id, LocalDateTime.of(2026, 2, id, 9, 0), partnerName, null, null, -1000L, categoryLocked);
+  }
+
+  private Rule rule(int id, String matchText, Category category) throws Exception {
+    Rule rule = new Rule();
+    rule.setName("rule-" + id);
+    rule.setMatchText(matchText);
+    rule.setMatchField(RuleMatchField.BOTH);
+    rule.setCategory(category);
+    rule.setActive(true);
+    setId(Rule.class, rule, id);
+    return rule;
+  }
+
+  private Category category(int id, String name, Category parent) throws Exception {
+    Category category = new Category();
+    category.setName(name);
+    category.setParent(parent);
+    setId(Category.class, category, id);
+    return category;
+  }
+
+  private void setId(Class<?> type, Object target, int id) throws Exception {
+    Field idField = type.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(target, id);
+  }
+}
@@ -0,0 +1,100 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.CategoryRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class RuleSqlPushdownIntegrationTest {
+  @Autowired
+  private RuleSqlPushdown ruleSqlPushdown;
+
+  @Autowired
+  private RuleEngine ruleEngine;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private TransactionRepository transactionRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void runRecomputesMatchTextFromOlderNormalizerOrChangedSourceText() {
+    User user = new User();
+    user.setEmail("pushdown-" + UUID.randomUUID() + "@example.com");
+    user.setPasswordHash("hashed");
+    user = userRepository.saveAndFlush(user);
+
+    Category parent = new Category();
+    parent.setUser(user);
+    parent.setName("Freizeit");
+    parent = categoryRepository.saveAndFlush(parent);
+    Category sport = new Category();
+    sport.setUser(user);
+    sport.setParent(parent);
+    sport.setName("Sport");
+    sport = categoryRepository.saveAndFlush(sport);
+
+    Transaction stale = importedTransaction(user, "Intersport Köln");
+    Transaction edited = importedTransaction(user, "Bäckerei");
+    jdbcTemplate.update(
+        "UPDATE transactions SET match_partner_name = 'outdated', match_text_version = ? WHERE id = ?",
+        RuleTextNormalizer.VERSION - 1,
+        stale.getId());
+    edited.setPartnerName("INTERSPORT Bonn");
+    transactionRepository.saveAndFlush(edited);
+
+    Rule rule = new Rule();
+    rule.setName("Sport");
+    rule.setMatchText("intersport");
+    rule.setMatchField(RuleMatchField.PARTNER_NAME);
+    rule.setCategory(sport);
+    rule.setActive(true);
+
+    RuleSqlPushdown.PushdownResult result = ruleSqlPushdown.run(user, ruleEngine.prepare(List.of(rule)));
+
+    assertThat(result.matchedTransactions()).isEqualTo(2);
+    assertThat(jdbcTemplate.queryForList(
+            "SELECT match_partner_name FROM transactions WHERE user_id = ? AND match_text_version = ? ORDER BY id",
+            String.class,
+            user.getId(),
+            RuleTextNormalizer.VERSION))
+        .containsExactly("intersport koln", "intersport bonn");
+  }
+
+  private Transaction importedTransaction(User user, String partnerName) {
+    Transaction transaction = new Transaction();
+    transaction.setUser(user);
+    transaction.setBookingDateTime(LocalDateTime.of(2026, 3, 1, 10, 0));
+    transaction.setPartnerName(partnerName);
+    transaction.setPurposeText("Kartenzahlung");
+    transaction.setAmountCents(-1000L);
+    RuleEngine.MatchText matchText = ruleEngine.normalize(transaction);
+    transaction.setMatchBookingText(matchText.bookingText());
+    transaction.setMatchPartnerName(matchText.partnerName());
+    transaction.setMatchTextVersion(RuleTextNormalizer.VERSION);
+    return transactionRepository.saveAndFlush(transaction);
+  }
+}
@@ -0,0 +1,80 @@
+package de.kruemelnerd.finanzapp.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.kruemelnerd.finanzapp.domain.Category;
+import de.kruemelnerd.finanzapp.domain.Rule;
+import de.kruemelnerd.finanzapp.domain.RuleMatchField;
+import java.lang.reflect.Field;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class RuleSqlPushdownTest {
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  private final RuleEngine ruleEngine = new RuleEngine(new RuleTextNormalizer());
+
+  @Test
+  void compileMergesConsecutiveRulesOfSameCategoryIntoOnePriorityBand() throws Exception {
+    RuleSqlPushdown pushdown = new RuleSqlPushdown(jdbcTemplate, ruleEngine, true);
+    Category fastFood = categoryWithId(1);
+    Category sport = categoryWithId(2);
+    PreparedRuleSet ruleSet = ruleEngine.prepare(List.of(
+        ruleWith(10, "McDonald’s", RuleMatchField.PARTNER_NAME, fastFood),
+        ruleWith(11, "Burger", RuleMatchField.BOTH, fastFood),
+        ruleWith(12, "Intersport", RuleMatchField.BOOKING_TEXT, sport)));
+
+    RuleSqlPushdown.CompiledRules compiled = pushdown.compile(ruleSet);
+
+    assertThat(compiled.categoryCase()).isEqualTo(
+        "CASE WHEN instr(match_partner_name, ?2) > 0"
+            + " OR (instr(match_booking_text, ?3) > 0 OR instr(match_partner_name, ?3) > 0) THEN 1"
+            + " WHEN instr(match_booking_text, ?4) > 0 THEN 2 END");
+    assertThat(compiled.anyMatch()).isEqualTo(
+        "(instr(match_partner_name, ?2) > 0"
+            + " OR (instr(match_booking_text, ?3) > 0 OR instr(match_partner_name, ?3) > 0)"
+            + " OR instr(match_booking_text, ?4) > 0)");
+    assertThat(compiled.args(7)).containsExactly(7, "mcdonalds", "burger", "intersport");
+  }
+
+  @Test
+  void supportsFallsBackToJavaForTokenRulesOrWhenDisabled() throws Exception {
+    RuleEngine tokenEngine = new RuleEngine(new RuleTextNormalizer(), true);
+    PreparedRuleSet tokenRules = tokenEngine.prepare(List.of(
+        ruleWith(10, "Rewe", RuleMatchField.BOTH, categoryWithId(1))));
+    PreparedRuleSet substringRules = ruleEngine.prepare(List.of(
+        ruleWith(10, "Rewe", RuleMatchField.BOTH, categoryWithId(1))));
+
+    assertThat(new RuleSqlPushdown(jdbcTemplate, tokenEngine, true).supports(tokenRules)).isFalse();
+    assertThat(new RuleSqlPushdown(jdbcTemplate, ruleEngine, true).supports(substringRules)).isTrue();
+    assertThat(new RuleSqlPushdown(jdbcTemplate, ruleEngine, false).supports(substringRules)).isFalse();
+  }
+
+  private Rule ruleWith(int id, String matchText, RuleMatchField field, Category category) throws Exception {
+    Rule rule = new Rule();
+    rule.setName("rule-" + id);
+    rule.setMatchText(matchText);
+    rule.setMatchField(field);
+    rule.setCategory(category);
+    rule.setActive(true);
+
+    Field idField = Rule.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(rule, id);
+    return rule;
+  }
+
+  private Category categoryWithId(int id) throws Exception {
+    Category category = new Category();
+    Field idField = Category.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(category, id);
+    return category;
+  }
+}
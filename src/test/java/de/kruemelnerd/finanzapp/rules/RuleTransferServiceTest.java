@@ -4,12 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
-import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
 import de.kruemelnerd.finanzapp.repository.RuleRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,7 +36,13 @@ class RuleTransferServiceTest {
   private CategoryRepository categoryRepository;
 
   @Mock
-  private CategoryBootstrapService categoryBootstrapService;
+  private RuleSetCache ruleSetCache;
+
+  @Mock
+  private RuleOverlapService ruleOverlapService;
+
+  @Mock
+  private RuleReapplyScheduler ruleReapplyScheduler;
 
   private User user;
   private UserDetails userDetails;
@@ -54,11 +61,13 @@ class RuleTransferServiceTest {
   @Test
   void exportAsJsonWrapsJacksonSerializationFailure() {
     RuleTransferService service = new RuleTransferService(
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         ruleRepository,
         categoryRepository,
-        categoryBootstrapService,
-        new FailingExportObjectMapper());
+        new FailingExportObjectMapper(),
+        ruleSetCache,
+        ruleOverlapService,
+        ruleReapplyScheduler);
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
     when(ruleRepository.findByUserAndDeletedAtIsNullOrderBySortOrderAscIdAsc(user)).thenReturn(List.of());
@@ -72,11 +81,13 @@ class RuleTransferServiceTest {
   @Test
   void importFromJsonReturnsInvalidJsonWhenJacksonReadFails() {
     RuleTransferService service = new RuleTransferService(
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         ruleRepository,
         categoryRepository,
-        categoryBootstrapService,
-        new FailingImportObjectMapper());
+        new FailingImportObjectMapper(),
+        ruleSetCache,
+        ruleOverlapService,
+        ruleReapplyScheduler);
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
 
@@ -5,10 +5,13 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
+import de.kruemelnerd.finanzapp.categories.CategoryTreeCache;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.BalanceDailyRepository;
 import de.kruemelnerd.finanzapp.repository.CsvArtifactRepository;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +24,9 @@ class DataDeletionServiceTest {
   @Mock
   private TransactionRepository transactionRepository;
 
+  @Mock
+  private TransactionRuleConflictRepository transactionRuleConflictRepository;
+
   @Mock
   private CsvArtifactRepository csvArtifactRepository;
 
@@ -30,15 +36,24 @@ class DataDeletionServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private AccountBalanceService accountBalanceService;
+
+  @Mock
+  private CategoryTreeCache categoryTreeCache;
+
   private DataDeletionService service;
 
   @BeforeEach
   void setUp() {
     service = new DataDeletionService(
         transactionRepository,
+        transactionRuleConflictRepository,
         csvArtifactRepository,
         balanceDailyRepository,
-        userRepository);
+        userRepository,
+        accountBalanceService,
+        categoryTreeCache);
   }
 
   @Test
@@ -52,6 +67,7 @@ class DataDeletionServiceTest {
     verify(transactionRepository).softDeleteByUser(eq(user), any(java.time.Instant.class));
     verify(csvArtifactRepository).softDeleteByUser(eq(user), any(java.time.Instant.class));
     verify(balanceDailyRepository).deleteByUser(user);
+    verify(accountBalanceService).invalidate(user);
     verifyNoMoreInteractions(userRepository);
   }
 
@@ -63,9 +79,12 @@ class DataDeletionServiceTest {
 
     service.hardDeleteAccount(user);
 
+    verify(transactionRuleConflictRepository).deleteByUser(user);
     verify(transactionRepository).deleteByUser(user);
     verify(csvArtifactRepository).deleteByUser(user);
     verify(balanceDailyRepository).deleteByUser(user);
+    verify(accountBalanceService).invalidate(user);
+    verify(categoryTreeCache).invalidate(user);
     verify(userRepository).delete(user);
   }
 }
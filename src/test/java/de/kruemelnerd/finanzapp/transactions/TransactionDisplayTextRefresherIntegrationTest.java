@@ -0,0 +1,72 @@
+package de.kruemelnerd.finanzapp.transactions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.kruemelnerd.finanzapp.domain.Transaction;
+import de.kruemelnerd.finanzapp.domain.TransactionDisplayText;
+import de.kruemelnerd.finanzapp.domain.User;
+import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class TransactionDisplayTextRefresherIntegrationTest {
+  @Autowired
+  private TransactionDisplayTextRefresher refresher;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TransactionRepository transactionRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void refreshStaleRecomputesRowsFromOlderVersionsOnly() {
+    User user = new User();
+    user.setEmail("display-" + UUID.randomUUID() + "@example.com");
+    user.setPasswordHash("hashed");
+    user = userRepository.saveAndFlush(user);
+
+    Transaction stale = transaction(user, "Sport Shop Buchungstext: Laufschuhe", "Buchungstext: Laufschuhe");
+    Transaction current = transaction(user, "Book Store", "Books");
+    jdbcTemplate.update(
+        "UPDATE transactions SET display_name = 'old', display_purpose = 'old', display_text_version = ? WHERE id = ?",
+        TransactionDisplayText.VERSION - 1,
+        stale.getId());
+
+    assertThat(refresher.refreshStale()).isEqualTo(1);
+    assertThat(refresher.refreshStale()).isZero();
+
+    Map<String, Object> refreshed = jdbcTemplate.queryForMap(
+        "SELECT display_name, display_purpose, display_text_version FROM transactions WHERE id = ?",
+        stale.getId());
+    assertThat(refreshed)
+        .containsEntry("display_name", "Sport Shop")
+        .containsEntry("display_purpose", "Laufschuhe")
+        .containsEntry("display_text_version", TransactionDisplayText.VERSION);
+    assertThat(jdbcTemplate.queryForObject(
+            "SELECT display_name FROM transactions WHERE id = ?", String.class, current.getId()))
+        .isEqualTo("Book Store");
+  }
+
+  private Transaction transaction(User user, String partnerName, String purposeText) {
+    Transaction transaction = new Transaction();
+    transaction.setUser(user);
+    transaction.setBookingDateTime(LocalDateTime.of(2026, 3, 1, 10, 0));
+    transaction.setPartnerName(partnerName);
+    transaction.setPurposeText(purposeText);
+    transaction.setAmountCents(-1000L);
+    return transactionRepository.saveAndFlush(transaction);
+  }
+}
@@ -1,29 +1,47 @@
 package de.kruemelnerd.finanzapp.transactions;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import de.kruemelnerd.finanzapp.auth.CurrentUserResolver;
 import de.kruemelnerd.finanzapp.balance.AccountBalanceService;
-import de.kruemelnerd.finanzapp.categories.CategoryBootstrapService;
+import de.kruemelnerd.finanzapp.balance.BalanceService;
+import de.kruemelnerd.finanzapp.categories.CategoryTree;
+import de.kruemelnerd.finanzapp.categories.CategoryTreeCache;
 import de.kruemelnerd.finanzapp.domain.Category;
 import de.kruemelnerd.finanzapp.domain.CategoryAssignedBy;
 import de.kruemelnerd.finanzapp.domain.Transaction;
 import de.kruemelnerd.finanzapp.domain.User;
 import de.kruemelnerd.finanzapp.repository.CategoryRepository;
-import de.kruemelnerd.finanzapp.repository.RuleRepository;
+import de.kruemelnerd.finanzapp.repository.RuleConflictName;
 import de.kruemelnerd.finanzapp.repository.TransactionRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionRuleConflictRepository;
+import de.kruemelnerd.finanzapp.repository.TransactionSearchSpecification;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UserDetails;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,13 +56,16 @@ class TransactionViewServiceTest {
   private AccountBalanceService accountBalanceService;
 
   @Mock
-  private CategoryBootstrapService categoryBootstrapService;
+  private BalanceService balanceService;
 
   @Mock
   private CategoryRepository categoryRepository;
 
   @Mock
-  private RuleRepository ruleRepository;
+  private CategoryTreeCache categoryTreeCache;
+
+  @Mock
+  private TransactionRuleConflictRepository transactionRuleConflictRepository;
 
   private TransactionViewService service;
 
@@ -52,14 +73,14 @@ class TransactionViewServiceTest {
   void setUp() {
     service = new TransactionViewService(
         transactionRepository,
-        userRepository,
+        new CurrentUserResolver(userRepository, Duration.ZERO),
         accountBalanceService,
-        categoryBootstrapService,
         categoryRepository,
-        ruleRepository);
+        categoryTreeCache,
+        transactionRuleConflictRepository,
+        balanceService);
 
-    lenient().when(categoryRepository.findByUserAndDeletedAtIsNullAndParentIsNullOrderBySortOrderAscIdAsc(org.mockito.ArgumentMatchers.any()))
-        .thenReturn(List.of());
+    lenient().when(categoryTreeCache.tree(any())).thenReturn(CategoryTree.EMPTY);
   }
 
   @Test
@@ -80,8 +101,7 @@ class TransactionViewServiceTest {
     Transaction high = buildTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -12000L, "HIGH");
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(high, mid, low));
+    when(transactionRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(mid));
 
     List<TransactionRow> rows = service.loadTransactions(
         principal,
@@ -90,6 +110,9 @@ class TransactionViewServiceTest {
         null,
         null);
 
+    TransactionSearchSpecification search = capturedSearch();
+    assertThat(search.minAbsoluteCents()).isEqualTo(5000L);
+    assertThat(search.maxAbsoluteCents()).isEqualTo(10000L);
     assertThat(rows).hasSize(1);
     assertThat(rows.get(0).name()).isEqualTo("MID");
     assertThat(rows.get(0).amount()).isEqualTo("-75.00 EUR");
@@ -114,8 +137,12 @@ class TransactionViewServiceTest {
         .toList();
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(transactions);
+    when(transactionRepository.findAll(any(Specification.class), any(Pageable.class))).thenAnswer(invocation -> {
+      Pageable pageable = invocation.getArgument(1);
+      int from = (int) Math.min(pageable.getOffset(), transactions.size());
+      int to = Math.min(from + pageable.getPageSize(), transactions.size());
+      return new PageImpl<>(transactions.subList(from, to), pageable, transactions.size());
+    });
 
     TransactionPage firstPage = service.loadTransactionsPage(principal, null, null, null, null, false, null, null, 0, 10);
     TransactionPage secondPage = service.loadTransactionsPage(principal, null, null, null, null, false, null, null, 1, 10);
@@ -150,11 +177,15 @@ class TransactionViewServiceTest {
     manualTx.setCategoryAssignedBy(CategoryAssignedBy.MANUAL);
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(defaultTx, manualTx));
+    when(transactionRepository.findAll(any(Specification.class), any(Pageable.class)))
+        .thenAnswer(invocation -> new PageImpl<>(List.of(defaultTx), invocation.getArgument(1), 1));
 
     TransactionPage page = service.loadTransactionsPage(principal, null, null, null, null, true, null, null, 0, 10);
 
+    ArgumentCaptor<Specification<Transaction>> captor = ArgumentCaptor.forClass(Specification.class);
+    verify(transactionRepository).findAll(captor.capture(), any(Pageable.class));
+    assertThat(((TransactionSearchSpecification) captor.getValue()).onlyUncategorized()).isTrue();
+    assertThat(page.totalItems()).isEqualTo(1);
     assertThat(page.rows()).hasSize(1);
     assertThat(page.rows().get(0).name()).isEqualTo("DEFAULT");
   }
@@ -175,8 +206,7 @@ class TransactionViewServiceTest {
     Transaction tx = buildTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -123456L, "Miete");
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(tx));
+    when(transactionRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(tx));
 
     List<TransactionRow> rows = service.loadTransactions(principal, null, null, null, null);
 
@@ -185,6 +215,162 @@ class TransactionViewServiceTest {
     assertThat(rows.get(0).amount()).isEqualTo("-1.234,56 EUR");
   }
 
+  @Test
+  void loadTransactionsResolvesConflictNamesForDisplayedRows() throws Exception {
+    User user = new User();
+    user.setEmail("user@example.com");
+    user.setPasswordHash("hashed");
+    user.setLanguage("EN");
+
+    UserDetails principal = org.springframework.security.core.userdetails.User
+        .withUsername("user@example.com")
+        .password("hashed")
+        .roles("USER")
+        .build();
+
+    Transaction first = buildTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -100L, "FIRST");
+    Transaction second = buildTransaction(user, LocalDateTime.of(2026, 2, 1, 9, 0), -200L, "SECOND");
+    setId(first, 1);
+    setId(second, 2);
+
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(transactionRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(first, second));
+    when(transactionRuleConflictRepository.findConflictNamesByTransactionIds(List.of(1, 2)))
+        .thenReturn(List.of(
+            new RuleConflictName(1, 100, "Burger"),
+            new RuleConflictName(1, 101, null)));
+
+    List<TransactionRow> rows = service.loadTransactions(principal, null, null, null, null);
+
+    assertThat(rows).extracting(TransactionRow::conflictNames).containsExactly("Burger, #101", null);
+  }
+
+  @Test
+  void loadTransactionsSliceReturnsOpaqueCursorsForKeysetPaging() throws Exception {
+    User user = new User();
+    user.setEmail("user@example.com");
+    user.setPasswordHash("hashed");
+
+    UserDetails principal = org.springframework.security.core.userdetails.User
+        .withUsername("user@example.com")
+        .password("hashed")
+        .roles("USER")
+        .build();
+
+    List<Transaction> newestFirst = new java.util.ArrayList<>();
+    for (int i = 12; i >= 1; i--) {
+      Transaction tx = buildTransaction(user, LocalDateTime.of(2026, 2, i, 9, 0), -100L * i, "TX-" + i);
+      setId(tx, i);
+      newestFirst.add(tx);
+    }
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(transactionRepository.findBy(any(Specification.class), any())).thenReturn(newestFirst.subList(0, 11));
+
+    TransactionSlice first = service.loadTransactionsSlice(
+        principal, null, null, null, null, false, null, null, null, null, 10);
+
+    assertThat(first.rows()).hasSize(10);
+    assertThat(first.rows().get(0).name()).isEqualTo("TX-12");
+    assertThat(first.previousCursor()).isNull();
+    assertThat(TransactionCursor.decode(first.nextCursor()))
+        .contains(new TransactionCursor(LocalDateTime.of(2026, 2, 3, 9, 0), 3));
+
+    when(transactionRepository.findBy(any(Specification.class), any()))
+        .thenReturn(List.of(newestFirst.get(1), newestFirst.get(0)));
+
+    TransactionSlice newer = service.loadTransactionsSlice(
+        principal, null, null, null, null, false, null, null, null, first.nextCursor(), 10);
+
+    assertThat(newer.rows()).extracting(TransactionRow::name).containsExactly("TX-12", "TX-11");
+    assertThat(newer.previousCursor()).isNull();
+    assertThat(TransactionCursor.decode(newer.nextCursor()))
+        .contains(new TransactionCursor(LocalDateTime.of(2026, 2, 11, 9, 0), 11));
+    assertThat(TransactionCursor.decode("not-a-cursor")).isEmpty();
+  }
+
+  @Test
+  void loadRecentFetchesAndMapsOnlyRequestedRows() {
+    User user = new User();
+    user.setEmail("user@example.com");
+    user.setPasswordHash("hashed");
+
+    UserDetails principal = org.springframework.security.core.userdetails.User
+        .withUsername("user@example.com")
+        .password("hashed")
+        .roles("USER")
+        .build();
+
+    Transaction newest = buildTransaction(user, LocalDateTime.of(2026, 2, 3, 9, 0), -300L, "NEWEST");
+    Transaction second = buildTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -200L, "SECOND");
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDescIdDesc(user, Limit.of(2)))
+        .thenReturn(List.of(newest, second));
+
+    List<TransactionRow> rows = service.loadRecent(principal, 2);
+
+    assertThat(rows).extracting(TransactionRow::name).containsExactly("NEWEST", "SECOND");
+    verify(transactionRepository, never()).findAll(any(Specification.class), any(Sort.class));
+  }
+
+  @Test
+  void loadTransactionsPageResolvesCategoryFilterFromCachedTree() throws Exception {
+    User user = new User();
+    user.setEmail("user@example.com");
+    user.setPasswordHash("hashed");
+
+    UserDetails principal = org.springframework.security.core.userdetails.User
+        .withUsername("user@example.com")
+        .password("hashed")
+        .roles("USER")
+        .build();
+
+    Category shopping = category(10, null, "Shopping");
+    Category sport = category(11, shopping, "Sport");
+    Category clothing = category(12, shopping, "Kleidung");
+    Transaction tx = buildTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -100L, "TX");
+    tx.setCategory(sport);
+
+    when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(categoryTreeCache.tree(user)).thenReturn(CategoryTree.of(List.of(shopping, sport, clothing)));
+    when(transactionRepository.findAll(any(Specification.class), any(Pageable.class)))
+        .thenAnswer(invocation -> new PageImpl<>(List.of(tx), invocation.getArgument(1), 1));
+
+    TransactionPage page = service.loadTransactionsPage(principal, null, null, null, null, false, null, 10, 0, 10);
+
+    ArgumentCaptor<Specification<Transaction>> captor = ArgumentCaptor.forClass(Specification.class);
+    verify(transactionRepository).findAll(captor.capture(), any(Pageable.class));
+    assertThat(((TransactionSearchSpecification) captor.getValue()).categoryIds()).containsExactlyInAnyOrder(11, 12);
+    assertThat(page.parentCategoryIdFilter()).isEqualTo(10);
+    assertThat(page.categoryFilterLabel()).isEqualTo("Shopping");
+    assertThat(page.rows().get(0).categoryLabel()).isEqualTo("Shopping -> Sport");
+    assertThat(service.loadCategoryOptions(principal))
+        .extracting(TransactionCategoryOption::label)
+        .containsExactly("Shopping -> Sport", "Shopping -> Kleidung");
+    verifyNoInteractions(categoryRepository);
+  }
+
+  private Category category(int id, Category parent, String name) throws Exception {
+    Category category = new Category();
+    category.setParent(parent);
+    category.setName(name);
+    Field idField = Category.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(category, id);
+    return category;
+  }
+
+  private TransactionSearchSpecification capturedSearch() {
+    ArgumentCaptor<Specification<Transaction>> captor = ArgumentCaptor.forClass(Specification.class);
+    verify(transactionRepository).findAll(captor.capture(), any(Sort.class));
+    return (TransactionSearchSpecification) captor.getValue();
+  }
+
+  private void setId(Transaction transaction, int id) throws Exception {
+    Field idField = Transaction.class.getDeclaredField("id");
+    idField.setAccessible(true);
+    idField.set(transaction, id);
+  }
+
   private Transaction buildTransaction(User user, LocalDateTime dateTime, long cents, String name) {
     Transaction tx = new Transaction();
     tx.setUser(user);
@@ -255,8 +441,7 @@ class TransactionViewServiceTest {
     second.setPurposeText("Apartment");
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(first, second));
+    when(transactionRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(first));
 
     List<TransactionRow> rows = service.loadTransactions(
         principal,
@@ -265,6 +450,9 @@ class TransactionViewServiceTest {
         " al ",
         "spac");
 
+    TransactionSearchSpecification search = capturedSearch();
+    assertThat(search.nameContains()).isEqualTo(" al ");
+    assertThat(search.purposeContains()).isEqualTo("spac");
     assertThat(rows).hasSize(1);
     assertThat(rows.get(0).name()).isEqualTo("Alex");
   }
@@ -281,17 +469,24 @@ class TransactionViewServiceTest {
         .roles("USER")
         .build();
 
+    Transaction transaction = new Transaction();
+    transaction.setBookingDateTime(LocalDateTime.of(2026, 2, 1, 10, 0));
+    transaction.setAmountCents(-1299L);
+
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+    when(transactionRepository.findByIdAndUserAndDeletedAtIsNull(42, user)).thenReturn(Optional.of(transaction));
     when(transactionRepository.softDeleteByIdAndUser(eq(42), eq(user), org.mockito.ArgumentMatchers.any()))
         .thenReturn(1);
 
     boolean deleted = service.softDeleteTransaction(principal, 42);
 
     assertThat(deleted).isTrue();
+    verify(accountBalanceService).recordRemoval(user, transaction);
+    verify(balanceService).materializeFrom(user, LocalDate.of(2026, 2, 1));
   }
 
   @Test
-  void setManualCategoryStoresManualAssignmentAndLock() {
+  void setManualCategoryStoresManualAssignmentAndLock() throws Exception {
     User user = new User();
     user.setEmail("user@example.com");
     user.setPasswordHash("hashed");
@@ -303,6 +498,7 @@ class TransactionViewServiceTest {
         .build();
 
     Transaction tx = buildTransaction(user, LocalDateTime.of(2026, 2, 2, 9, 0), -100L, "TX");
+    setId(tx, 9);
 
     Category parent = new Category();
     parent.setName("Shopping");
@@ -320,7 +516,7 @@ class TransactionViewServiceTest {
     assertThat(tx.getCategory()).isEqualTo(sub);
     assertThat(tx.getCategoryAssignedBy()).isEqualTo(CategoryAssignedBy.MANUAL);
     assertThat(tx.isCategoryLocked()).isTrue();
-    assertThat(tx.getRuleConflicts()).isNull();
+    verify(transactionRuleConflictRepository).deleteByTransactionIds(List.of(9));
   }
 
   @Test
@@ -341,8 +537,7 @@ class TransactionViewServiceTest {
         "Netflix.com Buchungstext: Netflix.com, Amsterdam DE Karte Nr. 4871 78XX XXXX 8491 Kartenzahlung");
 
     when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
-    when(transactionRepository.findByUserAndDeletedAtIsNullOrderByBookingDateTimeDesc(eq(user)))
-        .thenReturn(List.of(tx));
+    when(transactionRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(tx));
 
     List<TransactionRow> rows = service.loadTransactions(principal, null, null, null, null);
 
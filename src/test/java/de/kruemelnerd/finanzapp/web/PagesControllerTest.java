@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -15,6 +16,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import de.kruemelnerd.finanzapp.importcsv.CsvImportException;
@@ -547,6 +549,81 @@ class PagesControllerTest {
         .andExpect(content().string(not(containsString("Fuel Station"))));
   }
 
+  @Test
+  void transactionsExportStreamsFilteredCsvAndJson() throws Exception {
+    createUser("transactions-export@example.com");
+    User owner = userRepository.findByEmail("transactions-export@example.com").orElseThrow();
+
+    Category shopping = new Category();
+    shopping.setUser(owner);
+    shopping.setName("Shopping");
+    shopping.setSortOrder(0);
+    shopping = categoryRepository.save(shopping);
+
+    Category sport = new Category();
+    sport.setUser(owner);
+    sport.setParent(shopping);
+    sport.setName("Sport");
+    sport.setSortOrder(0);
+    sport = categoryRepository.save(sport);
+
+    Transaction sportTx = new Transaction();
+    sportTx.setUser(owner);
+    sportTx.setBookingDateTime(LocalDateTime.of(2026, 2, 6, 9, 0));
+    sportTx.setPartnerName("Sport Shop Buchungstext: Laufschuhe");
+    sportTx.setPurposeText("Buchungstext: Laufschuhe");
+    sportTx.setAmountCents(-5000L);
+    sportTx.setCategory(sport);
+    transactionRepository.save(sportTx);
+
+    Transaction booksTx = new Transaction();
+    booksTx.setUser(owner);
+    booksTx.setBookingDateTime(LocalDateTime.of(2026, 2, 7, 9, 0));
+    booksTx.setPartnerName("Book Store");
+    booksTx.setPurposeText("Books");
+    booksTx.setAmountCents(-3000L);
+    transactionRepository.save(booksTx);
+
+    MvcResult csv = mockMvc.perform(get("/transactions/export.csv")
+            .with(user("transactions-export@example.com"))
+            .param("parentCategoryId", shopping.getId().toString()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(csv))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", containsString("text/csv")))
+        .andExpect(header().string("Content-Disposition", containsString("filename=\"transactions-export.csv\"")))
+        .andExpect(content().string(containsString("id;bookingDate;valueDate;name;purpose;amount;currency;status;category")))
+        .andExpect(content().string(containsString(
+            sportTx.getId() + ";2026-02-06;;Sport Shop;Laufschuhe;-50.00;EUR;Completed;Shopping -> Sport")))
+        .andExpect(content().string(not(containsString("Book Store"))));
+
+    MvcResult json = mockMvc.perform(get("/transactions/export.json")
+            .with(user("transactions-export@example.com"))
+            .param("nameContains", "book"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(json))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", containsString("application/json")))
+        .andExpect(jsonPath("$.length()", is(1)))
+        .andExpect(jsonPath("$[0].name", is("Book Store")))
+        .andExpect(jsonPath("$[0].amount", is(-30.0)))
+        .andExpect(jsonPath("$[0].bookingDate", is("2026-02-07")));
+    org.assertj.core.api.Assertions.assertThat(json.getRequest().getAsyncContext().getTimeout())
+        .isEqualTo(java.time.Duration.ofMinutes(10).toMillis());
+
+    MvcResult all = mockMvc.perform(get("/transactions/export.json")
+            .with(user("transactions-export@example.com")))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(all))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()", is(2)))
+        .andExpect(jsonPath("$[0].id", is(booksTx.getId())))
+        .andExpect(jsonPath("$[1].id", is(sportTx.getId())));
+  }
+
   @Test
   void sankeyPageLoadsForAuthenticatedUser() throws Exception {
     mockMvc.perform(get("/reports/sankey").with(user("user")))
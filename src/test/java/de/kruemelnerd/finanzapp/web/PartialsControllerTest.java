@@ -5,6 +5,7 @@ import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -19,6 +20,8 @@ import de.kruemelnerd.finanzapp.repository.TransactionRepository;
 import de.kruemelnerd.finanzapp.repository.UserRepository;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -113,6 +116,52 @@ class PartialsControllerTest {
         .andExpect(content().string(containsString("Locked")));
   }
 
+  @Test
+  void transactionsTableFirstPageHandsOverCursorForNextPage() throws Exception {
+    User user = userRepository.findByEmail("cursor-user@example.com").orElseGet(() -> {
+      User created = new User();
+      created.setEmail("cursor-user@example.com");
+      created.setPasswordHash("hashed");
+      created.setLanguage("EN");
+      return userRepository.save(created);
+    });
+    user.setLanguage("EN");
+    userRepository.save(user);
+    transactionRepository.deleteByUser(user);
+
+    LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+    for (int i = 1; i <= 12; i++) {
+      Transaction tx = new Transaction();
+      tx.setUser(user);
+      tx.setBookingDateTime(start.plusDays(i));
+      tx.setPartnerName(String.format("Cursor Partner %02d", i));
+      tx.setPurposeText("Cursor");
+      tx.setAmountCents(-100L * i);
+      transactionRepository.save(tx);
+    }
+
+    String firstPage = mockMvc.perform(get("/partials/transactions-table").with(user("cursor-user@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("Cursor Partner 12")))
+        .andExpect(content().string(not(containsString("Cursor Partner 02"))))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    Matcher afterInput = Pattern.compile("name=\"after\" value=\"([^\"]+)\"").matcher(firstPage);
+    org.assertj.core.api.Assertions.assertThat(afterInput.find()).isTrue();
+
+    mockMvc.perform(get("/partials/transactions-table")
+            .param("page", "1")
+            .param("after", afterInput.group(1))
+            .with(user("cursor-user@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("Cursor Partner 02")))
+        .andExpect(content().string(containsString("Cursor Partner 01")))
+        .andExpect(content().string(not(containsString("Cursor Partner 03"))))
+        .andExpect(content().string(containsString("name=\"before\"")))
+        .andExpect(content().string(not(containsString("pagination-label"))));
+  }
+
   @Test
   void balanceChartRedirectsWhenUnauthenticated() throws Exception {
     mockMvc.perform(get("/partials/balance-chart"))
@@ -226,6 +275,60 @@ class PartialsControllerTest {
         .andExpect(content().string(containsString("993,44 EUR")));
   }
 
+  @Test
+  void balanceChartCapsMarkersToPlottedPointsForLongHistory() throws Exception {
+    User user = userRepository.findByEmail("long-history-user@example.com").orElseGet(() -> {
+      User created = new User();
+      created.setEmail("long-history-user@example.com");
+      created.setPasswordHash("hashed");
+      created.setLanguage("EN");
+      return userRepository.save(created);
+    });
+    user.setLanguage("EN");
+    userRepository.save(user);
+
+    balanceDailyRepository.deleteByUser(user);
+    transactionRepository.deleteByUser(user);
+
+    int days = 800;
+    java.util.List<BalanceDaily> balances = new java.util.ArrayList<>();
+    java.util.List<Transaction> bookings = new java.util.ArrayList<>();
+    for (int i = -1; i <= days; i++) {
+      LocalDate day = LocalDate.now().minusDays(days - i);
+      BalanceDaily row = new BalanceDaily();
+      row.setUser(user);
+      row.setDate(day);
+      row.setBalanceCentsEndOfDay(100000L + Math.floorMod(i, 7) * 1000L);
+      balances.add(row);
+      for (int j = 0; i >= 0 && j < 3; j++) {
+        Transaction tx = new Transaction();
+        tx.setUser(user);
+        tx.setBookingDateTime(day.atTime(9 + j, 0));
+        tx.setPartnerName("Shop " + i + "-" + j);
+        tx.setPurposeText("Purchase");
+        tx.setAmountCents(-100L - j);
+        bookings.add(tx);
+      }
+    }
+    balanceDailyRepository.saveAll(balances);
+    transactionRepository.saveAll(bookings);
+
+    String html = mockMvc.perform(get("/partials/balance-chart?range=all").with(user("long-history-user@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("more bookings")))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    Matcher markers = Pattern.compile("class=\"line-chart-marker\"").matcher(html);
+    int markerCount = 0;
+    while (markers.find()) {
+      markerCount++;
+    }
+    org.assertj.core.api.Assertions.assertThat(markerCount).isBetween(1, 377);
+    org.assertj.core.api.Assertions.assertThat(html).contains("Shop 0-0");
+  }
+
   @Test
   void balanceChartSplitsLineColorAtZeroThreshold() throws Exception {
     User user = userRepository.findByEmail("threshold-user@example.com").orElseGet(() -> {
@@ -260,4 +363,36 @@ class PartialsControllerTest {
         .andExpect(content().string(containsString("line-clip-positive")))
         .andExpect(content().string(containsString("line-clip-negative")));
   }
+
+  @Test
+  void balanceSeriesEndpointReturnsDownsampledJson() throws Exception {
+    User user = userRepository.findByEmail("series-user@example.com").orElseGet(() -> {
+      User created = new User();
+      created.setEmail("series-user@example.com");
+      created.setPasswordHash("hashed");
+      return userRepository.save(created);
+    });
+
+    balanceDailyRepository.deleteByUser(user);
+    transactionRepository.deleteByUser(user);
+
+    java.util.List<BalanceDaily> rows = new java.util.ArrayList<>();
+    for (int i = 0; i < 365; i++) {
+      BalanceDaily row = new BalanceDaily();
+      row.setUser(user);
+      row.setDate(LocalDate.now().minusDays(i));
+      row.setBalanceCentsEndOfDay(10000L + i);
+      rows.add(row);
+    }
+    balanceDailyRepository.saveAll(rows);
+
+    mockMvc.perform(get("/api/balance/series?range=365d&points=50").with(user("series-user@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalDays").value(365))
+        .andExpect(jsonPath("$.points.length()").value(50))
+        .andExpect(jsonPath("$.points[0].date").value(LocalDate.now().minusDays(364).toString()));
+
+    mockMvc.perform(get("/api/balance/series?range=invalid").with(user("series-user@example.com")))
+        .andExpect(status().isBadRequest());
+  }
 }